@@ -0,0 +1,19 @@
+package com.sophie.task_tracker.cluster;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// what one node tells the others after a commit: which entity changed, nothing more.
+// receivers drop or rebuild whatever they cached for it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeNotification {
+
+    public enum Type { USER, PROJECT, PROJECT_TASKS, PROJECT_DEPENDENCIES, PROJECT_LABELS, ALL_TASKS, USER_ACCESS }
+
+    private String node;    // sender, so a node can skip its own notifications
+    private Type type;
+    private Long id;        // user id (USER, USER_ACCESS), project id, or null for ALL_TASKS
+}
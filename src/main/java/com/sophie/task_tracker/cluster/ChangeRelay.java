@@ -0,0 +1,129 @@
+package com.sophie.task_tracker.cluster;
+
+import com.sophie.task_tracker.events.EntityChangedEvent;
+import com.sophie.task_tracker.events.ProjectAccessChangedEvent;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TaskDependencyChangedEvent;
+import com.sophie.task_tracker.events.TaskLabelsChangedEvent;
+import com.sophie.task_tracker.events.TasksRemovedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+// bridges local change events and the transport. Outgoing notifications are collected per
+// transaction (a bulk update of 1000 tasks in one project sends one notification) and sent
+// with the commit; incoming ones from other nodes are polled and republished as RemoteChangeEvent
+@Component
+public class ChangeRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeRelay.class);
+
+    private final ChangeTransport transport;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId;
+
+    public ChangeRelay(ChangeTransport transport,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${app.cluster.node-id:}") String nodeId) {
+        this.transport = transport;
+        this.eventPublisher = eventPublisher;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // plain @EventListener: runs inside the writer's transaction so the notification can join it
+    @EventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        collect(ChangeNotification.Type.PROJECT_TASKS, event.getProjectId());
+    }
+
+    @EventListener
+    public void onTasksRemoved(TasksRemovedEvent event) {
+        if (event.getProjectId() != null) {
+            collect(ChangeNotification.Type.PROJECT_TASKS, event.getProjectId());
+        } else {
+            collect(ChangeNotification.Type.ALL_TASKS, null);
+        }
+    }
+
+    @EventListener
+    public void onDependencyChanged(TaskDependencyChangedEvent event) {
+        collect(ChangeNotification.Type.PROJECT_DEPENDENCIES, event.getProjectId());
+    }
+
+    @EventListener
+    public void onLabelsChanged(TaskLabelsChangedEvent event) {
+        collect(ChangeNotification.Type.PROJECT_LABELS, event.getProjectId());
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        collect(event.getType() == EntityChangedEvent.Type.USER
+                ? ChangeNotification.Type.USER : ChangeNotification.Type.PROJECT, event.getId());
+    }
+
+    @EventListener
+    public void onAccessChanged(ProjectAccessChangedEvent event) {
+        collect(ChangeNotification.Type.USER_ACCESS, event.getUserId());
+    }
+
+    // the poll interval is the upper bound on how stale another node's cache can be
+    @Scheduled(fixedDelayString = "${app.cluster.poll-ms:1000}")
+    public void pollRemoteChanges() {
+        for (ChangeNotification notification : transport.poll()) {
+            if (!nodeId.equals(notification.getNode())) {
+                eventPublisher.publishEvent(new RemoteChangeEvent(notification));
+            }
+        }
+    }
+
+    private void collect(ChangeNotification.Type type, Long id) {
+        ChangeNotification notification = new ChangeNotification(nodeId, type, id);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            transport.publish(Set.of(notification));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<ChangeNotification> pending = (Set<ChangeNotification>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<ChangeNotification> batch = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (transport.isTransactional()) {
+                        transport.publish(batch);
+                    }
+                }
+
+                @Override
+                public void afterCommit() {
+                    if (!transport.isTransactional()) {
+                        transport.publish(batch);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeRelay.this);
+                }
+            });
+            pending = batch;
+        }
+        pending.add(notification);
+        log.trace("Queued change notification {}", notification);
+    }
+}
@@ -0,0 +1,16 @@
+package com.sophie.task_tracker.cluster;
+
+import java.util.Collection;
+import java.util.List;
+
+// carries change notifications between nodes
+public interface ChangeTransport {
+
+    // true if publish joins the current db transaction, so it runs before commit instead of after
+    boolean isTransactional();
+
+    void publish(Collection<ChangeNotification> notifications);
+
+    // notifications published since the previous poll, including this node's own
+    List<ChangeNotification> poll();
+}
@@ -0,0 +1,55 @@
+package com.sophie.task_tracker.cluster;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+// single JVM stand-in for the cluster: every instance in the JVM is a node, publish hands the
+// notifications to the next poll of each of them, the publisher's own included. With one
+// application context that's just this node, with several (tests) they see each other's changes
+@Component
+@ConditionalOnProperty(name = "app.cluster.transport", havingValue = "memory", matchIfMissing = true)
+public class InMemoryChangeTransport implements ChangeTransport {
+
+    private static final Set<InMemoryChangeTransport> NODES = new CopyOnWriteArraySet<>();
+
+    private final List<ChangeNotification> pending = new ArrayList<>();
+
+    public InMemoryChangeTransport() {
+        NODES.add(this);
+    }
+
+    @PreDestroy
+    public void close() {
+        NODES.remove(this);
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public void publish(Collection<ChangeNotification> notifications) {
+        for (InMemoryChangeTransport node : NODES) {
+            node.receive(notifications);
+        }
+    }
+
+    @Override
+    public synchronized List<ChangeNotification> poll() {
+        List<ChangeNotification> result = new ArrayList<>(pending);
+        pending.clear();
+        return result;
+    }
+
+    private synchronized void receive(Collection<ChangeNotification> notifications) {
+        pending.addAll(notifications);
+    }
+}
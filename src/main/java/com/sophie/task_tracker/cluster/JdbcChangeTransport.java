@@ -0,0 +1,148 @@
+package com.sophie.task_tracker.cluster;
+
+import com.sophie.task_tracker.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// change table in the shared database: writers insert in their own transaction,
+// every node tails it. With sharding a change lands on the shard its transaction is on and polls
+// read all of them. A poll only reads ids past the last one it saw on each shard, plus the few
+// skipped ids that may still turn up from a late commit
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.cluster.transport", havingValue = "jdbc")
+public class JdbcChangeTransport implements ChangeTransport {
+
+    // beyond this many open gaps the oldest ones are given up on
+    private static final int MAX_GAPS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
+
+    @Value("${app.cluster.retention-minutes:60}")
+    private long retentionMinutes;
+
+    // how long a skipped id is waited for, covers slow commits
+    @Value("${app.cluster.lookback-seconds:30}")
+    private long lookbackSeconds;
+
+    // last id read per shard, null until the first poll
+    private long[] lastIds;
+    // skipped ids -> when we first noticed them, in that order
+    private final LinkedHashMap<Long, LocalDateTime> gaps = new LinkedHashMap<>();
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    @Override
+    public void publish(Collection<ChangeNotification> notifications) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(notifications.size());
+        for (ChangeNotification n : notifications) {
+            rows.add(new Object[]{n.getNode(), n.getType().name(), n.getId(), now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO change_log (node, type, entity_id, created_at) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    // ids are handed out at insert but rows become visible at commit, so a slow transaction can
+    // show up behind ids we already read. Ids skipped on the way are kept as gaps and asked for
+    // again by id until they arrive or lookbackSeconds pass (a rollback leaves a gap for good)
+    @Override
+    public synchronized List<ChangeNotification> poll() {
+        if (lastIds == null) {
+            // start from now, older changes are already in whatever we load from the db
+            List<Long> maxIds = shards.onEachShard(true, shard ->
+                    jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM change_log", Long.class));
+            lastIds = maxIds.stream().mapToLong(Long::longValue).toArray();
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expired = now.minusSeconds(lookbackSeconds);
+        gaps.values().removeIf(noticed -> noticed.isBefore(expired));
+
+        long[] from = lastIds.clone();
+        List<Long> open = new ArrayList<>(gaps.keySet());
+        List<List<ChangeRow>> perShard = shards.onEachShard(true, shard -> read(from[shard], shards.idsOn(shard, open)));
+
+        // change_log ids are strided per shard, so each shard counts up in steps of the shard count
+        int step = shards.isEnabled() ? shards.count() : 1;
+        List<ChangeNotification> result = new ArrayList<>();
+        for (int shard = 0; shard < perShard.size(); shard++) {
+            for (ChangeRow row : perShard.get(shard)) {
+                if (row.id <= lastIds[shard]) {
+                    gaps.remove(row.id);
+                } else {
+                    noteGaps(lastIds[shard], row.id, step, now);
+                    lastIds[shard] = row.id;
+                }
+                result.add(row.notification);
+            }
+        }
+        return result;
+    }
+
+    private List<ChangeRow> read(long after, List<Long> gapIds) {
+        StringBuilder sql = new StringBuilder("SELECT id, node, type, entity_id FROM change_log WHERE id > ?");
+        List<Object> args = new ArrayList<>(gapIds.size() + 1);
+        args.add(after);
+        if (!gapIds.isEmpty()) {
+            sql.append(" OR id IN (").append(String.join(", ", Collections.nCopies(gapIds.size(), "?"))).append(')');
+            args.addAll(gapIds);
+        }
+        sql.append(" ORDER BY id");
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            // null for changes that aren't about one entity, e.g. ALL_TASKS
+            ChangeNotification notification = new ChangeNotification(
+                    rs.getString("node"),
+                    ChangeNotification.Type.valueOf(rs.getString("type")),
+                    rs.getObject("entity_id", Long.class));
+            return new ChangeRow(rs.getLong("id"), notification);
+        }, args.toArray());
+    }
+
+    private void noteGaps(long last, long id, int step, LocalDateTime now) {
+        // a huge jump (restart, identity cache) isn't worth tracking id by id
+        if ((id - last) / step > MAX_GAPS) {
+            return;
+        }
+        for (long missing = last + step; missing < id; missing += step) {
+            gaps.put(missing, now);
+        }
+        Iterator<Long> oldest = gaps.keySet().iterator();
+        while (gaps.size() > MAX_GAPS) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.cleanup-interval-ms:600000}")
+    public void deleteOldEntries() {
+        Timestamp before = Timestamp.valueOf(LocalDateTime.now().minusMinutes(retentionMinutes));
+        shards.onEachShard(false, shard -> jdbcTemplate.update("DELETE FROM change_log WHERE created_at < ?", before));
+    }
+
+    private static final class ChangeRow {
+        private final long id;
+        private final ChangeNotification notification;
+
+        private ChangeRow(long id, ChangeNotification notification) {
+            this.id = id;
+            this.notification = notification;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.sophie.task_tracker.cluster;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// a change committed on another node, republished locally for node-local caches
+@Getter
+@AllArgsConstructor
+public class RemoteChangeEvent {
+    private final ChangeNotification notification;
+}
@@ -0,0 +1,38 @@
+package com.sophie.task_tracker.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Component
+// warns when a single request runs more SQL statements than the threshold, usually an N+1 somewhere
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    @Value("${app.query-count.warn-threshold:20}")
+    private long warnThreshold;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
+        QueryCountInspector.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long count = QueryCountInspector.count();
+            if (count > warnThreshold) {
+                log.warn("{} {} issued {} SQL statements (threshold {})",
+                        request.getMethod(), request.getRequestURI(), count, warnThreshold);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.sophie.task_tracker.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// counts the SQL statements Hibernate prepares on the current thread.
+// registered through hibernate.session_factory.statement_inspector, so Hibernate creates it, not Spring
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static long count() {
+        return COUNT.get()[0];
+    }
+}
@@ -2,8 +2,11 @@ package com.sophie.task_tracker.controllers;
 
 import com.sophie.task_tracker.dto.AuthResponseDto;
 import com.sophie.task_tracker.dto.LoginDto;
+import com.sophie.task_tracker.dto.UserDto;
 import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.idempotency.IdempotencyStore;
 import com.sophie.task_tracker.services.AuthService;
+import com.sophie.task_tracker.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -11,6 +14,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -18,12 +23,24 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final UserService userService;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping("/register")
     @Operation(summary = "Register a new user", description = "Register a new user with email, password, and role")
-    public ResponseEntity<AuthResponseDto> register(@Valid @RequestBody UserRegistrationDto registrationDto) {
-        AuthResponseDto response = authService.register(registrationDto);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<AuthResponseDto> register(
+            @Valid @RequestBody UserRegistrationDto registrationDto,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        // no user yet, the email keeps keys of different sign-ups apart. Only the user is kept for
+        // the key, never the token or the password: a replay has to pass the password check again
+        // and gets a token of its own
+        ResponseEntity<UserDto> registered = idempotencyStore.execute(idempotencyKey, "POST /api/auth/register:" + registrationDto.getEmail(),
+                Arrays.asList(registrationDto.getEmail(), registrationDto.getRole()), UserDto.class,
+                () -> ResponseEntity.ok(userService.registerUser(registrationDto)));
+        boolean replayed = registered.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER);
+        return ResponseEntity.status(registered.getStatusCode())
+                .headers(registered.getHeaders())
+                .body(authService.registered(registered.getBody(), registrationDto.getPassword(), replayed));
     }
 
     @PostMapping("/login")
@@ -0,0 +1,203 @@
+package com.sophie.task_tracker.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.sophie.task_tracker.config.QueryCountFilter;
+import com.sophie.task_tracker.dto.BatchRequestDto;
+import com.sophie.task_tracker.dto.BatchResponseDto;
+import com.sophie.task_tracker.exception.BadRequestException;
+import com.sophie.task_tracker.exception.GlobalExceptionHandler;
+import com.sophie.task_tracker.exception.ServiceUnavailableException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// several API calls in one round trip. Sub-requests go through the DispatcherServlet like normal
+// requests, with the batch caller's authentication, so @PreAuthorize and the services' own access
+// checks apply unchanged. Consecutive GETs run in parallel, writes one at a time in list order.
+// The servlet filter chain is not run again for sub-requests: security already authenticated the
+// batch request, and container filters (encoding, request context) have nothing to add to an in-memory
+// call. QueryCountFilter is the exception, it wraps each sub-request so its warning names the call
+@RestController
+@RequestMapping("/api/batch")
+@Tag(name = "Batch", description = "Several API calls in one request")
+public class BatchController {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchController.class);
+
+    private static final List<String> ALLOWED_PREFIXES = List.of("/api/tasks", "/api/projects", "/api/users");
+    private static final Set<String> METHODS = Set.of("GET", "POST", "PUT", "PATCH", "DELETE");
+
+    private final DispatcherServlet dispatcherServlet;
+    private final QueryCountFilter queryCountFilter;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+
+    @Value("${app.batch.max-requests:20}")
+    private int maxRequests;
+
+    // one pool for all batches, so parallelism (and database connections) stay bounded under load
+    public BatchController(DispatcherServlet dispatcherServlet, QueryCountFilter queryCountFilter, ObjectMapper objectMapper,
+                           @Value("${app.batch.parallelism:4}") int parallelism) {
+        this.dispatcherServlet = dispatcherServlet;
+        this.queryCountFilter = queryCountFilter;
+        this.objectMapper = objectMapper;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "batch-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @PostMapping
+    @Operation(summary = "Batch request", description = "Run a list of calls to /api/tasks, /api/projects and /api/users; results come back in the same order, each with its own status")
+    public ResponseEntity<List<BatchResponseDto>> batch(
+            @RequestBody List<@Valid BatchRequestDto> requests,
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Authentication authentication) {
+
+        if (requests.size() > maxRequests) {
+            throw new BadRequestException("Too many sub-requests, maximum is " + maxRequests);
+        }
+
+        BatchResponseDto[] results = new BatchResponseDto[requests.size()];
+        int start = 0;
+        while (start < requests.size()) {
+            int end = start + 1;
+            if (isRead(requests.get(start))) {
+                while (end < requests.size() && isRead(requests.get(end))) {
+                    end++;
+                }
+            }
+            List<Future<BatchResponseDto>> running = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                BatchRequestDto item = requests.get(i);
+                running.add(executor.submit(() -> execute(item, request, response, authentication)));
+            }
+            for (int i = start; i < end; i++) {
+                results[i] = await(running.get(i - start));
+            }
+            start = end;
+        }
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+
+    private BatchResponseDto execute(BatchRequestDto item, HttpServletRequest request, HttpServletResponse response,
+                                     Authentication authentication) throws IOException {
+        String method = item.getMethod() != null ? item.getMethod().toUpperCase() : "GET";
+        if (!METHODS.contains(method)) {
+            return error(HttpStatus.METHOD_NOT_ALLOWED, "Method " + method + " is not supported in a batch");
+        }
+        byte[] body = item.getBody() != null ? objectMapper.writeValueAsBytes(item.getBody()) : null;
+        BatchSubRequest subRequest = new BatchSubRequest(request, method, item.getUrl(), item.getHeaders(), body, authentication);
+        if (!isAllowed(subRequest.getPath())) {
+            return error(HttpStatus.BAD_REQUEST, "Only /api/tasks, /api/projects and /api/users can be called in a batch");
+        }
+        BatchSubResponse subResponse = new BatchSubResponse(response);
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        try {
+            queryCountFilter.doFilter(subRequest, subResponse, (req, res) -> dispatcherServlet.service(req, res));
+        } catch (Exception e) {
+            // GlobalExceptionHandler answers almost everything, this is what it couldn't
+            log.error("Batch sub-request {} {} failed", method, item.getUrl(), e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Sub-request failed: " + e.getMessage());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return toResult(subResponse);
+    }
+
+    private BatchResponseDto toResult(BatchSubResponse subResponse) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : List.of(HttpHeaders.ETAG, HttpHeaders.LOCATION)) {
+            String value = subResponse.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        byte[] body = subResponse.getBody();
+        JsonNode json = null;
+        if (body.length > 0) {
+            try {
+                json = objectMapper.readTree(body);
+            } catch (IOException e) {
+                json = TextNode.valueOf(new String(body, StandardCharsets.UTF_8));
+            }
+        }
+        return new BatchResponseDto(subResponse.getStatus(), headers, json);
+    }
+
+    private BatchResponseDto error(HttpStatus status, String message) {
+        GlobalExceptionHandler.ErrorResponse error = new GlobalExceptionHandler.ErrorResponse(status.value(), message, LocalDateTime.now());
+        return new BatchResponseDto(status.value(), Map.of(), objectMapper.valueToTree(error));
+    }
+
+    private BatchResponseDto await(Future<BatchResponseDto> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Batch request interrupted");
+        } catch (ExecutionException e) {
+            log.error("Batch sub-request failed", e.getCause());
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Sub-request failed: " + e.getCause().getMessage());
+        }
+    }
+
+    private static boolean isRead(BatchRequestDto item) {
+        return item.getMethod() == null || item.getMethod().equalsIgnoreCase("GET");
+    }
+
+    // no nested batches and no /api/auth, which works without a token
+    private static boolean isAllowed(String path) {
+        for (String prefix : ALLOWED_PREFIXES) {
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
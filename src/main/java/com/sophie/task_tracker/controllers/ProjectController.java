@@ -1,9 +1,19 @@
 package com.sophie.task_tracker.controllers;
 
+import com.sophie.task_tracker.dto.BoardDto;
+import com.sophie.task_tracker.dto.BoardTaskDto;
+import com.sophie.task_tracker.dto.CriticalPathDto;
 import com.sophie.task_tracker.dto.ProjectCreateDto;
 import com.sophie.task_tracker.dto.ProjectDto;
+import com.sophie.task_tracker.dto.ProjectMemberDto;
+import com.sophie.task_tracker.dto.ProjectOverviewDto;
+import com.sophie.task_tracker.dto.TaskCountsDto;
+import com.sophie.task_tracker.enums.ProjectMemberRole;
 import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.idempotency.IdempotencyStore;
+import com.sophie.task_tracker.services.OptimisticLockRetry;
 import com.sophie.task_tracker.services.ProjectService;
+import com.sophie.task_tracker.services.TaskDependencyService;
 import com.sophie.task_tracker.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -24,7 +34,10 @@ import java.util.List;
 public class ProjectController {
 
     private final ProjectService projectService;
+    private final TaskDependencyService taskDependencyService;
     private final UserService userService;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final IdempotencyStore idempotencyStore;
 
 
     @PostMapping
@@ -32,21 +45,25 @@ public class ProjectController {
     @PreAuthorize("hasAnyAuthority('MANAGER', 'ADMIN')")
     public ResponseEntity<ProjectDto> createProject(
             @Valid @RequestBody ProjectCreateDto projectCreateDto,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         
         Long userId = getUserIdFromAuthentication(authentication);
-        ProjectDto project = projectService.createProject(projectCreateDto, userId);
-        return ResponseEntity.ok(project);
+        return idempotencyStore.execute(idempotencyKey, "POST /api/projects:" + userId, projectCreateDto, ProjectDto.class,
+                () -> ResponseEntity.ok(projectService.createProject(projectCreateDto, userId)));
     }
 
 
 
     @GetMapping
-    @Operation(summary = "Get all projects", description = "Retrieve all projects (ADMIN sees all, others see their own)")
-    public ResponseEntity<List<ProjectDto>> getAllProjects(Authentication authentication) {
+    @Operation(summary = "Get all projects", description = "Retrieve projects with task counts and completion ratio, by page (ADMIN sees all, others see their own)")
+    public ResponseEntity<List<ProjectOverviewDto>> getAllProjects(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size,
+            Authentication authentication) {
         Long userId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
-        List<ProjectDto> projects = projectService.getAllProjects(userId, userRole);
+        List<ProjectOverviewDto> projects = projectService.getAllProjects(page, size, userId, userRole);
         return ResponseEntity.ok(projects);
     }
 
@@ -59,10 +76,60 @@ public class ProjectController {
         Long userId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
         ProjectDto project = projectService.getProjectById(id, userId, userRole);
-        return ResponseEntity.ok(project);
+        return ResponseEntity.ok().eTag(String.valueOf(project.getVersion())).body(project);
+    }
+
+
+
+    @GetMapping("/{id}/summary")
+    @Operation(summary = "Get project task summary", description = "Counts of the project's tasks by status and priority plus overdue count")
+    public ResponseEntity<TaskCountsDto> getProjectSummary(
+            @PathVariable Long id,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskCountsDto summary = projectService.getProjectTaskCounts(id, userId, userRole);
+        return ResponseEntity.ok(summary);
+    }
+
+    @GetMapping("/{id}/board")
+    @Operation(summary = "Get project board", description = "Tasks grouped by status with per-column counts, optionally limited per column")
+    public ResponseEntity<BoardDto> getProjectBoard(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int limit,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        BoardDto board = projectService.getBoard(id, limit, userId, userRole);
+        return ResponseEntity.ok(board);
     }
 
+    @GetMapping("/{id}/ready-tasks")
+    @Operation(summary = "Get ready tasks", description = "TODO tasks with no unfinished blocker, earliest due date first, optionally limited")
+    public ResponseEntity<List<BoardTaskDto>> getReadyTasks(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int limit,
+            Authentication authentication) {
 
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<BoardTaskDto> tasks = taskDependencyService.getReadyTasks(id, limit, userId, userRole);
+        return ResponseEntity.ok(tasks);
+    }
+
+    @GetMapping("/{id}/critical-path")
+    @Operation(summary = "Get critical path", description = "Longest chain of unfinished dependent tasks and the date its first task has to be done by")
+    public ResponseEntity<CriticalPathDto> getCriticalPath(
+            @PathVariable Long id,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        CriticalPathDto path = taskDependencyService.getCriticalPath(id, userId, userRole);
+        return ResponseEntity.ok(path);
+    }
 
     @PutMapping("/{id}")
     @Operation(summary = "Update project", description = "Update an existing project")
@@ -70,12 +137,15 @@ public class ProjectController {
     public ResponseEntity<ProjectDto> updateProject(
             @PathVariable Long id,
             @Valid @RequestBody ProjectCreateDto projectUpdateDto,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             Authentication authentication) {
         
         Long userId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
-        ProjectDto project = projectService.updateProject(id, projectUpdateDto, userId, userRole);
-        return ResponseEntity.ok(project);
+        Long expectedVersion = IfMatch.version(ifMatch);
+        ProjectDto project = optimisticLockRetry.once("project", "update",
+                () -> projectService.updateProject(id, projectUpdateDto, userId, userRole, expectedVersion));
+        return ResponseEntity.ok().eTag(String.valueOf(project.getVersion())).body(project);
     }
 
     @DeleteMapping("/{id}")
@@ -91,6 +161,45 @@ public class ProjectController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/{id}/members")
+    @Operation(summary = "Get project members", description = "Users the project is shared with and their role, the owner not included")
+    public ResponseEntity<List<ProjectMemberDto>> getMembers(
+            @PathVariable Long id,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<ProjectMemberDto> members = projectService.getMembers(id, userId, userRole);
+        return ResponseEntity.ok(members);
+    }
+
+    @PutMapping("/{id}/members/{memberId}")
+    @Operation(summary = "Add or update project member", description = "Share the project with a user as VIEWER or EDITOR (owner/ADMIN only)")
+    public ResponseEntity<ProjectMemberDto> setMember(
+            @PathVariable Long id,
+            @PathVariable Long memberId,
+            @RequestParam ProjectMemberRole role,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        ProjectMemberDto member = projectService.setMember(id, memberId, role, userId, userRole);
+        return ResponseEntity.ok(member);
+    }
+
+    @DeleteMapping("/{id}/members/{memberId}")
+    @Operation(summary = "Remove project member", description = "Stop sharing the project with a user (owner/ADMIN only)")
+    public ResponseEntity<Void> removeMember(
+            @PathVariable Long id,
+            @PathVariable Long memberId,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        projectService.removeMember(id, memberId, userId, userRole);
+        return ResponseEntity.noContent().build();
+    }
+
 
 
     private Long getUserIdFromAuthentication(Authentication authentication) {
@@ -1,24 +1,56 @@
 package com.sophie.task_tracker.controllers;
 
+import com.sophie.task_tracker.dto.BoardTaskDto;
+import com.sophie.task_tracker.dto.CommentCreateDto;
+import com.sophie.task_tracker.dto.DueBucketDto;
+import com.sophie.task_tracker.dto.TaskActivityDto;
+import com.sophie.task_tracker.dto.TaskActivityPageDto;
+import com.sophie.task_tracker.dto.TaskBatchDto;
+import com.sophie.task_tracker.dto.TaskBulkResultDto;
+import com.sophie.task_tracker.dto.TaskBulkUpdateDto;
 import com.sophie.task_tracker.dto.TaskCreateDto;
+import com.sophie.task_tracker.dto.TaskDependenciesDto;
 import com.sophie.task_tracker.dto.TaskDto;
+import com.sophie.task_tracker.dto.TaskField;
+import com.sophie.task_tracker.dto.TaskRollupDto;
+import com.sophie.task_tracker.dto.TaskSearchResultDto;
+import com.sophie.task_tracker.dto.TaskTreeNodeDto;
 import com.sophie.task_tracker.dto.TaskUpdateDto;
+import com.sophie.task_tracker.enums.ActivityType;
+import com.sophie.task_tracker.enums.CalendarBucket;
 import com.sophie.task_tracker.enums.Role;
 import com.sophie.task_tracker.enums.TaskPriority;
 import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.exception.BadRequestException;
+import com.sophie.task_tracker.idempotency.IdempotencyStore;
+import com.sophie.task_tracker.repositories.TaskFilter;
+import com.sophie.task_tracker.services.OptimisticLockRetry;
+import com.sophie.task_tracker.services.TaskActivityService;
+import com.sophie.task_tracker.services.TaskCalendarService;
+import com.sophie.task_tracker.services.TaskDependencyService;
+import com.sophie.task_tracker.services.TaskHierarchyService;
+import com.sophie.task_tracker.services.TaskLabelService;
 import com.sophie.task_tracker.services.TaskService;
 import com.sophie.task_tracker.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/tasks")
@@ -27,23 +59,72 @@ import java.util.List;
 public class TaskController {
 
     private final TaskService taskService;
+    private final TaskDependencyService taskDependencyService;
+    private final TaskHierarchyService taskHierarchyService;
+    private final TaskActivityService taskActivityService;
+    private final TaskCalendarService taskCalendarService;
+    private final TaskLabelService taskLabelService;
     private final UserService userService;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final IdempotencyStore idempotencyStore;
 
 
     @PostMapping
-    @Operation(summary = "Create task", description = "Create a new task (MANAGER/ADMIN only)")
+    @Operation(summary = "Create task", description = "Create a new task (MANAGER/ADMIN only), assign=auto gives it to the least loaded user")
     @PreAuthorize("hasAnyAuthority('MANAGER','ADMIN')")
     public ResponseEntity<TaskDto> createTask(
             @Valid @RequestBody TaskCreateDto taskCreateDto,
+            @RequestParam(required = false) String assign,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         
         Long userId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
-        TaskDto task = taskService.createTask(taskCreateDto, userId, userRole);
-        return ResponseEntity.ok(task);
+        boolean autoAssign = isAutoAssign(assign);
+        // a retried create with the same key gets the first response instead of a second task
+        return idempotencyStore.execute(idempotencyKey, "POST /api/tasks:" + userId, Arrays.asList(taskCreateDto, assign), TaskDto.class,
+                () -> ResponseEntity.ok(taskService.createTask(taskCreateDto, autoAssign, userId, userRole)));
+    }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Bulk create tasks", description = "Create several tasks in one transaction (MANAGER/ADMIN only), assign=auto spreads them over the least loaded users")
+    @PreAuthorize("hasAnyAuthority('MANAGER','ADMIN')")
+    public ResponseEntity<List<TaskDto>> createTasks(
+            @RequestBody List<@Valid TaskCreateDto> taskCreateDtos,
+            @RequestParam(required = false) String assign,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<TaskDto> tasks = taskService.createTasks(taskCreateDtos, isAutoAssign(assign), userId, userRole);
+        return ResponseEntity.ok(tasks);
+    }
+
+
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get tasks by IDs", description = "Retrieve several tasks in one call, e.g. ?ids=1,2,3")
+    public ResponseEntity<TaskBatchDto> getTasksByIds(
+            @RequestParam List<Long> ids,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskBatchDto tasks = taskService.getTasksByIds(ids, userId, userRole);
+        return ResponseEntity.ok(tasks);
     }
 
+    @PostMapping("/batch-get")
+    @Operation(summary = "Get tasks by IDs (POST)", description = "Same as GET /api/tasks?ids=... for id lists too long for a URL")
+    public ResponseEntity<TaskBatchDto> getTasksByIdsPost(
+            @RequestBody List<Long> ids,
+            Authentication authentication) {
 
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskBatchDto tasks = taskService.getTasksByIds(ids, userId, userRole);
+        return ResponseEntity.ok(tasks);
+    }
 
     @GetMapping("/{id}")
     @Operation(summary = "Get task by ID", description = "Retrieve a specific task by ID")
@@ -54,65 +135,147 @@ public class TaskController {
         Long userId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
         TaskDto task = taskService.getTaskById(id, userId, userRole);
-        return ResponseEntity.ok(task);
+        return ResponseEntity.ok().eTag(String.valueOf(task.getVersion())).body(task);
     }
 
     @GetMapping("/project/{projectId}")
     @Operation(summary = "Get tasks by project", description = "Retrieve all tasks for a specific project")
-    public ResponseEntity<List<TaskDto>> getTasksByProject(
+    public ResponseEntity<List<?>> getTasksByProject(
             @PathVariable Long projectId,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int limit,
             Authentication authentication) {
         
         Long userId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
-        List<TaskDto> tasks = taskService.getTasksByProject(projectId, userId, userRole);
-        return ResponseEntity.ok(tasks);
+        return listTasks(fields, includeArchived, sort, limit, filter -> filter.setProjectId(projectId),
+                page -> taskService.getTasksByProject(projectId, page, userId, userRole), userId, userRole);
     }
 
     @GetMapping("/assigned/{userId}")
     @Operation(summary = "Get tasks by assigned user", description = "Retrieve all tasks assigned to a specific user")
-    public ResponseEntity<List<TaskDto>> getTasksByAssignedUser(
+    public ResponseEntity<List<?>> getTasksByAssignedUser(
             @PathVariable Long userId,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int limit,
             Authentication authentication) {
         
         Long currentUserId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
-        List<TaskDto> tasks = taskService.getTasksByAssignedUser(userId, currentUserId, userRole);
-        return ResponseEntity.ok(tasks);
+        return listTasks(fields, includeArchived, sort, limit, filter -> filter.setAssignedUserId(userId),
+                page -> taskService.getTasksByAssignedUser(userId, page, currentUserId, userRole), currentUserId, userRole);
     }
 
     @GetMapping("/status/{status}")
     @Operation(summary = "Get tasks by status", description = "Retrieve all tasks with a specific status")
-    public ResponseEntity<List<TaskDto>> getTasksByStatus(
+    public ResponseEntity<List<?>> getTasksByStatus(
             @PathVariable TaskStatus status,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int limit,
             Authentication authentication) {
         
         Long userId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
-        List<TaskDto> tasks = taskService.getTasksByStatus(status, userId, userRole);
-        return ResponseEntity.ok(tasks);
+        return listTasks(fields, includeArchived, sort, limit, filter -> filter.setStatus(status),
+                page -> taskService.getTasksByStatus(status, page, userId, userRole), userId, userRole);
     }
 
     @GetMapping("/priority/{priority}")
     @Operation(summary = "Get tasks by priority", description = "Retrieve all tasks with a specific priority")
-    public ResponseEntity<List<TaskDto>> getTasksByPriority(
+    public ResponseEntity<List<?>> getTasksByPriority(
             @PathVariable TaskPriority priority,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int limit,
             Authentication authentication) {
         
         Long userId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
-        List<TaskDto> tasks = taskService.getTasksByPriority(priority, userId, userRole);
-        return ResponseEntity.ok(tasks);
+        return listTasks(fields, includeArchived, sort, limit, filter -> filter.setPriority(priority),
+                page -> taskService.getTasksByPriority(priority, page, userId, userRole), userId, userRole);
     }
 
     @GetMapping("/due-before/{date}")
     @Operation(summary = "Get tasks due before date", description = "Retrieve tasks due before a date")
-    public ResponseEntity<List<TaskDto>> getTasksDueBefore(
+    public ResponseEntity<List<?>> getTasksDueBefore(
             @PathVariable LocalDate date,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int limit,
+            Authentication authentication) {
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        return listTasks(fields, includeArchived, sort, limit, filter -> filter.setDueBefore(date),
+                page -> taskService.getTasksDueBefore(date, page, userId, userRole), userId, userRole);
+    }
+
+    @GetMapping("/project/{projectId}/due-histogram")
+    @Operation(summary = "Project due date histogram", description = "Number of tasks due per day or week, from today for 90 days by default")
+    public ResponseEntity<List<DueBucketDto>> getProjectDueHistogram(
+            @PathVariable Long projectId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "90") int days,
+            @RequestParam(defaultValue = "DAY") CalendarBucket bucket,
             Authentication authentication) {
+
         Long userId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
-        List<TaskDto> tasks = taskService.getTasksDueBefore(date, userId, userRole);
+        List<DueBucketDto> buckets = taskCalendarService.getProjectHistogram(projectId, from != null ? from : LocalDate.now(), days, bucket, userId, userRole);
+        return ResponseEntity.ok(buckets);
+    }
+
+    @GetMapping("/project/{projectId}/due")
+    @Operation(summary = "Project tasks due in a range", description = "Tasks due from..to (inclusive) by day, one page at a time")
+    public ResponseEntity<List<BoardTaskDto>> getProjectTasksDue(
+            @PathVariable Long projectId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<BoardTaskDto> tasks = taskCalendarService.getProjectTasksDue(projectId, from, to, page, size, userId, userRole);
+        return ResponseEntity.ok(tasks);
+    }
+
+    @GetMapping("/assigned/{userId}/due-histogram")
+    @Operation(summary = "User due date histogram", description = "Number of tasks assigned to a user due per day or week")
+    public ResponseEntity<List<DueBucketDto>> getUserDueHistogram(
+            @PathVariable Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "90") int days,
+            @RequestParam(defaultValue = "DAY") CalendarBucket bucket,
+            Authentication authentication) {
+
+        Long currentUserId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<DueBucketDto> buckets = taskCalendarService.getUserHistogram(userId, from != null ? from : LocalDate.now(), days, bucket, currentUserId, userRole);
+        return ResponseEntity.ok(buckets);
+    }
+
+    @GetMapping("/assigned/{userId}/due")
+    @Operation(summary = "User tasks due in a range", description = "Tasks assigned to a user due from..to (inclusive) by day, one page at a time")
+    public ResponseEntity<List<BoardTaskDto>> getUserTasksDue(
+            @PathVariable Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            Authentication authentication) {
+
+        Long currentUserId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<BoardTaskDto> tasks = taskCalendarService.getUserTasksDue(userId, from, to, page, size, currentUserId, userRole);
         return ResponseEntity.ok(tasks);
     }
 
@@ -121,12 +284,15 @@ public class TaskController {
     public ResponseEntity<TaskDto> updateTask(
             @PathVariable Long id,
             @Valid @RequestBody TaskUpdateDto taskUpdateDto,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             Authentication authentication) {
         
         Long userId = getUserIdFromAuthentication(authentication);
         Role userRole = getRoleFromAuthentication(authentication);
-        TaskDto task = taskService.updateTask(id, taskUpdateDto, userId, userRole);
-        return ResponseEntity.ok(task);
+        Long expectedVersion = IfMatch.version(ifMatch);
+        TaskDto task = optimisticLockRetry.once("task", "update",
+                () -> taskService.updateTask(id, taskUpdateDto, userId, userRole, expectedVersion));
+        return ResponseEntity.ok().eTag(String.valueOf(task.getVersion())).body(task);
     }
 
     @PatchMapping("/{id}/status")
@@ -134,6 +300,7 @@ public class TaskController {
     public ResponseEntity<TaskDto> updateTaskStatus(
             @PathVariable Long id,
             @RequestParam TaskStatus status,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             Authentication authentication) {
         
         Long userId = getUserIdFromAuthentication(authentication);
@@ -142,8 +309,24 @@ public class TaskController {
         TaskUpdateDto updateDto = new TaskUpdateDto();
         updateDto.setStatus(status);
         
-        TaskDto task = taskService.updateTask(id, updateDto, userId, userRole);
-        return ResponseEntity.ok(task);
+        Long expectedVersion = IfMatch.version(ifMatch);
+        // a status-only change can safely be re-applied on a newer row, unless the client pinned a version
+        TaskDto task = expectedVersion == null
+                ? optimisticLockRetry.retry("task", "status", () -> taskService.updateTask(id, updateDto, userId, userRole))
+                : optimisticLockRetry.once("task", "status", () -> taskService.updateTask(id, updateDto, userId, userRole, expectedVersion));
+        return ResponseEntity.ok().eTag(String.valueOf(task.getVersion())).body(task);
+    }
+
+    @PatchMapping("/bulk")
+    @Operation(summary = "Bulk update tasks", description = "Change status, priority, assignee or due date for many tasks selected by ids or a filter")
+    public ResponseEntity<TaskBulkResultDto> bulkUpdateTasks(
+            @RequestBody TaskBulkUpdateDto bulkUpdateDto,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskBulkResultDto result = taskService.bulkUpdateTasks(bulkUpdateDto, userId, userRole);
+        return ResponseEntity.ok(result);
     }
 
     @DeleteMapping("/{id}")
@@ -159,6 +342,222 @@ public class TaskController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/{id}/dependencies")
+    @Operation(summary = "Get task dependencies", description = "Tasks blocking this task and tasks blocked by it")
+    public ResponseEntity<TaskDependenciesDto> getTaskDependencies(
+            @PathVariable Long id,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskDependenciesDto dependencies = taskDependencyService.getTaskDependencies(id, userId, userRole);
+        return ResponseEntity.ok(dependencies);
+    }
+
+    @PutMapping("/{id}/blocked-by/{blockerId}")
+    @Operation(summary = "Add dependency", description = "Mark this task as blocked by another task of the same project, rejected if it would create a cycle")
+    public ResponseEntity<TaskDependenciesDto> addDependency(
+            @PathVariable Long id,
+            @PathVariable Long blockerId,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskDependenciesDto dependencies = taskDependencyService.addDependency(id, blockerId, userId, userRole);
+        return ResponseEntity.ok(dependencies);
+    }
+
+    @DeleteMapping("/{id}/blocked-by/{blockerId}")
+    @Operation(summary = "Remove dependency", description = "Remove the dependency on another task")
+    public ResponseEntity<TaskDependenciesDto> removeDependency(
+            @PathVariable Long id,
+            @PathVariable Long blockerId,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskDependenciesDto dependencies = taskDependencyService.removeDependency(id, blockerId, userId, userRole);
+        return ResponseEntity.ok(dependencies);
+    }
+
+
+    @PutMapping("/{id}/parent/{parentId}")
+    @Operation(summary = "Move task", description = "Make the task, with all its subtasks, a subtask of another task in the same project")
+    public ResponseEntity<TaskDto> setParent(
+            @PathVariable Long id,
+            @PathVariable Long parentId,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskDto task = taskHierarchyService.moveTask(id, parentId, userId, userRole);
+        return ResponseEntity.ok(task);
+    }
+
+    @DeleteMapping("/{id}/parent")
+    @Operation(summary = "Make top level task", description = "Detach the task, with all its subtasks, from its parent")
+    public ResponseEntity<TaskDto> removeParent(
+            @PathVariable Long id,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskDto task = taskHierarchyService.moveTask(id, null, userId, userRole);
+        return ResponseEntity.ok(task);
+    }
+
+    @GetMapping("/{id}/subtasks")
+    @Operation(summary = "Get subtasks", description = "All tasks below this one, level by level, optionally limited to maxDepth levels")
+    public ResponseEntity<List<TaskTreeNodeDto>> getSubtasks(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer maxDepth,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<TaskTreeNodeDto> subtasks = taskHierarchyService.getSubtasks(id, maxDepth, page, size, userId, userRole);
+        return ResponseEntity.ok(subtasks);
+    }
+
+    @GetMapping("/{id}/ancestors")
+    @Operation(summary = "Get parent tasks", description = "The chain of parent tasks, top level task first")
+    public ResponseEntity<List<TaskTreeNodeDto>> getAncestors(
+            @PathVariable Long id,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<TaskTreeNodeDto> ancestors = taskHierarchyService.getAncestors(id, userId, userRole);
+        return ResponseEntity.ok(ancestors);
+    }
+
+    @GetMapping("/{id}/rollup")
+    @Operation(summary = "Get subtree status counts", description = "Status counts of the task and all of its subtasks")
+    public ResponseEntity<TaskRollupDto> getRollup(
+            @PathVariable Long id,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskRollupDto rollup = taskHierarchyService.getRollup(id, userId, userRole);
+        return ResponseEntity.ok(rollup);
+    }
+
+    @PostMapping("/{id}/comments")
+    @Operation(summary = "Add comment", description = "Append a comment to the task's activity feed")
+    public ResponseEntity<TaskActivityDto> addComment(
+            @PathVariable Long id,
+            @Valid @RequestBody CommentCreateDto commentCreateDto,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskActivityDto comment = taskActivityService.addComment(id, commentCreateDto, userId, userRole);
+        return ResponseEntity.ok(comment);
+    }
+
+    @GetMapping("/{id}/activity")
+    @Operation(summary = "Get activity feed", description = "Comments and changes, newest first. Pass nextCursor as before for the next page")
+    public ResponseEntity<TaskActivityPageDto> getActivity(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) ActivityType type,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskActivityPageDto activity = taskActivityService.getActivity(id, before, limit, type, userId, userRole);
+        return ResponseEntity.ok(activity);
+    }
+
+    @GetMapping("/{id}/labels")
+    @Operation(summary = "Get task labels", description = "Labels of the task, sorted")
+    public ResponseEntity<List<String>> getLabels(
+            @PathVariable Long id,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<String> labels = taskLabelService.getLabels(id, userId, userRole);
+        return ResponseEntity.ok(labels);
+    }
+
+    @PutMapping("/{id}/labels/{label}")
+    @Operation(summary = "Add label", description = "Add a label to the task, labels are stored lower case")
+    public ResponseEntity<List<String>> addLabel(
+            @PathVariable Long id,
+            @PathVariable String label,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<String> labels = taskLabelService.addLabel(id, label, userId, userRole);
+        return ResponseEntity.ok(labels);
+    }
+
+    @DeleteMapping("/{id}/labels/{label}")
+    @Operation(summary = "Remove label", description = "Remove a label from the task")
+    public ResponseEntity<List<String>> removeLabel(
+            @PathVariable Long id,
+            @PathVariable String label,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        List<String> labels = taskLabelService.removeLabel(id, label, userId, userRole);
+        return ResponseEntity.ok(labels);
+    }
+
+    @GetMapping("/project/{projectId}/search")
+    @Operation(summary = "Search tasks by labels", description = "Boolean filter over label:, status: and priority: terms with AND, OR, NOT and parentheses")
+    public ResponseEntity<TaskSearchResultDto> searchTasks(
+            @PathVariable Long projectId,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "100") int limit,
+            Authentication authentication) {
+
+        Long userId = getUserIdFromAuthentication(authentication);
+        Role userRole = getRoleFromAuthentication(authentication);
+        TaskSearchResultDto result = taskLabelService.search(projectId, q, limit, userId, userRole);
+        return ResponseEntity.ok(result);
+    }
+
+    // assign is either absent or "auto"
+    private boolean isAutoAssign(String assign) {
+        if (assign == null) {
+            return false;
+        }
+        if (!assign.equalsIgnoreCase("auto")) {
+            throw new BadRequestException("Unknown assign mode '" + assign + "', only 'auto' is supported");
+        }
+        return true;
+    }
+
+    // the task list endpoints: with fields only those columns of the tasks matching criteria are
+    // selected, otherwise the endpoint's own query loads the full tasks
+    private ResponseEntity<List<?>> listTasks(String fields, boolean includeArchived, String sort, int limit,
+                                              Consumer<TaskFilter> criteria, Function<Pageable, List<TaskDto>> fullTasks,
+                                              Long userId, Role userRole) {
+        Sort order = TaskField.parseSort(sort);
+        Set<TaskField> selected = TaskField.parse(fields, includeArchived);
+        if (selected != null) {
+            TaskFilter filter = new TaskFilter();
+            filter.setIncludeArchived(includeArchived);
+            filter.setSort(order);
+            filter.setLimit(limit);
+            criteria.accept(filter);
+            return ResponseEntity.ok(taskService.getTaskFields(filter, selected, userId, userRole));
+        }
+        return ResponseEntity.ok(fullTasks.apply(page(order, limit)));
+    }
+
+    // limit 0 returns every matching task
+    private Pageable page(Sort order, int limit) {
+        return limit > 0 ? PageRequest.of(0, limit, order) : Pageable.unpaged(order);
+    }
 
     private Long getUserIdFromAuthentication(Authentication authentication) {
         if (authentication == null || authentication.getName() == null) {
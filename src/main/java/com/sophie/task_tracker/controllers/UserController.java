@@ -1,13 +1,16 @@
 package com.sophie.task_tracker.controllers;
 
+import com.sophie.task_tracker.dto.TaskCountsDto;
 import com.sophie.task_tracker.dto.UserDto;
 import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.services.TaskService;
 import com.sophie.task_tracker.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -19,16 +22,45 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final TaskService taskService;
 
 
     @GetMapping
-    @Operation(summary = "Get all users", description = "Retrieve all users (ADMIN only)")
+    @Operation(summary = "Get all users", description = "Retrieve a page of users ordered by email (ADMIN only)")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        List<UserDto> users = userService.getAllUsers();
+    public ResponseEntity<List<UserDto>> getAllUsers(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        List<UserDto> users = userService.getAllUsers(page, size);
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Search users", description = "Users whose email starts with a prefix, case-insensitive, ordered by email, optionally one role only")
+    @PreAuthorize("hasAnyAuthority('MANAGER','ADMIN')")
+    public ResponseEntity<List<UserDto>> searchUsers(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) Role role,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        List<UserDto> users = userService.searchUsers(prefix, role, page, size);
+        return ResponseEntity.ok(users);
+    }
+
+    @GetMapping("/me/summary")
+    @Operation(summary = "Get my task summary", description = "Counts of my tasks by status and priority plus overdue count")
+    public ResponseEntity<TaskCountsDto> getMySummary(Authentication authentication) {
+        if (authentication == null || authentication.getName() == null) {
+            throw new RuntimeException("Unauthenticated request");
+        }
+        String email = authentication.getName();
+        Long userId = userService.findByEmail(email)
+                .map(u -> u.getId())
+                .orElseThrow(() -> new RuntimeException("User not found: " + email));
+        TaskCountsDto summary = taskService.getMyTaskCounts(userId);
+        return ResponseEntity.ok(summary);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get user by ID", description = "Retrieve a specific user by ID")
     @PreAuthorize("hasAuthority('ADMIN') or #id == authentication.principal.id")
@@ -38,10 +70,13 @@ public class UserController {
     }
 
     @GetMapping("/role/{role}")
-    @Operation(summary = "Get users by role", description = "Retrieve all users with a specific role (ADMIN only)")
+    @Operation(summary = "Get users by role", description = "Retrieve a page of users with a specific role, ordered by email (ADMIN only)")
     @PreAuthorize("hasAuthority('ADMIN')")
-    public ResponseEntity<List<UserDto>> getUsersByRole(@PathVariable Role role) {
-        List<UserDto> users = userService.getUsersByRole(role);
+    public ResponseEntity<List<UserDto>> getUsersByRole(
+            @PathVariable Role role,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        List<UserDto> users = userService.getUsersByRole(role, page, size);
         return ResponseEntity.ok(users);
     }
 
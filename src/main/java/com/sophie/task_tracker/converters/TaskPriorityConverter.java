@@ -0,0 +1,21 @@
+package com.sophie.task_tracker.converters;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// explicit codes instead of @Enumerated: STRING sorts alphabetically (HIGH < LOW < MEDIUM),
+// ORDINAL breaks as soon as someone reorders the enum
+@Converter
+public class TaskPriorityConverter implements AttributeConverter<TaskPriority, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(TaskPriority priority) {
+        return priority == null ? null : (short) priority.getCode();
+    }
+
+    @Override
+    public TaskPriority convertToEntityAttribute(Short code) {
+        return code == null ? null : TaskPriority.fromCode(code);
+    }
+}
@@ -0,0 +1,20 @@
+package com.sophie.task_tracker.converters;
+
+import com.sophie.task_tracker.enums.TaskStatus;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// same idea as TaskPriorityConverter
+@Converter
+public class TaskStatusConverter implements AttributeConverter<TaskStatus, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(TaskStatus status) {
+        return status == null ? null : (short) status.getCode();
+    }
+
+    @Override
+    public TaskStatus convertToEntityAttribute(Short code) {
+        return code == null ? null : TaskStatus.fromCode(code);
+    }
+}
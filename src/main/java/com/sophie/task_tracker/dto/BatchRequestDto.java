@@ -0,0 +1,21 @@
+package com.sophie.task_tracker.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// one call inside POST /api/batch, e.g. {"method": "GET", "url": "/api/tasks/assigned/3?fields=summary"}
+@Data
+public class BatchRequestDto {
+    private String method = "GET";
+
+    @NotBlank(message = "Sub-request url is required")
+    private String url;
+
+    private Map<String, String> headers = new HashMap<>();  // e.g. If-Match
+
+    private JsonNode body;
+}
@@ -0,0 +1,18 @@
+package com.sophie.task_tracker.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// result of one sub-request, same position as in the request list
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponseDto {
+    private int status;
+    private Map<String, String> headers;  // only ETag and Location are passed on
+    private JsonNode body;
+}
@@ -0,0 +1,15 @@
+package com.sophie.task_tracker.dto;
+
+import com.sophie.task_tracker.enums.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BoardColumnDto {
+    private TaskStatus status;
+    private int count;              // all tasks in the column, even if the list is limited
+    private List<BoardTaskDto> tasks;
+}
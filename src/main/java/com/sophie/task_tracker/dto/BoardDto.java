@@ -0,0 +1,15 @@
+package com.sophie.task_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BoardDto {
+    private Long projectId;
+    private List<BoardColumnDto> columns;   // one per TaskStatus, in enum order
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,22 @@
+package com.sophie.task_tracker.dto;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// card on the board, no description or audit columns
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoardTaskDto {
+    private Long id;
+    private String title;
+    private TaskStatus status;
+    private TaskPriority priority;
+    private LocalDate dueDate;
+    private Long assignedUserId;
+}
@@ -0,0 +1,12 @@
+package com.sophie.task_tracker.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class CommentCreateDto {
+    @NotBlank(message = "Comment body is required")
+    @Size(max = 10000, message = "Comment is too long")
+    private String body;
+}
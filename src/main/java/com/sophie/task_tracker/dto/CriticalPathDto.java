@@ -0,0 +1,17 @@
+package com.sophie.task_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// longest chain of unfinished dependent tasks, first task first
+@Data
+@AllArgsConstructor
+public class CriticalPathDto {
+    private Long projectId;
+    private List<BoardTaskDto> tasks;
+    private LocalDate deadline;     // when the first task has to be done for every due date on the path to hold
+    private boolean overdue;
+}
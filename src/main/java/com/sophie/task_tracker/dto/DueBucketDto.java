@@ -0,0 +1,16 @@
+package com.sophie.task_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// tasks due in one day or week of the calendar, start is the first day of the bucket
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DueBucketDto {
+    private LocalDate start;
+    private long count;
+}
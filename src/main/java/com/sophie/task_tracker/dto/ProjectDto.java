@@ -13,4 +13,5 @@ public class ProjectDto {
     private String ownerEmail;
     private LocalDateTime createDate;
     private LocalDateTime updateDate;
+    private Long version;
 }
@@ -0,0 +1,13 @@
+package com.sophie.task_tracker.dto;
+
+import com.sophie.task_tracker.enums.ProjectMemberRole;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProjectMemberDto {
+    private Long userId;
+    private String email;
+    private ProjectMemberRole role;
+}
@@ -0,0 +1,47 @@
+package com.sophie.task_tracker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// row of the project list: the project, its owner and task counts, built by one grouped query.
+// Archived tasks are all DONE, they count as done for the completion ratio
+@Data
+@NoArgsConstructor
+public class ProjectOverviewDto {
+    private Long id;
+    private String name;
+    private String description;
+    private Long ownerId;
+    private String ownerEmail;
+    private LocalDateTime createDate;
+    private LocalDateTime updateDate;
+    private Long version;
+    private long todo;
+    private long inProgress;
+    private long done;
+    private long archived;
+    private long total;
+    private double completionRatio;  // 0..1, 0 for a project without tasks
+
+    // counts are null for projects without (archived) tasks, they come from outer joins
+    public ProjectOverviewDto(Long id, String name, String description, Long ownerId, String ownerEmail,
+                              LocalDateTime createDate, LocalDateTime updateDate, Long version,
+                              Long todo, Long inProgress, Long done, Long archived) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.ownerId = ownerId;
+        this.ownerEmail = ownerEmail;
+        this.createDate = createDate;
+        this.updateDate = updateDate;
+        this.version = version;
+        this.todo = todo != null ? todo : 0;
+        this.inProgress = inProgress != null ? inProgress : 0;
+        this.done = done != null ? done : 0;
+        this.archived = archived != null ? archived : 0;
+        this.total = this.todo + this.inProgress + this.done + this.archived;
+        this.completionRatio = total == 0 ? 0 : (double) (this.done + this.archived) / total;
+    }
+}
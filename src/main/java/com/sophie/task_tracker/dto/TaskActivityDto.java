@@ -0,0 +1,20 @@
+package com.sophie.task_tracker.dto;
+
+import com.sophie.task_tracker.enums.ActivityType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskActivityDto {
+    private Long id;
+    private ActivityType type;
+    private String body;
+    private Long authorId;
+    private String authorEmail;
+    private LocalDateTime createdAt;
+}
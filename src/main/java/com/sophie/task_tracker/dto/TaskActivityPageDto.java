@@ -0,0 +1,14 @@
+package com.sophie.task_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// newest first. Pass nextCursor as ?before= for the next page, null when there is none
+@Data
+@AllArgsConstructor
+public class TaskActivityPageDto {
+    private List<TaskActivityDto> entries;
+    private Long nextCursor;
+}
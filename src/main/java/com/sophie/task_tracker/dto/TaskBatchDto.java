@@ -0,0 +1,14 @@
+package com.sophie.task_tracker.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// result of a multi-get, missing or hidden ids are reported instead of failing the batch
+@Data
+public class TaskBatchDto {
+    private List<TaskDto> tasks = new ArrayList<>();
+    private List<Long> notFound = new ArrayList<>();
+    private List<Long> forbidden = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package com.sophie.task_tracker.dto;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// which tasks a bulk update applies to, null fields are ignored
+@Data
+public class TaskBulkFilterDto {
+    private Long projectId;
+    private Long assignedUserId;
+    private TaskStatus status;
+    private TaskPriority priority;
+    private LocalDate dueBefore;
+}
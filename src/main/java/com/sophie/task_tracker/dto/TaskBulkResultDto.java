@@ -0,0 +1,12 @@
+package com.sophie.task_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TaskBulkResultDto {
+    private int matched;    // tasks selected by the ids/filter that this user can see
+    private int updated;    // tasks actually changed
+    private int skipped;    // matched but not writable for this user
+}
@@ -0,0 +1,21 @@
+package com.sophie.task_tracker.dto;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class TaskBulkUpdateDto {
+    // which tasks, either explicit ids or a filter (or both)
+    private List<Long> ids;
+    private TaskBulkFilterDto filter;
+
+    // what to change, null fields are left as they are
+    private TaskStatus status;
+    private TaskPriority priority;
+    private Long assignedUserId;
+    private LocalDate dueDate;
+}
@@ -0,0 +1,17 @@
+package com.sophie.task_tracker.dto;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// dashboard numbers for a user or project, served from in-memory counters
+@Data
+public class TaskCountsDto {
+    private Map<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+    private Map<TaskPriority, Long> openByPriority = new EnumMap<>(TaskPriority.class);  // open = not DONE
+    private long open;
+    private long overdue;
+}
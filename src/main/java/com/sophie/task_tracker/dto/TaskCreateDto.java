@@ -23,4 +23,6 @@ public class TaskCreateDto {
     private TaskPriority priority = TaskPriority.MEDIUM;
     
     private Long assignedUserId;
+
+    private Long parentId;
 }
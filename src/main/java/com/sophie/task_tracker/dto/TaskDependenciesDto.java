@@ -0,0 +1,14 @@
+package com.sophie.task_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TaskDependenciesDto {
+    private Long taskId;
+    private List<Long> blockedBy;   // tasks that have to be done first
+    private List<Long> blocks;      // tasks waiting for this one
+}
@@ -19,6 +19,9 @@ public class TaskDto {
     private String projectName;
     private Long assignedUserId;
     private String assignedUserEmail;
+    private Long parentId;
+    private long commentCount;
     private LocalDateTime createDate;
     private LocalDateTime updateDate;
+    private Long version;
 }
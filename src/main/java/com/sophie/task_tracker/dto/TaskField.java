@@ -0,0 +1,174 @@
+package com.sophie.task_tracker.dto;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.exception.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+// fields a client can ask for with ?fields=... on the task list endpoints
+public enum TaskField {
+    ID("id", "t.id"),
+    TITLE("title", "t.title"),
+    DESCRIPTION("description", "t.description"),
+    STATUS("status", "t.status"),
+    DUE_DATE("dueDate", "t.dueDate"),
+    PRIORITY("priority", "t.priority"),
+    PROJECT_ID("projectId", "t.project.id"),
+    PROJECT_NAME("projectName", "p.name"),
+    ASSIGNED_USER_ID("assignedUserId", "u.id"),
+    ASSIGNED_USER_EMAIL("assignedUserEmail", "u.email"),
+    CREATE_DATE("createDate", "t.createDate"),
+    UPDATE_DATE("updateDate", "t.updateDate"),
+    VERSION("version", "t.version");
+
+    public static final String SUMMARY = "summary";
+
+    // built-in view for board/list screens, never touches the description column
+    private static final Set<TaskField> SUMMARY_FIELDS =
+            Collections.unmodifiableSet(EnumSet.of(ID, TITLE, STATUS, PRIORITY, DUE_DATE));
+
+    // columns with a natural order, jsonName is also the entity attribute name for these
+    private static final Set<TaskField> SORTABLE =
+            Collections.unmodifiableSet(EnumSet.of(ID, TITLE, STATUS, DUE_DATE, PRIORITY, CREATE_DATE, UPDATE_DATE));
+
+    private final String jsonName;
+    private final String path;  // jpql path, "p" = project join, "u" = assigned user join
+
+    TaskField(String jsonName, String path) {
+        this.jsonName = jsonName;
+        this.path = path;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public boolean needsProjectJoin() {
+        return path.startsWith("p.");
+    }
+
+    public boolean needsUserJoin() {
+        return path.startsWith("u.");
+    }
+
+    public static TaskField fromJsonName(String name) {
+        for (TaskField field : values()) {
+            if (field.jsonName.equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        throw new BadRequestException("Unknown task field: " + name);
+    }
+
+    // archived tasks are only served through the projected path, so they default to every field
+    public static Set<TaskField> parse(String fields, boolean includeArchived) {
+        Set<TaskField> result = parse(fields);
+        if (result == null && includeArchived) {
+            return EnumSet.allOf(TaskField.class);
+        }
+        return result;
+    }
+
+    // parses "summary" or a comma separated list like "id,title,status"
+    // returns null when no fields were requested so callers keep the full dto
+    public static Set<TaskField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<TaskField> result = EnumSet.of(ID);  // id is always returned
+        for (String part : fields.split(",")) {
+            String name = part.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (SUMMARY.equalsIgnoreCase(name)) {
+                result.addAll(SUMMARY_FIELDS);
+            } else {
+                result.add(fromJsonName(name));
+            }
+        }
+        return result;
+    }
+
+    // parses "priority,-dueDate,createDate", a leading '-' sorts descending.
+    // status and priority sort by their codes, i.e. workflow order and urgency
+    public static Sort parseSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.unsorted();
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String part : sort.split(",")) {
+            String name = part.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            boolean descending = name.startsWith("-");
+            TaskField field = fromJsonName(descending ? name.substring(1) : name);
+            if (!SORTABLE.contains(field)) {
+                throw new BadRequestException("Cannot sort tasks by " + field.jsonName);
+            }
+            orders.add(descending ? Sort.Order.desc(field.jsonName) : Sort.Order.asc(field.jsonName));
+        }
+        return Sort.by(orders);
+    }
+
+    // the order parseSort asks the database for, on rows already in memory (pages merged from
+    // several shards). Nulls first when ascending like H2, ties broken by id
+    public static <T> Comparator<T> comparator(Sort sort, BiFunction<T, TaskField, Object> value) {
+        Comparator<T> result = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            TaskField field = fromJsonName(order.getProperty());
+            Comparator<T> byField = (a, b) -> compareValues(value.apply(a, field), value.apply(b, field));
+            result = result.thenComparing(order.isAscending() ? byField : byField.reversed());
+        }
+        return result.thenComparing((a, b) -> compareValues(value.apply(a, ID), value.apply(b, ID)));
+    }
+
+    public Object get(TaskDto task) {
+        return switch (this) {
+            case ID -> task.getId();
+            case TITLE -> task.getTitle();
+            case DESCRIPTION -> task.getDescription();
+            case STATUS -> task.getStatus();
+            case DUE_DATE -> task.getDueDate();
+            case PRIORITY -> task.getPriority();
+            case PROJECT_ID -> task.getProjectId();
+            case PROJECT_NAME -> task.getProjectName();
+            case ASSIGNED_USER_ID -> task.getAssignedUserId();
+            case ASSIGNED_USER_EMAIL -> task.getAssignedUserEmail();
+            case CREATE_DATE -> task.getCreateDate();
+            case UPDATE_DATE -> task.getUpdateDate();
+            case VERSION -> task.getVersion();
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : a == null ? -1 : 1;
+        }
+        return ((Comparable) sortKey(a)).compareTo(sortKey(b));
+    }
+
+    private static Object sortKey(Object value) {
+        if (value instanceof TaskStatus status) {
+            return status.getCode();
+        }
+        if (value instanceof TaskPriority priority) {
+            return priority.getCode();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,17 @@
+package com.sophie.task_tracker.dto;
+
+import com.sophie.task_tracker.enums.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+// status counts of a task and all of its subtasks
+@Data
+@AllArgsConstructor
+public class TaskRollupDto {
+    private Long taskId;
+    private long total;
+    private Map<TaskStatus, Long> byStatus;
+    private int depth;      // levels below the task
+}
@@ -0,0 +1,13 @@
+package com.sophie.task_tracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TaskSearchResultDto {
+    private int total;                  // all matching tasks, tasks holds at most limit of them
+    private List<BoardTaskDto> tasks;
+}
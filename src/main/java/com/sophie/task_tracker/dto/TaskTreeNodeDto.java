@@ -0,0 +1,24 @@
+package com.sophie.task_tracker.dto;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// task in a subtree or ancestor list, depth is the distance to the task that was asked for
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskTreeNodeDto {
+    private Long id;
+    private String title;
+    private TaskStatus status;
+    private TaskPriority priority;
+    private LocalDate dueDate;
+    private Long assignedUserId;
+    private Long parentId;
+    private int depth;
+}
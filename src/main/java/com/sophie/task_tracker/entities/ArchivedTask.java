@@ -0,0 +1,68 @@
+package com.sophie.task_tracker.entities;
+
+import com.sophie.task_tracker.converters.TaskPriorityConverter;
+import com.sophie.task_tracker.converters.TaskStatusConverter;
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// cold copy of a long finished task, keeps the original id and columns of Task.
+// rows are only written by TaskArchiveService and never updated
+@Data
+@Entity
+@Table(name = "tasks_archive", indexes = {
+        @Index(name = "idx_tasks_archive_project", columnList = "project_id"),
+        @Index(name = "idx_tasks_archive_assigned_user", columnList = "assigned_user_id")
+})
+public class ArchivedTask {
+
+    @Id
+    private Long id;
+
+    @Column(name = "create_date", nullable = false)
+    private LocalDateTime createDate;
+
+    @Column(name = "update_date")
+    private LocalDateTime updateDate;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Convert(converter = TaskStatusConverter.class)
+    @Column(nullable = false)
+    private TaskStatus status;
+
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Convert(converter = TaskPriorityConverter.class)
+    @Column(nullable = false)
+    private TaskPriority priority;
+
+    // archived rows go with their project or assignee in the database, like the live tasks do
+    // through the entity cascade, without being loaded first
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Project project;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "assigned_user_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User assignedUser;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -25,6 +25,11 @@ public abstract class BaseEntity {
     @Column(name = "update_date")
     private LocalDateTime updateDate;
 
+    // optimistic locking, bumped on every update and sent to clients as the ETag
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createDate = LocalDateTime.now();
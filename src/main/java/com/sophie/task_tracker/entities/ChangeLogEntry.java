@@ -0,0 +1,30 @@
+package com.sophie.task_tracker.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// row of the change table other nodes tail, written and read with plain jdbc by JdbcChangeTransport.
+// mapped here only so the schema is created with the rest
+@Data
+@Entity
+@Table(name = "change_log", indexes = @Index(name = "idx_change_log_created_at", columnList = "created_at"))
+public class ChangeLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String node;
+
+    @Column(nullable = false, length = 32)
+    private String type;
+
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
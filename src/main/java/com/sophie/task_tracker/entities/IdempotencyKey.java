@@ -0,0 +1,32 @@
+package com.sophie.task_tracker.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// stored response for an Idempotency-Key, written and read with plain jdbc by JdbcIdempotencyBackend.
+// mapped here only so the schema is created with the rest
+@Data
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+public class IdempotencyKey {
+
+    // scope (endpoint and user) + the client's key
+    @Id
+    @Column(name = "id_key", length = 400)
+    private String idKey;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    // 0 while the first request still runs
+    @Column(nullable = false)
+    private int status;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
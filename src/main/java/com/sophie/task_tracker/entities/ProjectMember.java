@@ -0,0 +1,35 @@
+package com.sophie.task_tracker.entities;
+
+import com.sophie.task_tracker.enums.ProjectMemberRole;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// a user with access to someone else's project. The owner is not a member, ownership stays on
+// the project. Access checks read ProjectAccessCache, this table only when a user's set is built
+@Data
+@Entity
+@Table(name = "project_members",
+        uniqueConstraints = @UniqueConstraint(name = "uk_project_members_project_user", columnNames = {"project_id", "user_id"}),
+        indexes = @Index(name = "idx_project_members_user", columnList = "user_id"))
+public class ProjectMember {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Project project;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ProjectMemberRole role;
+}
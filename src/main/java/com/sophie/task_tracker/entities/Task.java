@@ -1,17 +1,33 @@
 package com.sophie.task_tracker.entities;
 
+import com.sophie.task_tracker.converters.TaskPriorityConverter;
+import com.sophie.task_tracker.converters.TaskStatusConverter;
 import com.sophie.task_tracker.enums.TaskPriority;
 import com.sophie.task_tracker.enums.TaskStatus;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.time.LocalDate;
 
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+        // the archive job scans for DONE tasks by last update
+        @Index(name = "idx_tasks_status_update_date", columnList = "status, update_date"),
+        @Index(name = "idx_tasks_parent", columnList = "parent_id"),
+        // top-N of the sorted list endpoints read these in order instead of sorting
+        @Index(name = "idx_tasks_project_priority_due", columnList = "project_id, priority, due_date"),
+        @Index(name = "idx_tasks_assignee_priority_due", columnList = "assigned_user_id, priority, due_date"),
+        @Index(name = "idx_tasks_status_priority_due", columnList = "status, priority, due_date"),
+        // calendar and due date histogram range scans
+        @Index(name = "idx_tasks_project_due", columnList = "project_id, due_date"),
+        @Index(name = "idx_tasks_assignee_due", columnList = "assigned_user_id, due_date")
+})
 public class Task extends BaseEntity {
 
     @Column(nullable = false)
@@ -20,14 +36,14 @@ public class Task extends BaseEntity {
     @Column(columnDefinition = "TEXT")
     private String description;
 
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = TaskStatusConverter.class)
     @Column(nullable = false)
     private TaskStatus status = TaskStatus.TODO;
 
     @Column(name = "due_date")
     private LocalDate dueDate;
 
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = TaskPriorityConverter.class)
     @Column(nullable = false)
     private TaskPriority priority = TaskPriority.MEDIUM;
 
@@ -38,4 +54,15 @@ public class Task extends BaseEntity {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "assigned_user_id")
     private User assignedUser;
+
+    // null for top level tasks. The whole hierarchy is in task_closure, this is only the direct link
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parent_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private Task parent;
+
+    // kept by TaskActivityService with an in-place increment, never written from the entity
+    @ColumnDefault("0")
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false)
+    private long commentCount;
 }
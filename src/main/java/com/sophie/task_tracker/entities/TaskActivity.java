@@ -0,0 +1,47 @@
+package com.sophie.task_tracker.entities;
+
+import com.sophie.task_tracker.enums.ActivityType;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+// one entry of a task's discussion/activity feed. Rows are only ever inserted; the id grows with
+// every insert, so (task_id, id) is both the per-task order and the pagination cursor.
+// task_id has no foreign key so the feed survives archiving, deletes clean it up explicitly
+@Data
+@Entity
+@Table(name = "task_activity", indexes = {
+        @Index(name = "idx_task_activity_task", columnList = "task_id, id"),
+        @Index(name = "idx_task_activity_project", columnList = "project_id")
+})
+public class TaskActivity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private ActivityType type;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    // null for entries written by the system, or when the author was deleted
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "author_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private User author;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
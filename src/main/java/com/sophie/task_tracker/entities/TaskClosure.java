@@ -0,0 +1,33 @@
+package com.sophie.task_tracker.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// closure table of the task hierarchy: one row for every (ancestor, descendant) pair, including
+// (task, task) at depth 0. Subtree and ancestor queries are a single lookup on the primary key or
+// the descendant index, whatever the depth. Written with set-based sql by TaskClosureRepository
+@Data
+@Entity
+@Table(name = "task_closure", indexes = @Index(name = "idx_task_closure_descendant", columnList = "descendant_id, depth"))
+public class TaskClosure {
+
+    @EmbeddedId
+    private TaskClosureId id;
+
+    @MapsId("ancestorId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ancestor_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Task ancestor;
+
+    @MapsId("descendantId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "descendant_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Task descendant;
+
+    @Column(nullable = false)
+    private int depth;
+}
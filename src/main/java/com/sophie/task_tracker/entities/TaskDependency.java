@@ -0,0 +1,37 @@
+package com.sophie.task_tracker.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// "blocker blocks blocked", both tasks in the same project.
+// rows go away in the database with either task, also for bulk deletes and archiving
+@Data
+@Entity
+@Table(name = "task_dependencies",
+        uniqueConstraints = @UniqueConstraint(name = "uk_task_dependencies_pair", columnNames = {"blocker_id", "blocked_id"}),
+        indexes = {
+                @Index(name = "idx_task_dependencies_project", columnList = "project_id"),
+                @Index(name = "idx_task_dependencies_blocked", columnList = "blocked_id")
+        })
+public class TaskDependency {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blocker_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Task blocker;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blocked_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Task blocked;
+
+    // copied from the tasks so a project's graph loads with one indexed scan
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+}
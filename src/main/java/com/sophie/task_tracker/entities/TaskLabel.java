@@ -0,0 +1,31 @@
+package com.sophie.task_tracker.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// free-form label on a task, stored normalized (lower case). Queries are served from LabelIndexCache
+@Data
+@Entity
+@Table(name = "task_labels",
+        uniqueConstraints = @UniqueConstraint(name = "uk_task_labels_task_name", columnNames = {"task_id", "name"}),
+        indexes = @Index(name = "idx_task_labels_project", columnList = "project_id"))
+public class TaskLabel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "task_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Task task;
+
+    // copied from the task so a project's labels load with one indexed scan
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(nullable = false, length = 50)
+    private String name;
+}
@@ -0,0 +1,8 @@
+package com.sophie.task_tracker.enums;
+
+public enum ActivityType {
+    COMMENT,
+    CREATED,
+    STATUS_CHANGED,
+    ASSIGNED
+}
@@ -0,0 +1,7 @@
+package com.sophie.task_tracker.enums;
+
+// bucket size of the due date histogram, weeks start on Monday
+public enum CalendarBucket {
+    DAY,
+    WEEK
+}
@@ -0,0 +1,7 @@
+package com.sophie.task_tracker.enums;
+
+// what a member other than the owner may do in a project
+public enum ProjectMemberRole {
+    VIEWER,     // read the project and its tasks, comment
+    EDITOR      // also create, change and delete tasks
+}
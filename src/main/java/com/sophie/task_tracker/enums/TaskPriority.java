@@ -1,7 +1,28 @@
 package com.sophie.task_tracker.enums;
 
+// stored as code (see TaskPriorityConverter), so sorting by the column sorts by urgency.
+// codes are persisted, never renumber them
 public enum TaskPriority {
-    LOW,
-    MEDIUM,
-    HIGH
+    LOW(1),
+    MEDIUM(2),
+    HIGH(3);
+
+    private final int code;
+
+    TaskPriority(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static TaskPriority fromCode(int code) {
+        for (TaskPriority priority : values()) {
+            if (priority.code == code) {
+                return priority;
+            }
+        }
+        throw new IllegalArgumentException("Unknown task priority code: " + code);
+    }
 }
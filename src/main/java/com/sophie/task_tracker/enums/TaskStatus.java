@@ -1,7 +1,28 @@
 package com.sophie.task_tracker.enums;
 
+// stored as code (see TaskStatusConverter), so sorting by the column follows the workflow.
+// codes are persisted, never renumber them
 public enum TaskStatus {
-    TODO,
-    IN_PROGRESS,
-    DONE
+    TODO(1),
+    IN_PROGRESS(2),
+    DONE(3);
+
+    private final int code;
+
+    TaskStatus(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static TaskStatus fromCode(int code) {
+        for (TaskStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown task status code: " + code);
+    }
 }
@@ -0,0 +1,16 @@
+package com.sophie.task_tracker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// published by UserService and ProjectService writes, for caches keyed by users or projects
+@Getter
+@AllArgsConstructor
+public class EntityChangedEvent {
+
+    public enum Type { USER, PROJECT }
+
+    private final Type type;
+    private final Long id;
+    private final boolean deleted;
+}
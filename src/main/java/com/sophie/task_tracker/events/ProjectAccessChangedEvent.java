@@ -0,0 +1,13 @@
+package com.sophie.task_tracker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// the set of projects a user can see or edit changed: a project was created or deleted, or a
+// membership was added, changed or removed
+@Getter
+@AllArgsConstructor
+public class ProjectAccessChangedEvent {
+    private final Long projectId;
+    private final Long userId;
+}
@@ -0,0 +1,18 @@
+package com.sophie.task_tracker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// published by TaskService for every created, updated or deleted task.
+// before is null for a new task, after is null for a deleted one
+@Getter
+@AllArgsConstructor
+public class TaskChangedEvent {
+    private final Long taskId;
+    private final TaskState before;
+    private final TaskState after;
+
+    public Long getProjectId() {
+        return after != null ? after.getProjectId() : before.getProjectId();
+    }
+}
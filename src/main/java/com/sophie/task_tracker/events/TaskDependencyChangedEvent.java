@@ -0,0 +1,11 @@
+package com.sophie.task_tracker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// a dependency between two tasks of the project was added or removed
+@Getter
+@AllArgsConstructor
+public class TaskDependencyChangedEvent {
+    private final Long projectId;
+}
@@ -0,0 +1,14 @@
+package com.sophie.task_tracker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// a label was added to or removed from a task
+@Getter
+@AllArgsConstructor
+public class TaskLabelsChangedEvent {
+    private final Long projectId;
+    private final Long taskId;
+    private final String label;
+    private final boolean added;
+}
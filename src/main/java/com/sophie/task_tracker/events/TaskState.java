@@ -0,0 +1,44 @@
+package com.sophie.task_tracker.events;
+
+import com.sophie.task_tracker.entities.Task;
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.repositories.TaskAccessRow;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+// the fields of a task that counters and caches depend on, captured before and after a change
+@Getter
+@AllArgsConstructor
+public class TaskState {
+    private final Long projectId;
+    private final Long assignedUserId;
+    private final TaskStatus status;
+    private final TaskPriority priority;
+    private final LocalDate dueDate;
+
+    public static TaskState of(Task task) {
+        return new TaskState(
+                task.getProject().getId(),
+                task.getAssignedUser() != null ? task.getAssignedUser().getId() : null,
+                task.getStatus(),
+                task.getPriority(),
+                task.getDueDate());
+    }
+
+    public static TaskState of(TaskAccessRow row) {
+        return new TaskState(row.getProjectId(), row.getAssignedUserId(), row.getStatus(), row.getPriority(), row.getDueDate());
+    }
+
+    // state after a bulk change, null fields keep their old value
+    public TaskState with(Long newAssignedUserId, TaskStatus newStatus, TaskPriority newPriority, LocalDate newDueDate) {
+        return new TaskState(
+                projectId,
+                newAssignedUserId != null ? newAssignedUserId : assignedUserId,
+                newStatus != null ? newStatus : status,
+                newPriority != null ? newPriority : priority,
+                newDueDate != null ? newDueDate : dueDate);
+    }
+}
@@ -0,0 +1,12 @@
+package com.sophie.task_tracker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// tasks were removed in bulk by a cascade (project or user delete) without per-task events.
+// projectId is null when the affected projects are not known
+@Getter
+@AllArgsConstructor
+public class TasksRemovedEvent {
+    private final Long projectId;
+}
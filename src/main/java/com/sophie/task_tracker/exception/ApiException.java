@@ -0,0 +1,20 @@
+package com.sophie.task_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+
+// base of the errors that map to a fixed status. The client errors (bad input, not found,
+// forbidden, conflict) are thrown a lot by scanners and broken clients and always end in
+// GlobalExceptionHandler, so they don't capture a stack trace; the throw site is obvious from the
+// message anyway. Server errors keep theirs and their cause, they get logged
+public abstract class ApiException extends RuntimeException {
+
+    protected ApiException(String message) {
+        super(message, null, false, false);
+    }
+
+    protected ApiException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public abstract HttpStatus getStatus();
+}
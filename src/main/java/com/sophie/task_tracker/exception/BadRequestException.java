@@ -0,0 +1,16 @@
+package com.sophie.task_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 400, input the request carried that can't be used (a malformed query, an invalid name)
+public class BadRequestException extends ApiException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.BAD_REQUEST;
+    }
+}
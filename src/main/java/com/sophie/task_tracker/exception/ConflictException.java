@@ -0,0 +1,16 @@
+package com.sophie.task_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 409, the request clashes with existing data (duplicate name or email, key already in use)
+public class ConflictException extends ApiException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.CONFLICT;
+    }
+}
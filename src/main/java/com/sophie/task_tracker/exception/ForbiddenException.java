@@ -0,0 +1,21 @@
+package com.sophie.task_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 403. Without a stack trace, cause or suppressed exceptions there is no state to share, so the
+// common denials are single instances thrown over and over
+public class ForbiddenException extends ApiException {
+
+    public static final ForbiddenException TASK = new ForbiddenException("Access denied to task");
+    public static final ForbiddenException PROJECT = new ForbiddenException("Access denied to project");
+    public static final ForbiddenException OTHER_USERS_TASKS = new ForbiddenException("Access denied to view other user's tasks");
+
+    public ForbiddenException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.FORBIDDEN;
+    }
+}
@@ -0,0 +1,16 @@
+package com.sophie.task_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 500, our side failed (data we stored can't be read back, a response can't be serialized)
+public class InternalServerErrorException extends ApiException {
+
+    public InternalServerErrorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
@@ -0,0 +1,26 @@
+package com.sophie.task_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 404, the message is only built if someone reads it
+public class NotFoundException extends ApiException {
+
+    private final String entity;
+    private final Object id;
+
+    public NotFoundException(String entity, Object id) {
+        super(null);
+        this.entity = entity;
+        this.id = id;
+    }
+
+    @Override
+    public String getMessage() {
+        return entity + " not found with id: " + id;
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.NOT_FOUND;
+    }
+}
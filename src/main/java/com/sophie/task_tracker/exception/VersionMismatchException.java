@@ -0,0 +1,23 @@
+package com.sophie.task_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+
+// thrown when the If-Match version sent by the client is not the current one (412)
+public class VersionMismatchException extends ApiException {
+
+    private final Long currentVersion;
+
+    public VersionMismatchException(String entity, Long id, Long expectedVersion, Long currentVersion) {
+        super(entity + " " + id + " was modified, expected version " + expectedVersion + " but is " + currentVersion);
+        this.currentVersion = currentVersion;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.PRECONDITION_FAILED;
+    }
+}
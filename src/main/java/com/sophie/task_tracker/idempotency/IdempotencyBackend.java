@@ -0,0 +1,21 @@
+package com.sophie.task_tracker.idempotency;
+
+import java.time.LocalDateTime;
+
+// durable copy of stored responses so keys survive a restart and are shared between instances, the
+// in-memory store stays in front of it
+public interface IdempotencyBackend {
+
+    // the response for the key newer than notBefore, a pending one while its request still runs; null if there is none
+    StoredResponse find(String key, LocalDateTime notBefore);
+
+    // takes the key by storing a pending response, false if another request holds it. A response older than
+    // notBefore is expired and a pending one older than abandonedBefore lost its instance, both are taken over
+    boolean claim(String key, String fingerprint, LocalDateTime now, LocalDateTime notBefore, LocalDateTime abandonedBefore);
+
+    // fills in the claimed key
+    void save(String key, StoredResponse response);
+
+    // gives the claim back after the request failed, so the key can be retried
+    void release(String key);
+}
@@ -0,0 +1,251 @@
+package com.sophie.task_tracker.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sophie.task_tracker.exception.BadRequestException;
+import com.sophie.task_tracker.exception.ConflictException;
+import com.sophie.task_tracker.exception.InternalServerErrorException;
+import com.sophie.task_tracker.exception.ServiceUnavailableException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Idempotency-Key handling for create endpoints. The first request with a key runs, its response
+// is kept for the ttl and retries get it back; a retry that arrives while the first one is still
+// running waits for it. Keys are spread over lock stripes so unrelated keys never wait on each
+// other, and every stripe is bounded, dropping its oldest keys first. Failed requests aren't
+// kept, so they can be retried with the same key. With a backend the key is claimed there before
+// the request runs, so a retry that lands on another instance waits for it the same way
+@Component
+@RequiredArgsConstructor
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int STRIPES = 64;
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_MS = 50;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<IdempotencyBackend> backendProvider;
+
+    @Value("${app.idempotency.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${app.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${app.idempotency.wait-ms:30000}")
+    private long waitMs;
+
+    @Value("${app.idempotency.claim-timeout-ms:300000}")
+    private long claimTimeoutMs;
+
+    private final Stripe[] stripes = stripes();
+
+    // one lock per stripe, entries in insertion order so the oldest are at the front
+    private static final class Stripe {
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    }
+
+    private static final class Entry {
+        private final LocalDateTime createdAt;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        private Entry(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+
+    // scope keeps keys of different endpoints and users apart; request is what the fingerprint is
+    // computed from. Without a key the action just runs
+    public <T> ResponseEntity<T> execute(String key, String scope, Object request, Class<T> type, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " is too long, maximum is " + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = scope + "|" + key;
+        String fingerprint = fingerprint(request);
+        LocalDateTime now = LocalDateTime.now();
+        Stripe stripe = stripes[Math.floorMod(storeKey.hashCode(), STRIPES)];
+
+        Entry entry;
+        boolean first = false;
+        synchronized (stripe) {
+            entry = stripe.entries.get(storeKey);
+            if (entry == null || isExpired(entry, now)) {
+                stripe.entries.remove(storeKey);
+                entry = new Entry(now);
+                stripe.entries.put(storeKey, entry);
+                evictOldest(stripe);
+                first = true;
+            }
+        }
+        if (!first) {
+            return replay(await(entry), fingerprint, type);
+        }
+
+        IdempotencyBackend backend = backendProvider.getIfAvailable();
+        ResponseEntity<T> response = null;
+        StoredResponse stored = null;
+        boolean claimed = false;
+        try {
+            stored = backend != null ? claimOrWait(backend, storeKey, fingerprint) : null;
+            claimed = backend != null && stored == null;
+            if (stored == null) {
+                response = action.get();
+                stored = new StoredResponse(fingerprint, response.getStatusCode().value(), toJson(response.getBody()), now);
+                if (backend != null) {
+                    backend.save(storeKey, stored);
+                }
+            }
+        } catch (RuntimeException e) {
+            if (claimed && response == null) {
+                backend.release(storeKey);
+            }
+            synchronized (stripe) {
+                stripe.entries.remove(storeKey, entry);
+            }
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+        entry.response.complete(stored);
+        // no response means it was answered before a restart or by another instance
+        return response != null ? response : replay(stored, fingerprint, type);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:600000}")
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                // insertion order is age order, stop at the first live entry
+                Iterator<Entry> it = stripe.entries.values().iterator();
+                while (it.hasNext() && isExpired(it.next(), now)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    // null once this instance holds the key; otherwise the response of the instance that ran it,
+    // waiting for it like local retries wait for the first request
+    private StoredResponse claimOrWait(IdempotencyBackend backend, String storeKey, String fingerprint) {
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime notBefore = now.minusMinutes(ttlMinutes);
+            if (backend.claim(storeKey, fingerprint, now, notBefore, now.minus(claimTimeoutMs, ChronoUnit.MILLIS))) {
+                return null;
+            }
+            // gone again if the other request failed in between, then the next claim gets it
+            StoredResponse stored = backend.find(storeKey, notBefore);
+            if (stored != null && !stored.isPending()) {
+                return stored;
+            }
+            if (stored != null && !stored.getFingerprint().equals(fingerprint)) {
+                throw new ConflictException(HEADER + " was already used for a different request");
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new ConflictException("A request with this " + HEADER + " is still being processed, retry later");
+            }
+            try {
+                Thread.sleep(POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceUnavailableException("Interrupted while waiting for the first request with this " + HEADER);
+            }
+        }
+    }
+
+    private StoredResponse await(Entry entry) {
+        try {
+            return entry.response.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for the first request with this " + HEADER);
+        } catch (TimeoutException e) {
+            throw new ConflictException("A request with this " + HEADER + " is still being processed, retry later");
+        } catch (ExecutionException e) {
+            // the first attempt failed, so does this one; the key is free again for the next retry
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new InternalServerErrorException("The first request with this " + HEADER + " failed", e.getCause());
+        }
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String fingerprint, Class<T> type) {
+        if (!stored.getFingerprint().equals(fingerprint)) {
+            throw new ConflictException(HEADER + " was already used for a different request");
+        }
+        try {
+            T body = stored.getBody() != null ? objectMapper.readValue(stored.getBody(), type) : null;
+            return ResponseEntity.status(stored.getStatus()).header(REPLAYED_HEADER, "true").body(body);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerErrorException("Stored response for this " + HEADER + " can't be read", e);
+        }
+    }
+
+    // requests still running keep their entry, their retries are waiting on it; the stripe is over
+    // its limit until they finish
+    private void evictOldest(Stripe stripe) {
+        int limit = Math.max(1, maxEntries / STRIPES);
+        Iterator<Map.Entry<String, Entry>> it = stripe.entries.entrySet().iterator();
+        while (stripe.entries.size() > limit && it.hasNext()) {
+            if (it.next().getValue().response.isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry, LocalDateTime now) {
+        return entry.createdAt.isBefore(now.minusMinutes(ttlMinutes));
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(toJson(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerErrorException("Can't serialize for " + HEADER, e);
+        }
+    }
+
+    private static Stripe[] stripes() {
+        Stripe[] stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        return stripes;
+    }
+}
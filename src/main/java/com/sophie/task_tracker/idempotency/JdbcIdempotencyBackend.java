@@ -0,0 +1,70 @@
+package com.sophie.task_tracker.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// idempotency_keys table in the application database, shared by all instances. The primary key on
+// id_key decides which instance runs a key: it inserts a pending row before running the request,
+// the others find that row and wait for it to be filled in
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.idempotency.persistent", havingValue = "true")
+public class JdbcIdempotencyBackend implements IdempotencyBackend {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Override
+    public StoredResponse find(String key, LocalDateTime notBefore) {
+        List<StoredResponse> rows = jdbcTemplate.query(
+                "SELECT fingerprint, status, body, created_at FROM idempotency_keys WHERE id_key = ? AND created_at >= ?",
+                (rs, i) -> new StoredResponse(rs.getString("fingerprint"), rs.getInt("status"), rs.getString("body"),
+                        rs.getTimestamp("created_at").toLocalDateTime()),
+                key, Timestamp.valueOf(notBefore));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public boolean claim(String key, String fingerprint, LocalDateTime now, LocalDateTime notBefore, LocalDateTime abandonedBefore) {
+        try {
+            jdbcTemplate.update("INSERT INTO idempotency_keys (id_key, fingerprint, status, body, created_at) VALUES (?, ?, ?, NULL, ?)",
+                    key, fingerprint, StoredResponse.PENDING, Timestamp.valueOf(now));
+            return true;
+        } catch (DuplicateKeyException e) {
+            // the row lock lets only one instance take over a dead row, the others see it fresh again
+            return jdbcTemplate.update("UPDATE idempotency_keys SET fingerprint = ?, status = ?, body = NULL, created_at = ? "
+                            + "WHERE id_key = ? AND (created_at < ? OR (status = ? AND created_at < ?))",
+                    fingerprint, StoredResponse.PENDING, Timestamp.valueOf(now),
+                    key, Timestamp.valueOf(notBefore), StoredResponse.PENDING, Timestamp.valueOf(abandonedBefore)) == 1;
+        }
+    }
+
+    @Override
+    public void save(String key, StoredResponse response) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET fingerprint = ?, status = ?, body = ?, created_at = ? WHERE id_key = ? AND status = ?",
+                response.getFingerprint(), response.getStatus(), response.getBody(), Timestamp.valueOf(response.getCreatedAt()),
+                key, StoredResponse.PENDING);
+    }
+
+    @Override
+    public void release(String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE id_key = ? AND status = ?", key, StoredResponse.PENDING);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:600000}")
+    public void deleteExpired() {
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(ttlMinutes)));
+    }
+}
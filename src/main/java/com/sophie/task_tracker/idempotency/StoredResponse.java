@@ -0,0 +1,24 @@
+package com.sophie.task_tracker.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// response of the first request with an Idempotency-Key, what retries get back
+@Data
+@AllArgsConstructor
+public class StoredResponse {
+
+    // status of a claimed key whose request is still running
+    public static final int PENDING = 0;
+
+    private String fingerprint;  // hash of the request body, a reused key with another body is rejected
+    private int status;
+    private String body;         // json
+    private LocalDateTime createdAt;
+
+    public boolean isPending() {
+        return status == PENDING;
+    }
+}
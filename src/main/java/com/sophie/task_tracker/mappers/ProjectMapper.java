@@ -15,6 +15,7 @@ public interface ProjectMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createDate", ignore = true)
     @Mapping(target = "updateDate", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "owner", ignore = true)
     @Mapping(target = "tasks", ignore = true)
     Project toEntity(ProjectDto projectDto);
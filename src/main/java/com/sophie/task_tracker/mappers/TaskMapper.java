@@ -12,12 +12,16 @@ public interface TaskMapper {
     @Mapping(target = "projectName", source = "project.name")
     @Mapping(target = "assignedUserId", source = "assignedUser.id")
     @Mapping(target = "assignedUserEmail", source = "assignedUser.email")
+    @Mapping(target = "parentId", source = "parent.id")
     TaskDto toDto(Task task);   // Task - > taskDto
     
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createDate", ignore = true)
     @Mapping(target = "updateDate", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "project", ignore = true)
     @Mapping(target = "assignedUser", ignore = true)
+    @Mapping(target = "parent", ignore = true)
+    @Mapping(target = "commentCount", ignore = true)
     Task toEntity(TaskDto taskDto); // taskDto -> Task
 }
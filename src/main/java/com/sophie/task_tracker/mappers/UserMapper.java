@@ -13,6 +13,7 @@ public interface UserMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createDate", ignore = true)
     @Mapping(target = "updateDate", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "ownedProjects", ignore = true)
     @Mapping(target = "assignedTasks", ignore = true)
     User toEntity(UserDto userDto); // userDto -> user
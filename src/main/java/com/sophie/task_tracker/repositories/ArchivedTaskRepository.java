@@ -0,0 +1,27 @@
+package com.sophie.task_tracker.repositories;
+
+import com.sophie.task_tracker.entities.ArchivedTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface ArchivedTaskRepository extends JpaRepository<ArchivedTask, Long> {
+
+    // copies the rows over inside the database, nothing is loaded into memory. The archive
+    // conditions are checked again here, on top of the row locks TaskArchiveService takes
+    @Modifying
+    @Query(value = "INSERT INTO tasks_archive (id, create_date, update_date, version, title, description, status, " +
+                   "due_date, priority, project_id, assigned_user_id, archived_at) " +
+                   "SELECT id, create_date, update_date, version, title, description, status, " +
+                   "due_date, priority, project_id, assigned_user_id, :archivedAt FROM tasks " +
+                   "WHERE id IN :ids AND status = :status AND update_date < :cutoff",
+           nativeQuery = true)
+    int copyFromTasks(@Param("ids") Collection<Long> ids, @Param("status") int status,
+                      @Param("cutoff") LocalDateTime cutoff, @Param("archivedAt") LocalDateTime archivedAt);
+}
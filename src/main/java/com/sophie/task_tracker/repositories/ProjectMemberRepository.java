@@ -0,0 +1,33 @@
+package com.sophie.task_tracker.repositories;
+
+import com.sophie.task_tracker.dto.ProjectMemberDto;
+import com.sophie.task_tracker.entities.ProjectMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProjectMemberRepository extends JpaRepository<ProjectMember, Long> {
+
+    // (projectId, role) of every membership of a user, for the access sets
+    @Query("SELECT m.project.id, m.role FROM ProjectMember m WHERE m.user.id = :userId")
+    List<Object[]> findProjectRolesByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.sophie.task_tracker.dto.ProjectMemberDto(u.id, u.email, m.role) " +
+           "FROM ProjectMember m JOIN m.user u WHERE m.project.id = :projectId ORDER BY u.email")
+    List<ProjectMemberDto> findMembers(@Param("projectId") Long projectId);
+
+    @Query("SELECT m.user.id FROM ProjectMember m WHERE m.project.id = :projectId")
+    List<Long> findUserIdsByProjectId(@Param("projectId") Long projectId);
+
+    Optional<ProjectMember> findByProjectIdAndUserId(Long projectId, Long userId);
+
+    @Modifying
+    @Query("DELETE FROM ProjectMember m WHERE m.project.id = :projectId AND m.user.id = :userId")
+    int deleteByProjectIdAndUserId(@Param("projectId") Long projectId, @Param("userId") Long userId);
+}
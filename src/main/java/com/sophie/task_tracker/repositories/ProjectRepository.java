@@ -1,24 +1,70 @@
 package com.sophie.task_tracker.repositories;
 
+import com.sophie.task_tracker.dto.ProjectOverviewDto;
 import com.sophie.task_tracker.entities.Project;
 import com.sophie.task_tracker.entities.User;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
 
-    @Query("SELECT p FROM Project p WHERE p.owner.id = :ownerId")
+    String MEMBER_PROJECTS = "SELECT m.project.id FROM ProjectMember m WHERE m.user.id = :userId";
+
+    @Query("SELECT p FROM Project p JOIN FETCH p.owner WHERE p.owner.id = :ownerId")
     List<Project> findByOwnerId(@Param("ownerId") Long ownerId);
-    // find project with owner_id
+    // find project with owner_id, owner fetched for ownerEmail in the dto
+
+    @Override
+    @EntityGraph(attributePaths = "owner")
+    List<Project> findAll();
+    // all projects with their owners in one query
     
 
     
+    // a page of the project list, ids only: the projects the user owns or is a member of, all of
+    // them for userId null. Cheap to page, the counts are only computed for what comes back
+    @Query("SELECT p.id FROM Project p WHERE :userId IS NULL OR p.owner.id = :userId OR p.id IN (" + MEMBER_PROJECTS + ") ORDER BY p.id")
+    List<Long> findOverviewIds(@Param("userId") Long userId, Pageable pageable);
+
+    // project list rows with task counts: tasks and archived tasks of just these projects are
+    // grouped in derived tables and outer joined, so the CLOB description stays out of the GROUP BY
+    @Query("SELECT new com.sophie.task_tracker.dto.ProjectOverviewDto(p.id, p.name, p.description, o.id, o.email, " +
+           "p.createDate, p.updateDate, p.version, c.todo, c.inProgress, c.done, a.archived) " +
+           "FROM Project p JOIN p.owner o " +
+           "LEFT JOIN (SELECT t.project.id AS projectId, " +
+           "    SUM(CASE WHEN t.status = com.sophie.task_tracker.enums.TaskStatus.TODO THEN 1 ELSE 0 END) AS todo, " +
+           "    SUM(CASE WHEN t.status = com.sophie.task_tracker.enums.TaskStatus.IN_PROGRESS THEN 1 ELSE 0 END) AS inProgress, " +
+           "    SUM(CASE WHEN t.status = com.sophie.task_tracker.enums.TaskStatus.DONE THEN 1 ELSE 0 END) AS done " +
+           "  FROM Task t WHERE t.project.id IN :ids GROUP BY t.project.id) c ON c.projectId = p.id " +
+           "LEFT JOIN (SELECT x.project.id AS projectId, COUNT(x) AS archived " +
+           "  FROM ArchivedTask x WHERE x.project.id IN :ids GROUP BY x.project.id) a ON a.projectId = p.id " +
+           "WHERE p.id IN :ids ORDER BY p.id")
+    List<ProjectOverviewDto> findOverviews(@Param("ids") Collection<Long> ids);
+
+    // owner included for the dto, access is checked before in ProjectAccessCache
+    @Query("SELECT p FROM Project p JOIN FETCH p.owner WHERE p.id = :id")
+    Optional<Project> findWithOwnerById(@Param("id") Long id);
+
+    @Query("SELECT p.id FROM Project p WHERE p.owner.id = :ownerId")
+    List<Long> findIdsByOwnerId(@Param("ownerId") Long ownerId);
+
+    @Query("SELECT p.id FROM Project p")
+    List<Long> findAllIds();
+
+    // row lock on the project, held until the transaction ends
+    @Query(value = "SELECT id FROM projects WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
     boolean existsByNameAndOwner(String name, User owner);
     // returns whether or not such project exists with this project name and owner
 }
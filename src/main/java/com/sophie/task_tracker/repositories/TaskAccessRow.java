@@ -0,0 +1,21 @@
+package com.sophie.task_tracker.repositories;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// just the columns the access rules and counters look at, so bulk operations don't load whole tasks
+@Data
+@AllArgsConstructor
+public class TaskAccessRow {
+    private Long taskId;
+    private Long projectId;
+    private Long ownerId;
+    private Long assignedUserId;
+    private TaskStatus status;
+    private TaskPriority priority;
+    private LocalDate dueDate;
+}
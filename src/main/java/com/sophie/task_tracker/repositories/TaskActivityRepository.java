@@ -0,0 +1,46 @@
+package com.sophie.task_tracker.repositories;
+
+import com.sophie.task_tracker.dto.TaskActivityDto;
+import com.sophie.task_tracker.entities.TaskActivity;
+import com.sophie.task_tracker.enums.ActivityType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskActivityRepository extends JpaRepository<TaskActivity, Long> {
+
+    // newest first, entries older than the cursor. Walks idx_task_activity_task backwards,
+    // so page 500 of a hot task costs the same as page 1
+    @Query("SELECT new com.sophie.task_tracker.dto.TaskActivityDto(a.id, a.type, a.body, u.id, u.email, a.createdAt) " +
+           "FROM TaskActivity a LEFT JOIN a.author u WHERE a.taskId = :taskId AND a.id < :before ORDER BY a.id DESC")
+    List<TaskActivityDto> findPage(@Param("taskId") Long taskId, @Param("before") Long before, Pageable pageable);
+
+    @Query("SELECT new com.sophie.task_tracker.dto.TaskActivityDto(a.id, a.type, a.body, u.id, u.email, a.createdAt) " +
+           "FROM TaskActivity a LEFT JOIN a.author u " +
+           "WHERE a.taskId = :taskId AND a.type = :type AND a.id < :before ORDER BY a.id DESC")
+    List<TaskActivityDto> findPageByType(@Param("taskId") Long taskId, @Param("type") ActivityType type,
+                                         @Param("before") Long before, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM TaskActivity a WHERE a.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") Long taskId);
+
+    @Modifying
+    @Query("DELETE FROM TaskActivity a WHERE a.projectId = :projectId")
+    int deleteByProjectId(@Param("projectId") Long projectId);
+
+    // feeds of the tasks that go with a deleted user: the ones in their projects and the ones
+    // assigned to them elsewhere, archived or not. task_id has no foreign key (the feed outlives
+    // archiving), so the database can't cascade this
+    @Modifying
+    @Query("DELETE FROM TaskActivity a WHERE a.projectId IN (SELECT p.id FROM Project p WHERE p.owner.id = :userId) " +
+           "OR a.taskId IN (SELECT t.id FROM Task t WHERE t.assignedUser.id = :userId) " +
+           "OR a.taskId IN (SELECT x.id FROM ArchivedTask x WHERE x.assignedUser.id = :userId)")
+    int deleteByUserTasks(@Param("userId") Long userId);
+}
@@ -0,0 +1,65 @@
+package com.sophie.task_tracker.repositories;
+
+import com.sophie.task_tracker.dto.TaskTreeNodeDto;
+import com.sophie.task_tracker.entities.TaskClosure;
+import com.sophie.task_tracker.entities.TaskClosureId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskClosureRepository extends JpaRepository<TaskClosure, TaskClosureId> {
+
+    // every task is its own ancestor at depth 0
+    @Modifying
+    @Query(value = "INSERT INTO task_closure (ancestor_id, descendant_id, depth) VALUES (:taskId, :taskId, 0)",
+           nativeQuery = true)
+    int insertSelf(@Param("taskId") Long taskId);
+
+    // a new leaf inherits its parent's ancestors, one level deeper
+    @Modifying
+    @Query(value = "INSERT INTO task_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT ancestor_id, :taskId, depth + 1 FROM task_closure WHERE descendant_id = :parentId",
+           nativeQuery = true)
+    int insertLeaf(@Param("taskId") Long taskId, @Param("parentId") Long parentId);
+
+    // cuts a subtree loose: drops the links from the task's ancestors to anything in its subtree,
+    // links inside the subtree stay
+    @Modifying
+    @Query(value = "DELETE FROM task_closure " +
+                   "WHERE descendant_id IN (SELECT descendant_id FROM task_closure WHERE ancestor_id = :taskId) " +
+                   "AND ancestor_id IN (SELECT ancestor_id FROM task_closure WHERE descendant_id = :taskId AND ancestor_id <> :taskId)",
+           nativeQuery = true)
+    int detachSubtree(@Param("taskId") Long taskId);
+
+    // hangs a detached subtree under a new parent: every ancestor of the parent times every node of the subtree
+    @Modifying
+    @Query(value = "INSERT INTO task_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT above.ancestor_id, below.descendant_id, above.depth + below.depth + 1 " +
+                   "FROM task_closure above CROSS JOIN task_closure below " +
+                   "WHERE above.descendant_id = :parentId AND below.ancestor_id = :taskId",
+           nativeQuery = true)
+    int attachSubtree(@Param("taskId") Long taskId, @Param("parentId") Long parentId);
+
+    // descendants (depth > 0) up to maxDepth levels down, by level
+    @Query("SELECT new com.sophie.task_tracker.dto.TaskTreeNodeDto(t.id, t.title, t.status, t.priority, t.dueDate, u.id, t.parent.id, c.depth) " +
+           "FROM TaskClosure c JOIN c.descendant t LEFT JOIN t.assignedUser u " +
+           "WHERE c.id.ancestorId = :taskId AND c.depth > 0 AND c.depth <= :maxDepth ORDER BY c.depth, t.id")
+    List<TaskTreeNodeDto> findDescendants(@Param("taskId") Long taskId, @Param("maxDepth") int maxDepth, Pageable pageable);
+
+    // ancestors, root first
+    @Query("SELECT new com.sophie.task_tracker.dto.TaskTreeNodeDto(t.id, t.title, t.status, t.priority, t.dueDate, u.id, t.parent.id, c.depth) " +
+           "FROM TaskClosure c JOIN c.ancestor t LEFT JOIN t.assignedUser u " +
+           "WHERE c.id.descendantId = :taskId AND c.depth > 0 ORDER BY c.depth DESC")
+    List<TaskTreeNodeDto> findAncestors(@Param("taskId") Long taskId);
+
+    // (status, count, deepest level) of the task and everything below it
+    @Query("SELECT t.status, COUNT(t), MAX(c.depth) FROM TaskClosure c JOIN c.descendant t " +
+           "WHERE c.id.ancestorId = :taskId GROUP BY t.status")
+    List<Object[]> countSubtreeByStatus(@Param("taskId") Long taskId);
+}
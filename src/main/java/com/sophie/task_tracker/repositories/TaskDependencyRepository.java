@@ -0,0 +1,24 @@
+package com.sophie.task_tracker.repositories;
+
+import com.sophie.task_tracker.entities.TaskDependency;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskDependencyRepository extends JpaRepository<TaskDependency, Long> {
+
+    // (blockerId, blockedId) pairs of a project, ids only
+    @Query("SELECT d.blocker.id, d.blocked.id FROM TaskDependency d WHERE d.projectId = :projectId")
+    List<Object[]> findEdgesByProjectId(@Param("projectId") Long projectId);
+
+    boolean existsByBlockerIdAndBlockedId(Long blockerId, Long blockedId);
+
+    @Modifying
+    @Query("DELETE FROM TaskDependency d WHERE d.blocker.id = :blockerId AND d.blocked.id = :blockedId")
+    int deleteByBlockerIdAndBlockedId(@Param("blockerId") Long blockerId, @Param("blockedId") Long blockedId);
+}
@@ -0,0 +1,47 @@
+package com.sophie.task_tracker.repositories;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import lombok.Data;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+// optional criteria for the projected and bulk task queries, null fields are ignored
+@Data
+public class TaskFilter {
+    private Collection<Long> ids;
+    private Long projectId;
+    private Long assignedUserId;
+    private TaskStatus status;
+    private TaskPriority priority;
+    private LocalDate dueBefore;
+    private boolean includeArchived;    // projected queries only, also read tasks_archive
+    private Sort sort = Sort.unsorted();    // projected queries only, entity attribute names
+    private int limit;                      // projected queries only, 0 means no limit
+    @JsonIgnore
+    private Long visibleTo;     // only tasks this user can see: assigned, own project or member. Set by the server
+
+    public boolean isEmpty() {
+        return ids == null && projectId == null && assignedUserId == null
+                && status == null && priority == null && dueBefore == null;
+    }
+
+    // same criteria for other ids, so chunks and shards don't share one filter
+    public TaskFilter withIds(Collection<Long> ids) {
+        TaskFilter copy = new TaskFilter();
+        copy.setIds(ids);
+        copy.setProjectId(projectId);
+        copy.setAssignedUserId(assignedUserId);
+        copy.setStatus(status);
+        copy.setPriority(priority);
+        copy.setDueBefore(dueBefore);
+        copy.setIncludeArchived(includeArchived);
+        copy.setSort(sort);
+        copy.setLimit(limit);
+        copy.setVisibleTo(visibleTo);
+        return copy;
+    }
+}
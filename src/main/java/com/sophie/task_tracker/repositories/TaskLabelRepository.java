@@ -0,0 +1,27 @@
+package com.sophie.task_tracker.repositories;
+
+import com.sophie.task_tracker.entities.TaskLabel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskLabelRepository extends JpaRepository<TaskLabel, Long> {
+
+    @Query("SELECT l.name FROM TaskLabel l WHERE l.task.id = :taskId ORDER BY l.name")
+    List<String> findNamesByTaskId(@Param("taskId") Long taskId);
+
+    // (taskId, name) pairs of a project
+    @Query("SELECT l.task.id, l.name FROM TaskLabel l WHERE l.projectId = :projectId")
+    List<Object[]> findPairsByProjectId(@Param("projectId") Long projectId);
+
+    boolean existsByTaskIdAndName(Long taskId, String name);
+
+    @Modifying
+    @Query("DELETE FROM TaskLabel l WHERE l.task.id = :taskId AND l.name = :name")
+    int deleteByTaskIdAndName(@Param("taskId") Long taskId, @Param("name") String name);
+}
@@ -1,44 +1,171 @@
 package com.sophie.task_tracker.repositories;
 
+import com.sophie.task_tracker.dto.BoardTaskDto;
 import com.sophie.task_tracker.entities.Project;
 import com.sophie.task_tracker.entities.Task;
 import com.sophie.task_tracker.entities.User;
 import com.sophie.task_tracker.enums.TaskPriority;
 import com.sophie.task_tracker.enums.TaskStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+// list finders fetch project and assignee up front, TaskMapper reads both for every row.
+// They take a Pageable for sort and top-N; List results skip the count query
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
+
+    int ID_CHUNK_SIZE = 500;  // keeps IN lists within database limits
 
     // Find tasks by project
-    List<Task> findByProject(Project project);
+    @EntityGraph(attributePaths = {"project", "assignedUser"})
+    List<Task> findByProject(Project project, Pageable pageable);
     
     // Find tasks by assigned user
-    List<Task> findByAssignedUser(User assignedUser);
+    @EntityGraph(attributePaths = {"project", "assignedUser"})
+    List<Task> findByAssignedUser(User assignedUser, Pageable pageable);
     
     // Find tasks by status
-    List<Task> findByStatus(TaskStatus status);
+    @EntityGraph(attributePaths = {"project", "assignedUser"})
+    List<Task> findByStatus(TaskStatus status, Pageable pageable);
     
     // Find tasks by priority
-    List<Task> findByPriority(TaskPriority priority);
+    @EntityGraph(attributePaths = {"project", "assignedUser"})
+    List<Task> findByPriority(TaskPriority priority, Pageable pageable);
     
     // Find tasks by status and assigned user
-    List<Task> findByStatusAndAssignedUser(TaskStatus status, User assignedUser);
+    @EntityGraph(attributePaths = {"project", "assignedUser"})
+    List<Task> findByStatusAndAssignedUser(TaskStatus status, User assignedUser, Pageable pageable);
     
     // Find tasks by priority and assigned user
-    List<Task> findByPriorityAndAssignedUser(TaskPriority priority, User assignedUser);
+    @EntityGraph(attributePaths = {"project", "assignedUser"})
+    List<Task> findByPriorityAndAssignedUser(TaskPriority priority, User assignedUser, Pageable pageable);
 
     // Find tasks by due date
-    List<Task> findByDueDateBefore(LocalDate dueDate);
+    @EntityGraph(attributePaths = {"project", "assignedUser"})
+    List<Task> findByDueDateBefore(LocalDate dueDate, Pageable pageable);
     
     // Find tasks by due date and assigned user
-    List<Task> findByDueDateBeforeAndAssignedUser(LocalDate dueDate, User assignedUser);
+    @EntityGraph(attributePaths = {"project", "assignedUser"})
+    List<Task> findByDueDateBeforeAndAssignedUser(LocalDate dueDate, User assignedUser, Pageable pageable);
+
+    // a task with what the dto and the access check need, in one query. Access is decided in
+    // memory from the project id and the assignee, see ProjectAccessCache
+    @Query("SELECT t FROM Task t JOIN FETCH t.project LEFT JOIN FETCH t.assignedUser WHERE t.id = :id")
+    Optional<Task> findWithProjectAndAssigneeById(@Param("id") Long id);
+
+    @Query("SELECT t FROM Task t JOIN FETCH t.project LEFT JOIN FETCH t.assignedUser WHERE t.id IN :ids")
+    List<Task> findWithProjectAndAssigneeByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Board cards of a project, only the columns the board shows
+    @Query("SELECT new com.sophie.task_tracker.dto.BoardTaskDto(t.id, t.title, t.status, t.priority, t.dueDate, u.id) " +
+           "FROM Task t LEFT JOIN t.assignedUser u WHERE t.project.id = :projectId")
+    List<BoardTaskDto> findBoardTasksByProjectId(@Param("projectId") Long projectId);
+
+    // Same cards for a set of tasks
+    @Query("SELECT new com.sophie.task_tracker.dto.BoardTaskDto(t.id, t.title, t.status, t.priority, t.dueDate, u.id) " +
+           "FROM Task t LEFT JOIN t.assignedUser u WHERE t.id IN :ids")
+    List<BoardTaskDto> findBoardTasksByIdIn(@Param("ids") Collection<Long> ids);
+
+    // cards in the order of the ids, tasks that are gone are left out
+    default List<BoardTaskDto> findBoardTasksInOrder(List<Long> ids) {
+        Map<Long, BoardTaskDto> found = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += ID_CHUNK_SIZE) {
+            findBoardTasksByIdIn(ids.subList(i, Math.min(i + ID_CHUNK_SIZE, ids.size())))
+                    .forEach(card -> found.put(card.getId(), card));
+        }
+        List<BoardTaskDto> cards = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BoardTaskDto card = found.get(id);
+            if (card != null) {
+                cards.add(card);
+            }
+        }
+        return cards;
+    }
+
+    // tasks due per day, a range scan of the (project_id, due_date) index
+    @Query("SELECT t.dueDate, COUNT(t) FROM Task t WHERE t.project.id = :projectId " +
+           "AND t.dueDate BETWEEN :from AND :to GROUP BY t.dueDate")
+    List<Object[]> countByDueDateForProject(@Param("projectId") Long projectId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT t.dueDate, COUNT(t) FROM Task t WHERE t.assignedUser.id = :userId " +
+           "AND t.dueDate BETWEEN :from AND :to GROUP BY t.dueDate")
+    List<Object[]> countByDueDateForAssignee(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // cards due in a date range, by day, most urgent first within a day
+    @Query("SELECT new com.sophie.task_tracker.dto.BoardTaskDto(t.id, t.title, t.status, t.priority, t.dueDate, u.id) " +
+           "FROM Task t LEFT JOIN t.assignedUser u WHERE t.project.id = :projectId AND t.dueDate BETWEEN :from AND :to " +
+           "ORDER BY t.dueDate, t.priority DESC, t.id")
+    List<BoardTaskDto> findDueBetweenForProject(@Param("projectId") Long projectId, @Param("from") LocalDate from,
+                                                @Param("to") LocalDate to, Pageable pageable);
+
+    @Query("SELECT new com.sophie.task_tracker.dto.BoardTaskDto(t.id, t.title, t.status, t.priority, t.dueDate, u.id) " +
+           "FROM Task t JOIN t.assignedUser u WHERE u.id = :userId AND t.dueDate BETWEEN :from AND :to " +
+           "ORDER BY t.dueDate, t.priority DESC, t.id")
+    List<BoardTaskDto> findDueBetweenForAssignee(@Param("userId") Long userId, @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to, Pageable pageable);
+
+    // (id, status, dueDate) of every task in a project, what the dependency graph keeps per task
+    @Query("SELECT t.id, t.status, t.dueDate FROM Task t WHERE t.project.id = :projectId")
+    List<Object[]> findGraphNodesByProjectId(@Param("projectId") Long projectId);
+
+    boolean existsByParentId(Long parentId);
+
+    // one row touched, no version bump, so commenting never conflicts with someone editing the task
+    @Modifying
+    @Query(value = "UPDATE tasks SET comment_count = comment_count + 1 WHERE id = :taskId", nativeQuery = true)
+    int incrementCommentCount(@Param("taskId") Long taskId);
+
+    // (id, status, priority) of every task in a project, for the label index
+    @Query("SELECT t.id, t.status, t.priority FROM Task t WHERE t.project.id = :projectId")
+    List<Object[]> findIndexRowsByProjectId(@Param("projectId") Long projectId);
+
+    // DONE tasks last touched before the cutoff, oldest ids first, for the archive job.
+    // Only tasks without subtasks, a parent follows once its subtasks are archived
+    @Query("SELECT t.id FROM Task t WHERE t.status = :status AND t.updateDate < :cutoff " +
+           "AND NOT EXISTS (SELECT c.id FROM Task c WHERE c.parent.id = t.id) ORDER BY t.id")
+    List<Long> findIdsByStatusUpdatedBefore(@Param("status") TaskStatus status,
+                                            @Param("cutoff") LocalDateTime cutoff,
+                                            Pageable pageable);
+
+    // locks the rows of ids that still qualify for the archive. A task reopened, edited or given a
+    // subtask since they were picked drops out; one changed from now on waits for the archive commit
+    @Query(value = "SELECT t.id FROM tasks t WHERE t.id IN :ids AND t.status = :status AND t.update_date < :cutoff " +
+                   "AND NOT EXISTS (SELECT c.id FROM tasks c WHERE c.parent_id = t.id) FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockArchivable(@Param("ids") Collection<Long> ids, @Param("status") int status,
+                              @Param("cutoff") LocalDateTime cutoff);
+
+    // same conditions as the archive copy, so nothing is deleted that wasn't copied
+    @Modifying
+    @Query("DELETE FROM Task t WHERE t.id IN :ids AND t.status = :status AND t.updateDate < :cutoff")
+    int deleteArchivable(@Param("ids") Collection<Long> ids, @Param("status") TaskStatus status,
+                         @Param("cutoff") LocalDateTime cutoff);
+
+    // Task counts grouped by everything the dashboard counters track, used to rebuild them
+    @Query("SELECT t.project.id, u.id, t.status, t.priority, t.dueDate, COUNT(t) FROM Task t LEFT JOIN t.assignedUser u " +
+           "GROUP BY t.project.id, u.id, t.status, t.priority, t.dueDate")
+    List<Object[]> countGroupedForCounters();
+
+    // open task counts per assignee and priority, seeds the workload index
+    @Query("SELECT t.assignedUser.id, t.priority, COUNT(t) FROM Task t " +
+           "WHERE t.assignedUser IS NOT NULL AND t.status <> com.sophie.task_tracker.enums.TaskStatus.DONE " +
+           "GROUP BY t.assignedUser.id, t.priority")
+    List<Object[]> countOpenByAssigneeAndPriority();
     
 
 }
@@ -0,0 +1,21 @@
+package com.sophie.task_tracker.repositories;
+
+import com.sophie.task_tracker.dto.TaskBulkUpdateDto;
+import com.sophie.task_tracker.dto.TaskField;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface TaskRepositoryCustom {
+
+    // selects only the requested columns, each row is keyed by the field's json name
+    List<Map<String, Object>> findFields(TaskFilter filter, Set<TaskField> fields);
+
+    // task id, project owner id and assignee id for every task matching the filter
+    List<TaskAccessRow> findAccessRows(TaskFilter filter);
+
+    // single set-based UPDATE for the given ids, returns the number of rows changed
+    int bulkUpdate(Collection<Long> ids, TaskBulkUpdateDto change);
+}
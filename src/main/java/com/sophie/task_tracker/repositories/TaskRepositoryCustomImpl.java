@@ -0,0 +1,184 @@
+package com.sophie.task_tracker.repositories;
+
+import com.sophie.task_tracker.dto.TaskBulkUpdateDto;
+import com.sophie.task_tracker.dto.TaskField;
+import com.sophie.task_tracker.entities.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFields(TaskFilter filter, Set<TaskField> fields) {
+        List<Map<String, Object>> result = findFields("Task", filter, fields);
+        if (filter.isIncludeArchived()) {
+            // same attribute names on both entities, so the same select works on the archive
+            // archived rows come after the active ones, each part in the requested order
+            for (Map<String, Object> row : findFields("ArchivedTask", filter, fields)) {
+                if (filter.getLimit() > 0 && result.size() >= filter.getLimit()) {
+                    break;
+                }
+                row.put("archived", true);
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private List<Map<String, Object>> findFields(String entity, TaskFilter filter, Set<TaskField> fields) {
+        StringBuilder select = new StringBuilder();
+        boolean projectJoin = false;
+        boolean userJoin = false;
+        for (TaskField field : fields) {
+            if (select.length() > 0) {
+                select.append(", ");
+            }
+            select.append(field.getPath());
+            projectJoin |= field.needsProjectJoin();
+            userJoin |= field.needsUserJoin();
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT ").append(select).append(" FROM ").append(entity).append(" t");
+        if (projectJoin) {
+            jpql.append(" JOIN t.project p");
+        }
+        if (userJoin) {
+            jpql.append(" LEFT JOIN t.assignedUser u");
+        }
+        Map<String, Object> params = new HashMap<>();
+        appendWhere(jpql, filter, params);
+        appendOrderBy(jpql, filter.getSort());
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        params.forEach(query::setParameter);
+        if (filter.getLimit() > 0) {
+            query.setMaxResults(filter.getLimit());
+        }
+
+        List<Tuple> rows = query.getResultList();
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            int i = 0;
+            for (TaskField field : fields) {
+                values.put(field.getJsonName(), row.get(i++));
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    @Override
+    public List<TaskAccessRow> findAccessRows(TaskFilter filter) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.sophie.task_tracker.repositories.TaskAccessRow(t.id, p.id, p.owner.id, u.id, t.status, t.priority, t.dueDate)"
+                        + " FROM Task t JOIN t.project p LEFT JOIN t.assignedUser u");
+        Map<String, Object> params = new HashMap<>();
+        appendWhere(jpql, filter, params);
+
+        TypedQuery<TaskAccessRow> query = entityManager.createQuery(jpql.toString(), TaskAccessRow.class);
+        params.forEach(query::setParameter);
+        return query.getResultList();
+    }
+
+    @Override
+    public int bulkUpdate(Collection<Long> ids, TaskBulkUpdateDto change) {
+        List<String> set = new ArrayList<>();
+        Map<String, Object> params = new HashMap<>();
+        if (change.getStatus() != null) {
+            set.add("t.status = :status");
+            params.put("status", change.getStatus());
+        }
+        if (change.getPriority() != null) {
+            set.add("t.priority = :priority");
+            params.put("priority", change.getPriority());
+        }
+        if (change.getDueDate() != null) {
+            set.add("t.dueDate = :dueDate");
+            params.put("dueDate", change.getDueDate());
+        }
+        if (change.getAssignedUserId() != null) {
+            set.add("t.assignedUser = :assignedUser");
+            params.put("assignedUser", entityManager.getReference(User.class, change.getAssignedUserId()));
+        }
+        // bulk updates skip @PreUpdate and @Version, so both are set here
+        set.add("t.updateDate = :now");
+        set.add("t.version = t.version + 1");
+        params.put("now", LocalDateTime.now());
+        params.put("ids", ids);
+
+        // pending changes must hit the db first, and loaded tasks are stale afterwards
+        entityManager.flush();
+        Query query = entityManager.createQuery(
+                "UPDATE Task t SET " + String.join(", ", set) + " WHERE t.id IN :ids");
+        params.forEach(query::setParameter);
+        int updated = query.executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+
+    // properties come from TaskField.parseSort, never straight from the request
+    private void appendOrderBy(StringBuilder jpql, Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return;
+        }
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add("t." + order.getProperty() + (order.isDescending() ? " DESC" : " ASC"));
+        }
+        jpql.append(" ORDER BY ").append(String.join(", ", orders));
+    }
+
+    // foreign key comparisons, no join needed for the filter itself
+    private void appendWhere(StringBuilder jpql, TaskFilter filter, Map<String, Object> params) {
+        List<String> where = new ArrayList<>();
+        if (filter.getIds() != null) {
+            where.add("t.id IN :ids");
+            params.put("ids", filter.getIds());
+        }
+        if (filter.getProjectId() != null) {
+            where.add("t.project.id = :projectId");
+            params.put("projectId", filter.getProjectId());
+        }
+        if (filter.getAssignedUserId() != null) {
+            where.add("t.assignedUser.id = :assignedUserId");
+            params.put("assignedUserId", filter.getAssignedUserId());
+        }
+        if (filter.getStatus() != null) {
+            where.add("t.status = :status");
+            params.put("status", filter.getStatus());
+        }
+        if (filter.getPriority() != null) {
+            where.add("t.priority = :priority");
+            params.put("priority", filter.getPriority());
+        }
+        if (filter.getDueBefore() != null) {
+            where.add("t.dueDate < :dueBefore");
+            params.put("dueBefore", filter.getDueBefore());
+        }
+        if (filter.getVisibleTo() != null) {
+            where.add("(t.assignedUser.id = :userId OR t.project.owner.id = :userId OR t.project.id IN ("
+                    + ProjectRepository.MEMBER_PROJECTS + "))");
+            params.put("userId", filter.getVisibleTo());
+        }
+        if (!where.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+    }
+}
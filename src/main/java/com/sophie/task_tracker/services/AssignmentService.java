@@ -0,0 +1,245 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.cluster.ChangeNotification;
+import com.sophie.task_tracker.cluster.RemoteChangeEvent;
+import com.sophie.task_tracker.entities.User;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.events.EntityChangedEvent;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TaskState;
+import com.sophie.task_tracker.events.TasksRemovedEvent;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.repositories.UserRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// picks assignees for assign=auto. Load of a USER is the priority weight of their open tasks,
+// kept in memory like the dashboard counters: task changes are applied after commit and the
+// index is rebuilt from one grouped query at startup, when it's dirty and periodically
+@Service
+@RequiredArgsConstructor
+public class AssignmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentService.class);
+
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final Shards shards;
+    private final PlatformTransactionManager transactionManager;
+    private final TaskCommitGate commitGate;
+
+    private volatile WorkloadIndex index = new WorkloadIndex();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    // same scheme as TaskCounterService: changes apply under the read lock and are logged while a
+    // rebuild runs, the swap takes the write lock and replays the log on the new index. Picks
+    // still waiting for their transaction are carried over as well
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Queue<Consumer<WorkloadIndex>> replay;
+    private final Set<Reservation> reservations = ConcurrentHashMap.newKeySet();
+
+    // a pick's weight, held until the transaction that asked for it ends
+    private static final class Reservation {
+        private final Long userId;
+        private final long weight;
+
+        private Reservation(Long userId, long weight) {
+            this.userId = userId;
+            this.weight = weight;
+        }
+    }
+
+    // least loaded USER, or null if there is none. The task's weight counts against the user
+    // right away so concurrent picks spread out; the real task replaces it once committed
+    public Long pickAssignee(TaskPriority priority) {
+        long weight = weight(priority);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            WorkloadIndex current = index;
+            Long userId = current.pick(weight);
+            if (userId != null) {
+                current.adjust(userId, -weight);
+            }
+            return userId;
+        }
+
+        Reservation reservation;
+        swapLock.readLock().lock();
+        try {
+            Long userId = index.pick(weight);
+            if (userId == null) {
+                return null;
+            }
+            reservation = new Reservation(userId, weight);
+            reservations.add(reservation);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        // after commit listeners have already added the task by the time this runs. Released on
+        // whatever index is current then, a rebuild in between carried the reservation over
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                swapLock.readLock().lock();
+                try {
+                    if (reservations.remove(reservation)) {
+                        index.adjust(reservation.userId, -reservation.weight);
+                    }
+                } finally {
+                    swapLock.readLock().unlock();
+                }
+            }
+        });
+        return reservation.userId;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        update(current -> {
+            apply(current, event.getBefore(), -1);
+            apply(current, event.getAfter(), 1);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksRemoved(TasksRemovedEvent event) {
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getType() != EntityChangedEvent.Type.USER) {
+            return;
+        }
+        if (event.isDeleted()) {
+            update(current -> current.removeUser(event.getId()));
+            return;
+        }
+        // a new user has no tasks yet
+        userRepository.findById(event.getId())
+                .map(User::getRole)
+                .filter(role -> role == Role.USER)
+                .ifPresent(role -> update(current -> current.addUser(event.getId())));
+    }
+
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        ChangeNotification.Type type = event.getNotification().getType();
+        if (type == ChangeNotification.Type.USER || type == ChangeNotification.Type.PROJECT_TASKS
+                || type == ChangeNotification.Type.ALL_TASKS) {
+            dirty.set(true);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.assignment.dirty-check-ms:10000}")
+    public void rebuildIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            rebuild();
+        }
+    }
+
+    // full rebuild, fixes drift from changes that raced with the previous one. Called from inside
+    // this bean too, the transaction comes from a template
+    @Scheduled(fixedDelayString = "${app.assignment.rebuild-interval-ms:300000}", initialDelayString = "${app.assignment.rebuild-interval-ms:300000}")
+    public synchronized void rebuild() {
+        Queue<Consumer<WorkloadIndex>> pending = new ConcurrentLinkedQueue<>();
+
+        WorkloadIndex rebuilt = new WorkloadIndex();
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            // same as the counters: no task commit lands between starting the log and the query,
+            // so a replayed change never adds a task the rows already have
+            commitGate.exclusive(() -> {
+                replay = pending;
+                transaction.executeWithoutResult(status -> {
+                    for (User user : userRepository.findByRole(Role.USER)) {
+                        rebuilt.addUser(user.getId());
+                    }
+                    // a user's tasks can be on several shards, adjust adds the rows up
+                    List<Object[]> rows = shards.queryAll(taskRepository::countOpenByAssigneeAndPriority);
+                    for (Object[] row : rows) {
+                        Long userId = (Long) row[0];
+                        TaskPriority priority = (TaskPriority) row[1];
+                        long count = ((Number) row[2]).longValue();
+                        rebuilt.adjust(userId, count * weight(priority));
+                    }
+                });
+                return null;
+            });
+        } catch (RuntimeException e) {
+            replay = null;
+            throw e;
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            reservations.forEach(reservation -> rebuilt.adjust(reservation.userId, reservation.weight));
+            pending.forEach(change -> change.accept(rebuilt));
+            index = rebuilt;
+            replay = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        log.debug("Rebuilt workload index for {} users, {} changes replayed", rebuilt.size(), pending.size());
+    }
+
+    // for tests
+    WorkloadIndex getIndex() {
+        return index;
+    }
+
+    int reservationCount() {
+        return reservations.size();
+    }
+
+    private void update(Consumer<WorkloadIndex> change) {
+        swapLock.readLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(change);
+            }
+            change.accept(index);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void apply(WorkloadIndex current, TaskState state, long sign) {
+        if (state != null && state.getAssignedUserId() != null && state.getStatus() != TaskStatus.DONE) {
+            current.adjust(state.getAssignedUserId(), sign * weight(state.getPriority()));
+        }
+    }
+
+    // a HIGH task weighs as much as three LOW ones
+    private static long weight(TaskPriority priority) {
+        return priority.getCode();
+    }
+}
@@ -23,16 +23,29 @@ public class AuthService implements UserDetailsService {
     private final UserService userService;
     private final JwtService jwtService;
     private final UserMapper userMapper;
+    private final ProjectAccessCache projectAccess;
 
     public AuthResponseDto register(UserRegistrationDto registrationDto) {
-        UserDto userDto = userService.registerUser(registrationDto);
-        
-        User user = userService.findByEmail(userDto.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found after registration"));
-        
-        UserDetails userDetails = loadUserByUsername(user.getEmail());
+        return registered(userService.registerUser(registrationDto));
+    }
+
+    // the token for a registration, new or replayed. Tokens are never stored with the idempotency
+    // key; a replay gets a fresh one, and only with the password the account was created with
+    public AuthResponseDto registered(UserDto userDto, String password, boolean replayed) {
+        if (replayed) {
+            User user = userService.findByEmail(userDto.getEmail())
+                    .orElseThrow(() -> new RuntimeException("Invalid email or password"));
+            if (!userService.verifyPassword(password, user.getPassword())) {
+                throw new RuntimeException("Invalid email or password");
+            }
+        }
+        return registered(userDto);
+    }
+
+    private AuthResponseDto registered(UserDto userDto) {
+        UserDetails userDetails = loadUserByUsername(userDto.getEmail());
         String token = jwtService.generateToken(userDetails);
-        
+
         return new AuthResponseDto(token, "User registered successfully", userDto);
     }
 
@@ -46,6 +59,8 @@ public class AuthService implements UserDetailsService {
 
         UserDetails userDetails = loadUserByUsername(loginDto.getEmail());
         String token = jwtService.generateToken(userDetails);
+        // the first requests after a login check project access, have the set ready
+        projectAccess.preload(user.getId());
 
         UserDto userDto = userMapper.toDto(user);
 
@@ -0,0 +1,150 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.cluster.ChangeNotification;
+import com.sophie.task_tracker.cluster.RemoteChangeEvent;
+import com.sophie.task_tracker.dto.BoardColumnDto;
+import com.sophie.task_tracker.dto.BoardDto;
+import com.sophie.task_tracker.dto.BoardTaskDto;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TasksRemovedEvent;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// one computed board per project, shared by all viewers until a task in the project changes
+@Component
+@RequiredArgsConstructor
+public class BoardCache {
+
+    // highest priority first, then earliest due date (no due date last), then oldest task
+    private static final Comparator<BoardTaskDto> CARD_ORDER = Comparator
+            .comparing((BoardTaskDto t) -> t.getPriority().ordinal(), Comparator.reverseOrder())
+            .thenComparing(BoardTaskDto::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(BoardTaskDto::getId);
+
+    private final TaskRepository taskRepository;
+    private final Shards shards;
+
+    @Value("${app.board.cache-size:1000}")
+    private int maxProjects;
+
+    private final Map<Long, CompletableFuture<BoardDto>> boards = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // columnLimit <= 0 means no limit, counts always cover the whole column
+    public BoardDto getBoard(Long projectId, int columnLimit) {
+        BoardDto board = getSnapshot(projectId);
+        if (columnLimit <= 0) {
+            return board;
+        }
+        List<BoardColumnDto> columns = new ArrayList<>();
+        for (BoardColumnDto column : board.getColumns()) {
+            List<BoardTaskDto> tasks = column.getTasks();
+            columns.add(new BoardColumnDto(column.getStatus(), column.getCount(),
+                    tasks.size() > columnLimit ? tasks.subList(0, columnLimit) : tasks));
+        }
+        return new BoardDto(board.getProjectId(), columns, board.getComputedAt());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        invalidate(event.getProjectId());
+        // a task can't move between projects, but keep this right if it ever does
+        if (event.getBefore() != null && event.getAfter() != null
+                && !event.getBefore().getProjectId().equals(event.getAfter().getProjectId())) {
+            invalidate(event.getBefore().getProjectId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksRemoved(TasksRemovedEvent event) {
+        if (event.getProjectId() != null) {
+            invalidate(event.getProjectId());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    // boards only hold task data, user changes reach us as ALL_TASKS when tasks go with them
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        ChangeNotification notification = event.getNotification();
+        switch (notification.getType()) {
+            case PROJECT, PROJECT_TASKS -> invalidate(notification.getId());
+            case ALL_TASKS -> invalidateAll();
+            default -> { }
+        }
+    }
+
+    public void invalidate(Long projectId) {
+        generations.computeIfAbsent(projectId, id -> new AtomicLong()).incrementAndGet();
+        boards.remove(projectId);
+    }
+
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        boards.clear();
+    }
+
+    private BoardDto getSnapshot(Long projectId) {
+        long generation = generations.computeIfAbsent(projectId, id -> new AtomicLong()).get();
+        if (boards.size() >= maxProjects && !boards.containsKey(projectId)) {
+            boards.clear();     // crude bound, boards are cheap to rebuild
+        }
+        // concurrent viewers wait on the same future instead of loading the project again
+        CompletableFuture<BoardDto> created = new CompletableFuture<>();
+        CompletableFuture<BoardDto> future = boards.putIfAbsent(projectId, created);
+        if (future == null) {
+            future = created;
+            try {
+                created.complete(compute(projectId));
+            } catch (RuntimeException e) {
+                boards.remove(projectId, created);
+                created.completeExceptionally(e);
+            }
+            // a change committed while we were loading, don't keep a stale board around
+            if (generations.get(projectId).get() != generation) {
+                boards.remove(projectId, created);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private BoardDto compute(Long projectId) {
+        Map<TaskStatus, List<BoardTaskDto>> byStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            byStatus.put(status, new ArrayList<>());
+        }
+        for (BoardTaskDto task : shards.onShardOf(projectId, () -> taskRepository.findBoardTasksByProjectId(projectId))) {
+            byStatus.get(task.getStatus()).add(task);
+        }
+
+        List<BoardColumnDto> columns = new ArrayList<>();
+        for (Map.Entry<TaskStatus, List<BoardTaskDto>> entry : byStatus.entrySet()) {
+            List<BoardTaskDto> tasks = entry.getValue();
+            tasks.sort(CARD_ORDER);
+            columns.add(new BoardColumnDto(entry.getKey(), tasks.size(), List.copyOf(tasks)));
+        }
+        return new BoardDto(projectId, List.copyOf(columns), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,361 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.exception.BadRequestException;
+import com.sophie.task_tracker.exception.ConflictException;
+import com.sophie.task_tracker.exception.NotFoundException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// dependency graph of one project, every task is a node and "blocker -> blocked" an edge.
+// Keeps a topological order up to date on every insert (Pearce-Kelly): an edge that already
+// agrees with the order is accepted without any search, otherwise only the nodes between the
+// two positions are visited. Also counts unfinished blockers per task, so the ready set is
+// maintained instead of searched. Not thread safe, DependencyGraphCache locks around it
+class DependencyGraph {
+
+    private static final Comparator<Node> BY_DUE_DATE = Comparator
+            .comparing((Node n) -> n.dueDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(n -> n.id);
+
+    private static final class Node {
+        final long id;
+        TaskStatus status;
+        LocalDate dueDate;
+        int ord;
+        int openBlockers;
+        final Set<Node> blocks = new LinkedHashSet<>();
+        final Set<Node> blockedBy = new LinkedHashSet<>();
+
+        Node(long id, TaskStatus status, LocalDate dueDate, int ord) {
+            this.id = id;
+            this.status = status;
+            this.dueDate = dueDate;
+            this.ord = ord;
+        }
+
+        boolean isOpen() {
+            return status != TaskStatus.DONE;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class Path {
+        private final List<Long> taskIds;
+        private final LocalDate deadline;   // latest date the first task can finish without a later one missing its due date
+    }
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final Set<Node> ready = new HashSet<>();
+    private int nextOrd;
+
+    boolean contains(Long taskId) {
+        return nodes.containsKey(taskId);
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    // new nodes go to the end of the order, they have no edges yet
+    void putTask(Long taskId, TaskStatus status, LocalDate dueDate) {
+        Node node = nodes.get(taskId);
+        if (node == null) {
+            node = new Node(taskId, status, dueDate, nextOrd++);
+            nodes.put(taskId, node);
+            refreshReady(node);
+            return;
+        }
+        node.dueDate = dueDate;
+        if (node.isOpen() != (status != TaskStatus.DONE)) {
+            int delta = status == TaskStatus.DONE ? -1 : 1;
+            for (Node blocked : node.blocks) {
+                blocked.openBlockers += delta;
+                refreshReady(blocked);
+            }
+        }
+        node.status = status;
+        refreshReady(node);
+    }
+
+    void removeTask(Long taskId) {
+        Node node = nodes.remove(taskId);
+        if (node == null) {
+            return;
+        }
+        for (Node blocked : node.blocks) {
+            blocked.blockedBy.remove(node);
+            if (node.isOpen()) {
+                blocked.openBlockers--;
+                refreshReady(blocked);
+            }
+        }
+        for (Node blocker : node.blockedBy) {
+            blocker.blocks.remove(node);
+        }
+        ready.remove(node);
+    }
+
+    // false if the edge already exists. Throws if it would close a cycle, the graph is unchanged then
+    boolean addDependency(Long blockerId, Long blockedId) {
+        Node blocker = require(blockerId);
+        Node blocked = require(blockedId);
+        if (blocker == blocked) {
+            throw new BadRequestException("A task cannot block itself");
+        }
+        if (blocker.blocks.contains(blocked)) {
+            return false;
+        }
+        if (blocked.ord < blocker.ord) {
+            reorder(blocker, blocked);
+        }
+        blocker.blocks.add(blocked);
+        blocked.blockedBy.add(blocker);
+        if (blocker.isOpen()) {
+            blocked.openBlockers++;
+            refreshReady(blocked);
+        }
+        return true;
+    }
+
+    // for loading: links without keeping the order, call sortAll() once all edges are in
+    void linkUnordered(Long blockerId, Long blockedId) {
+        Node blocker = nodes.get(blockerId);
+        Node blocked = nodes.get(blockedId);
+        if (blocker == null || blocked == null || !blocker.blocks.add(blocked)) {
+            return;
+        }
+        blocked.blockedBy.add(blocker);
+        if (blocker.isOpen()) {
+            blocked.openBlockers++;
+            refreshReady(blocked);
+        }
+    }
+
+    // one Kahn pass over the whole graph. A cycle can only come from two nodes linking at the
+    // same time, its tasks keep their old relative order at the end
+    void sortAll() {
+        Map<Node, Integer> pending = new HashMap<>();
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node node : nodes.values()) {
+            pending.put(node, node.blockedBy.size());
+            if (node.blockedBy.isEmpty()) {
+                queue.add(node);
+            }
+        }
+        int ord = 0;
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            node.ord = ord++;
+            pending.remove(node);
+            for (Node blocked : node.blocks) {
+                if (pending.merge(blocked, -1, Integer::sum) == 0) {
+                    queue.add(blocked);
+                }
+            }
+        }
+        List<Node> rest = new ArrayList<>(pending.keySet());
+        rest.sort(Comparator.comparingInt(n -> n.ord));
+        for (Node node : rest) {
+            node.ord = ord++;
+        }
+        nextOrd = ord;
+    }
+
+    boolean removeDependency(Long blockerId, Long blockedId) {
+        Node blocker = nodes.get(blockerId);
+        Node blocked = nodes.get(blockedId);
+        if (blocker == null || blocked == null || !blocker.blocks.remove(blocked)) {
+            return false;
+        }
+        blocked.blockedBy.remove(blocker);
+        if (blocker.isOpen()) {
+            blocked.openBlockers--;
+            refreshReady(blocked);
+        }
+        return true;
+    }
+
+    List<Long> getBlockers(Long taskId) {
+        return ids(require(taskId).blockedBy);
+    }
+
+    List<Long> getBlocked(Long taskId) {
+        return ids(require(taskId).blocks);
+    }
+
+    // task ids in topological order, every blocker before the tasks it blocks
+    List<Long> getOrder() {
+        List<Node> sorted = new ArrayList<>(nodes.values());
+        sorted.sort(Comparator.comparingInt(n -> n.ord));
+        return ids(sorted);
+    }
+
+    // TODO tasks with no unfinished blocker, earliest due date first. limit <= 0 means all
+    List<Long> getReady(int limit) {
+        List<Node> sorted = new ArrayList<>(ready);
+        sorted.sort(BY_DUE_DATE);
+        if (limit > 0 && sorted.size() > limit) {
+            sorted = sorted.subList(0, limit);
+        }
+        return ids(sorted);
+    }
+
+    // longest chain of unfinished tasks. Without estimates every task counts as one step; ties go
+    // to the chain with the earliest deadline, where a task's deadline is its own due date or the
+    // deadline of anything it blocks, whichever is earlier. One pass each way over the order
+    Path getCriticalPath() {
+        List<Node> order = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            if (node.isOpen()) {
+                order.add(node);
+            }
+        }
+        order.sort(Comparator.comparingInt(n -> n.ord));
+
+        Map<Node, LocalDate> deadlines = new HashMap<>();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            Node node = order.get(i);
+            LocalDate deadline = node.dueDate;
+            for (Node blocked : node.blocks) {
+                deadline = earlier(deadline, deadlines.get(blocked));
+            }
+            if (deadline != null) {
+                deadlines.put(node, deadline);
+            }
+        }
+
+        Map<Node, Integer> lengths = new HashMap<>();
+        Map<Node, Node> previous = new HashMap<>();
+        Node end = null;
+        for (Node node : order) {
+            int length = 1;
+            for (Node blocker : node.blockedBy) {
+                Integer blockerLength = lengths.get(blocker);   // null for DONE blockers
+                if (blockerLength != null && blockerLength + 1 > length) {
+                    length = blockerLength + 1;
+                    previous.put(node, blocker);
+                }
+            }
+            lengths.put(node, length);
+            if (end == null || length > lengths.get(end)
+                    || (length == lengths.get(end) && isEarlier(deadlines.get(node), deadlines.get(end)))) {
+                end = node;
+            }
+        }
+        if (end == null) {
+            return new Path(List.of(), null);
+        }
+
+        Deque<Long> path = new ArrayDeque<>();
+        for (Node node = end; node != null; node = previous.get(node)) {
+            path.addFirst(node.id);
+        }
+        // deadlines only get earlier walking back along a chain
+        return new Path(new ArrayList<>(path), deadlines.get(nodes.get(path.getFirst())));
+    }
+
+    // blocker must move before blocked. Collect what blocked reaches up to the blocker's position
+    // and what reaches the blocker down to blocked's position, then hand their positions out again
+    // with the blocker's side first. Iterative so long chains can't overflow the stack
+    private void reorder(Node blocker, Node blocked) {
+        List<Node> forward = new ArrayList<>();
+        Set<Node> seen = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(blocked);
+        seen.add(blocked);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            forward.add(node);
+            for (Node next : node.blocks) {
+                if (next == blocker) {
+                    throw new ConflictException("Task " + blocker.id + " already depends on task " + blocked.id
+                            + ", the dependency would create a cycle");
+                }
+                if (next.ord < blocker.ord && seen.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+
+        List<Node> backward = new ArrayList<>();
+        stack.push(blocker);
+        seen.add(blocker);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            backward.add(node);
+            for (Node prev : node.blockedBy) {
+                if (prev.ord > blocked.ord && seen.add(prev)) {
+                    stack.push(prev);
+                }
+            }
+        }
+
+        Comparator<Node> byOrd = Comparator.comparingInt(n -> n.ord);
+        forward.sort(byOrd);
+        backward.sort(byOrd);
+        int[] slots = new int[forward.size() + backward.size()];
+        int i = 0;
+        for (Node node : backward) {
+            slots[i++] = node.ord;
+        }
+        for (Node node : forward) {
+            slots[i++] = node.ord;
+        }
+        Arrays.sort(slots);
+        i = 0;
+        for (Node node : backward) {
+            node.ord = slots[i++];
+        }
+        for (Node node : forward) {
+            node.ord = slots[i++];
+        }
+    }
+
+    private void refreshReady(Node node) {
+        if (node.status == TaskStatus.TODO && node.openBlockers == 0) {
+            ready.add(node);
+        } else {
+            ready.remove(node);
+        }
+    }
+
+    private Node require(Long taskId) {
+        Node node = nodes.get(taskId);
+        if (node == null) {
+            throw new NotFoundException("Task", taskId);
+        }
+        return node;
+    }
+
+    private static List<Long> ids(Iterable<Node> source) {
+        List<Long> ids = new ArrayList<>();
+        for (Node node : source) {
+            ids.add(node.id);
+        }
+        return ids;
+    }
+
+    private static LocalDate earlier(LocalDate a, LocalDate b) {
+        return isEarlier(b, a) ? b : a;
+    }
+
+    // null means no date, later than any date
+    private static boolean isEarlier(LocalDate a, LocalDate b) {
+        return a != null && (b == null || a.isBefore(b));
+    }
+}
@@ -0,0 +1,139 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.cluster.ChangeNotification;
+import com.sophie.task_tracker.cluster.RemoteChangeEvent;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TasksRemovedEvent;
+import com.sophie.task_tracker.repositories.TaskDependencyRepository;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// one dependency graph per project, loaded on first use and then kept current from task events
+// instead of being reloaded. Every access holds the graph's lock, so reads and writes of one
+// project are serialized and different projects don't wait on each other
+@Component
+@RequiredArgsConstructor
+public class DependencyGraphCache {
+
+    private final TaskRepository taskRepository;
+    private final TaskDependencyRepository taskDependencyRepository;
+    private final Shards shards;
+
+    @Value("${app.dependencies.cache-size:1000}")
+    private int maxProjects;
+
+    private final Map<Long, CompletableFuture<DependencyGraph>> graphs = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    <T> T withGraph(Long projectId, Function<DependencyGraph, T> action) {
+        DependencyGraph graph = getGraph(projectId);
+        synchronized (graph) {
+            return action.apply(graph);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        Long projectId = event.getProjectId();
+        generations.computeIfAbsent(projectId, id -> new AtomicLong()).incrementAndGet();
+        CompletableFuture<DependencyGraph> future = graphs.get(projectId);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return;     // a graph still loading is dropped by the generation check instead
+        }
+        DependencyGraph graph = future.join();
+        synchronized (graph) {
+            if (event.getAfter() == null) {
+                graph.removeTask(event.getTaskId());
+            } else {
+                graph.putTask(event.getTaskId(), event.getAfter().getStatus(), event.getAfter().getDueDate());
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksRemoved(TasksRemovedEvent event) {
+        if (event.getProjectId() != null) {
+            invalidate(event.getProjectId());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        ChangeNotification notification = event.getNotification();
+        switch (notification.getType()) {
+            case PROJECT_TASKS, PROJECT_DEPENDENCIES -> invalidate(notification.getId());
+            case ALL_TASKS -> invalidateAll();
+            default -> { }
+        }
+    }
+
+    public void invalidate(Long projectId) {
+        generations.computeIfAbsent(projectId, id -> new AtomicLong()).incrementAndGet();
+        graphs.remove(projectId);
+    }
+
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        graphs.clear();
+    }
+
+    private DependencyGraph getGraph(Long projectId) {
+        long generation = generations.computeIfAbsent(projectId, id -> new AtomicLong()).get();
+        if (graphs.size() >= maxProjects && !graphs.containsKey(projectId)) {
+            graphs.clear();     // crude bound, same as the board cache
+        }
+        CompletableFuture<DependencyGraph> created = new CompletableFuture<>();
+        CompletableFuture<DependencyGraph> future = graphs.putIfAbsent(projectId, created);
+        if (future == null) {
+            future = created;
+            try {
+                created.complete(load(projectId));
+            } catch (RuntimeException e) {
+                graphs.remove(projectId, created);
+                created.completeExceptionally(e);
+            }
+            // a task changed while we were loading and its event found nothing to update
+            if (generations.get(projectId).get() != generation) {
+                graphs.remove(projectId, created);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    // two scalar queries, no entities: tens of thousands of tasks load in one round trip each
+    private DependencyGraph load(Long projectId) {
+        return shards.onShardOf(projectId, () -> loadFromShard(projectId));
+    }
+
+    private DependencyGraph loadFromShard(Long projectId) {
+        DependencyGraph graph = new DependencyGraph();
+        for (Object[] row : taskRepository.findGraphNodesByProjectId(projectId)) {
+            graph.putTask((Long) row[0], (TaskStatus) row[1], (LocalDate) row[2]);
+        }
+        for (Object[] row : taskDependencyRepository.findEdgesByProjectId(projectId)) {
+            graph.linkUnordered((Long) row[0], (Long) row[1]);
+        }
+        graph.sortAll();
+        return graph;
+    }
+}
@@ -0,0 +1,110 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// bitmap index of one project. Every task gets a dense slot number, and every label, status and
+// priority a BitSet of slots, so a boolean filter is a few word-wise and/or/andNot over
+// (tasks / 64) longs. Slots of deleted tasks are cleared but not reused; the cache rebuilds an
+// index once too many are dead. Not thread safe, LabelIndexCache locks around it
+class LabelIndex {
+
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final List<Long> taskIds = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, BitSet> labels = new HashMap<>();
+    private final Map<TaskStatus, BitSet> statuses = new EnumMap<>(TaskStatus.class);
+    private final Map<TaskPriority, BitSet> priorities = new EnumMap<>(TaskPriority.class);
+
+    LabelIndex() {
+        for (TaskStatus status : TaskStatus.values()) {
+            statuses.put(status, new BitSet());
+        }
+        for (TaskPriority priority : TaskPriority.values()) {
+            priorities.put(priority, new BitSet());
+        }
+    }
+
+    void putTask(Long taskId, TaskStatus status, TaskPriority priority) {
+        int slot = slots.computeIfAbsent(taskId, id -> {
+            taskIds.add(id);
+            return taskIds.size() - 1;
+        });
+        live.set(slot);
+        statuses.values().forEach(bits -> bits.clear(slot));
+        priorities.values().forEach(bits -> bits.clear(slot));
+        statuses.get(status).set(slot);
+        priorities.get(priority).set(slot);
+    }
+
+    void removeTask(Long taskId) {
+        Integer slot = slots.remove(taskId);
+        if (slot == null) {
+            return;
+        }
+        live.clear(slot);
+        labels.values().forEach(bits -> bits.clear(slot));
+        statuses.values().forEach(bits -> bits.clear(slot));
+        priorities.values().forEach(bits -> bits.clear(slot));
+    }
+
+    void addLabel(Long taskId, String label) {
+        Integer slot = slots.get(taskId);
+        if (slot != null) {
+            labels.computeIfAbsent(label, l -> new BitSet()).set(slot);
+        }
+    }
+
+    void removeLabel(Long taskId, String label) {
+        Integer slot = slots.get(taskId);
+        BitSet bits = labels.get(label);
+        if (slot != null && bits != null) {
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                labels.remove(label);
+            }
+        }
+    }
+
+    // the returned sets are copies, callers combine them in place
+    BitSet all() {
+        return (BitSet) live.clone();
+    }
+
+    BitSet label(String label) {
+        BitSet bits = labels.get(label);
+        return bits != null ? (BitSet) bits.clone() : new BitSet();
+    }
+
+    BitSet status(TaskStatus status) {
+        return (BitSet) statuses.get(status).clone();
+    }
+
+    BitSet priority(TaskPriority priority) {
+        return (BitSet) priorities.get(priority).clone();
+    }
+
+    // task ids of the set bits in slot order, which is roughly creation order. limit <= 0 means all
+    List<Long> taskIds(BitSet bits, int limit) {
+        List<Long> ids = new ArrayList<>();
+        for (int slot = bits.nextSetBit(0); slot >= 0; slot = bits.nextSetBit(slot + 1)) {
+            if (limit > 0 && ids.size() == limit) {
+                break;
+            }
+            ids.add(taskIds.get(slot));
+        }
+        return ids;
+    }
+
+    // share of slots that belong to deleted tasks
+    double deadRatio() {
+        return taskIds.isEmpty() ? 0 : 1 - (double) slots.size() / taskIds.size();
+    }
+}
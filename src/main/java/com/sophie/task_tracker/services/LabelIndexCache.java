@@ -0,0 +1,171 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.cluster.ChangeNotification;
+import com.sophie.task_tracker.cluster.RemoteChangeEvent;
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TaskLabelsChangedEvent;
+import com.sophie.task_tracker.events.TasksRemovedEvent;
+import com.sophie.task_tracker.repositories.ProjectRepository;
+import com.sophie.task_tracker.repositories.TaskLabelRepository;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// label/status/priority bitmaps of every project, built at startup and kept current from task and
+// label events. Same loading scheme as DependencyGraphCache
+@Component
+@RequiredArgsConstructor
+public class LabelIndexCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LabelIndexCache.class);
+
+    private static final double MAX_DEAD_RATIO = 0.5;
+
+    private final TaskRepository taskRepository;
+    private final TaskLabelRepository taskLabelRepository;
+    private final ProjectRepository projectRepository;
+    private final Shards shards;
+
+    private final Map<Long, CompletableFuture<LabelIndex>> indexes = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        long start = System.currentTimeMillis();
+        int projects = 0;
+        for (Long projectId : shards.queryAll(projectRepository::findAllIds)) {
+            getIndex(projectId);
+            projects++;
+        }
+        log.info("Built label indexes of {} projects in {} ms", projects, System.currentTimeMillis() - start);
+    }
+
+    <T> T withIndex(Long projectId, Function<LabelIndex, T> action) {
+        LabelIndex index = getIndex(projectId);
+        synchronized (index) {
+            return action.apply(index);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        update(event.getProjectId(), index -> {
+            if (event.getAfter() == null) {
+                index.removeTask(event.getTaskId());
+            } else {
+                index.putTask(event.getTaskId(), event.getAfter().getStatus(), event.getAfter().getPriority());
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLabelsChanged(TaskLabelsChangedEvent event) {
+        update(event.getProjectId(), index -> {
+            if (event.isAdded()) {
+                index.addLabel(event.getTaskId(), event.getLabel());
+            } else {
+                index.removeLabel(event.getTaskId(), event.getLabel());
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksRemoved(TasksRemovedEvent event) {
+        if (event.getProjectId() != null) {
+            invalidate(event.getProjectId());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        ChangeNotification notification = event.getNotification();
+        switch (notification.getType()) {
+            case PROJECT_TASKS, PROJECT_LABELS -> invalidate(notification.getId());
+            case ALL_TASKS -> invalidateAll();
+            default -> { }
+        }
+    }
+
+    public void invalidate(Long projectId) {
+        generations.computeIfAbsent(projectId, id -> new AtomicLong()).incrementAndGet();
+        indexes.remove(projectId);
+    }
+
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        indexes.clear();
+    }
+
+    private void update(Long projectId, Consumer<LabelIndex> change) {
+        generations.computeIfAbsent(projectId, id -> new AtomicLong()).incrementAndGet();
+        CompletableFuture<LabelIndex> future = indexes.get(projectId);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return;     // built on the next query
+        }
+        LabelIndex index = future.join();
+        boolean rebuild;
+        synchronized (index) {
+            change.accept(index);
+            rebuild = index.deadRatio() > MAX_DEAD_RATIO;
+        }
+        if (rebuild) {
+            indexes.remove(projectId, future);
+        }
+    }
+
+    private LabelIndex getIndex(Long projectId) {
+        long generation = generations.computeIfAbsent(projectId, id -> new AtomicLong()).get();
+        CompletableFuture<LabelIndex> created = new CompletableFuture<>();
+        CompletableFuture<LabelIndex> future = indexes.putIfAbsent(projectId, created);
+        if (future == null) {
+            future = created;
+            try {
+                created.complete(load(projectId));
+            } catch (RuntimeException e) {
+                indexes.remove(projectId, created);
+                created.completeExceptionally(e);
+            }
+            if (generations.get(projectId).get() != generation) {
+                indexes.remove(projectId, created);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private LabelIndex load(Long projectId) {
+        return shards.onShardOf(projectId, () -> loadFromShard(projectId));
+    }
+
+    private LabelIndex loadFromShard(Long projectId) {
+        LabelIndex index = new LabelIndex();
+        for (Object[] row : taskRepository.findIndexRowsByProjectId(projectId)) {
+            index.putTask((Long) row[0], (TaskStatus) row[1], (TaskPriority) row[2]);
+        }
+        for (Object[] row : taskLabelRepository.findPairsByProjectId(projectId)) {
+            index.addLabel((Long) row[0], (String) row[1]);
+        }
+        return index;
+    }
+}
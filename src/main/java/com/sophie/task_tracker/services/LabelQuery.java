@@ -0,0 +1,214 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+// boolean task filter, e.g. "label:backend AND label:urgent AND NOT label:blocked AND status:TODO".
+// Terms are label:x, status:X and priority:X; NOT binds tighter than AND, AND tighter than OR,
+// parentheses group. Parsed once, then evaluated against a LabelIndex as bitmap operations
+abstract class LabelQuery {
+
+    abstract BitSet evaluate(LabelIndex index);
+
+    static LabelQuery parse(String query) {
+        if (query == null || query.isBlank()) {
+            return new All();
+        }
+        Parser parser = new Parser(tokenize(query));
+        LabelQuery result = parser.parseOr();
+        if (parser.position < parser.tokens.size()) {
+            throw new BadRequestException("Unexpected '" + parser.tokens.get(parser.position) + "' in query");
+        }
+        return result;
+    }
+
+    private static List<String> tokenize(String query) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (char c : query.toCharArray()) {
+            if (c == '(' || c == ')' || Character.isWhitespace(c)) {
+                if (current.length() > 0) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                }
+                if (c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private static class Parser {
+        private final List<String> tokens;
+        private int position;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        LabelQuery parseOr() {
+            LabelQuery left = parseAnd();
+            while (accept("OR")) {
+                left = new Or(left, parseAnd());
+            }
+            return left;
+        }
+
+        LabelQuery parseAnd() {
+            LabelQuery left = parseNot();
+            while (accept("AND")) {
+                left = new And(left, parseNot());
+            }
+            return left;
+        }
+
+        LabelQuery parseNot() {
+            if (accept("NOT")) {
+                return new Not(parseNot());
+            }
+            if (accept("(")) {
+                LabelQuery inner = parseOr();
+                if (!accept(")")) {
+                    throw new BadRequestException("Missing ')' in query");
+                }
+                return inner;
+            }
+            if (position >= tokens.size()) {
+                throw new BadRequestException("Query ends too early");
+            }
+            return term(tokens.get(position++));
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private LabelQuery term(String token) {
+            int colon = token.indexOf(':');
+            if (colon <= 0 || colon == token.length() - 1) {
+                throw new BadRequestException("Invalid query term '" + token + "', expected label:, status: or priority:");
+            }
+            String field = token.substring(0, colon).toLowerCase(Locale.ROOT);
+            String value = token.substring(colon + 1);
+            try {
+                return switch (field) {
+                    case "label" -> new Label(value.toLowerCase(Locale.ROOT));
+                    case "status" -> new Status(TaskStatus.valueOf(value.toUpperCase(Locale.ROOT)));
+                    case "priority" -> new Priority(TaskPriority.valueOf(value.toUpperCase(Locale.ROOT)));
+                    default -> throw new BadRequestException("Unknown query field '" + field + "'");
+                };
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Invalid value '" + value + "' for " + field);
+            }
+        }
+    }
+
+    private static class All extends LabelQuery {
+        BitSet evaluate(LabelIndex index) {
+            return index.all();
+        }
+    }
+
+    private static class Label extends LabelQuery {
+        private final String label;
+
+        Label(String label) {
+            this.label = label;
+        }
+
+        BitSet evaluate(LabelIndex index) {
+            return index.label(label);
+        }
+    }
+
+    private static class Status extends LabelQuery {
+        private final TaskStatus status;
+
+        Status(TaskStatus status) {
+            this.status = status;
+        }
+
+        BitSet evaluate(LabelIndex index) {
+            return index.status(status);
+        }
+    }
+
+    private static class Priority extends LabelQuery {
+        private final TaskPriority priority;
+
+        Priority(TaskPriority priority) {
+            this.priority = priority;
+        }
+
+        BitSet evaluate(LabelIndex index) {
+            return index.priority(priority);
+        }
+    }
+
+    private static class And extends LabelQuery {
+        private final LabelQuery left;
+        private final LabelQuery right;
+
+        And(LabelQuery left, LabelQuery right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        BitSet evaluate(LabelIndex index) {
+            BitSet bits = left.evaluate(index);
+            // "a AND NOT b" without building the complement of b
+            if (right instanceof Not not) {
+                bits.andNot(not.inner.evaluate(index));
+            } else {
+                bits.and(right.evaluate(index));
+            }
+            return bits;
+        }
+    }
+
+    private static class Or extends LabelQuery {
+        private final LabelQuery left;
+        private final LabelQuery right;
+
+        Or(LabelQuery left, LabelQuery right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        BitSet evaluate(LabelIndex index) {
+            BitSet bits = left.evaluate(index);
+            bits.or(right.evaluate(index));
+            return bits;
+        }
+    }
+
+    private static class Not extends LabelQuery {
+        private final LabelQuery inner;
+
+        Not(LabelQuery inner) {
+            this.inner = inner;
+        }
+
+        BitSet evaluate(LabelIndex index) {
+            BitSet bits = index.all();
+            bits.andNot(inner.evaluate(index));
+            return bits;
+        }
+    }
+}
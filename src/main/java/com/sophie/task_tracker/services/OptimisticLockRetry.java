@@ -0,0 +1,53 @@
+package com.sophie.task_tracker.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// runs updates that can lose an optimistic lock race and counts every conflict,
+// each attempt must get its own transaction so call this from outside @Transactional code
+@Component
+@RequiredArgsConstructor
+public class OptimisticLockRetry {
+
+    public static final String CONFLICT_METRIC = "tasktracker.optimistic.conflicts";
+    private static final int RETRY_ATTEMPTS = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticLockRetry.class);
+
+    private final MeterRegistry meterRegistry;
+
+    // for commutative changes (e.g. status only) where re-applying on the newer row is safe
+    public <T> T retry(String entity, String operation, Supplier<T> action) {
+        return run(entity, operation, RETRY_ATTEMPTS, action);
+    }
+
+    // for full updates, a conflict goes straight back to the client as 409
+    public <T> T once(String entity, String operation, Supplier<T> action) {
+        return run(entity, operation, 1, action);
+    }
+
+    public void recordConflict(String entity, String operation, String outcome) {
+        meterRegistry.counter(CONFLICT_METRIC, "entity", entity, "operation", operation, "outcome", outcome).increment();
+    }
+
+    private <T> T run(String entity, String operation, int maxAttempts, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                boolean giveUp = attempt >= maxAttempts;
+                recordConflict(entity, operation, giveUp ? "rejected" : "retried");
+                log.debug("Optimistic lock conflict on {} {} (attempt {})", entity, e.getIdentifier(), attempt);
+                if (giveUp) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
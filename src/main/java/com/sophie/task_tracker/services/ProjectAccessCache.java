@@ -0,0 +1,146 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.cluster.ChangeNotification;
+import com.sophie.task_tracker.cluster.RemoteChangeEvent;
+import com.sophie.task_tracker.enums.ProjectMemberRole;
+import com.sophie.task_tracker.events.EntityChangedEvent;
+import com.sophie.task_tracker.events.ProjectAccessChangedEvent;
+import com.sophie.task_tracker.repositories.ProjectMemberRepository;
+import com.sophie.task_tracker.repositories.ProjectRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// per user, the ids of the projects they own, edit or view, as sorted long arrays. Access checks
+// are a binary search instead of a join, and a user in thousands of projects costs a few KB.
+// Built on first use (login warms it) and dropped when the user's access changes
+@Component
+@RequiredArgsConstructor
+public class ProjectAccessCache {
+
+    private final ProjectRepository projectRepository;
+    private final ProjectMemberRepository projectMemberRepository;
+    private final Shards shards;
+
+    @Value("${app.access.cache-size:100000}")
+    private int maxUsers;
+
+    private final Map<Long, AccessSet> sets = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private static final class AccessSet {
+        private final long[] owned;
+        private final long[] editable;  // owned and EDITOR
+        private final long[] viewable;  // everything
+
+        private AccessSet(long[] owned, long[] editable, long[] viewable) {
+            this.owned = owned;
+            this.editable = editable;
+            this.viewable = viewable;
+        }
+    }
+
+    // admins aren't in here, callers check the role first
+    public boolean canView(Long userId, Long projectId) {
+        return contains(get(userId).viewable, projectId);
+    }
+
+    public boolean canEdit(Long userId, Long projectId) {
+        return contains(get(userId).editable, projectId);
+    }
+
+    public boolean isOwner(Long userId, Long projectId) {
+        return contains(get(userId).owned, projectId);
+    }
+
+    public void preload(Long userId) {
+        get(userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessChanged(ProjectAccessChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getType() == EntityChangedEvent.Type.USER && event.isDeleted()) {
+            invalidate(event.getId());
+        }
+    }
+
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        ChangeNotification notification = event.getNotification();
+        if (notification.getType() == ChangeNotification.Type.USER_ACCESS
+                || notification.getType() == ChangeNotification.Type.USER) {
+            invalidate(notification.getId());
+        }
+    }
+
+    public void invalidate(Long userId) {
+        generations.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+        sets.remove(userId);
+    }
+
+    private AccessSet get(Long userId) {
+        AccessSet set = sets.get(userId);
+        if (set != null) {
+            return set;
+        }
+        long generation = generations.computeIfAbsent(userId, id -> new AtomicLong()).get();
+        set = load(userId);
+        if (sets.size() >= maxUsers) {
+            sets.clear();   // crude bound, a set is two indexed queries away
+        }
+        sets.put(userId, set);
+        // access changed while we were loading, don't keep a stale set around
+        if (generations.get(userId).get() != generation) {
+            sets.remove(userId, set);
+        }
+        return set;
+    }
+
+    private AccessSet load(Long userId) {
+        // a user's projects can be on any shard
+        long[] owned = toSortedArray(shards.queryAll(() -> projectRepository.findIdsByOwnerId(userId)));
+        List<Object[]> memberships = shards.queryAll(() -> projectMemberRepository.findProjectRolesByUserId(userId));
+        long[] editable = Arrays.copyOf(owned, owned.length + memberships.size());
+        long[] viewable = Arrays.copyOf(owned, owned.length + memberships.size());
+        int editors = owned.length;
+        int viewers = owned.length;
+        for (Object[] row : memberships) {
+            long projectId = (Long) row[0];
+            if (row[1] == ProjectMemberRole.EDITOR) {
+                editable[editors++] = projectId;
+            }
+            viewable[viewers++] = projectId;
+        }
+        editable = Arrays.copyOf(editable, editors);
+        Arrays.sort(editable);
+        Arrays.sort(viewable);
+        return new AccessSet(owned, editable, viewable);
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        long[] array = new long[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static boolean contains(long[] sorted, Long projectId) {
+        return projectId != null && Arrays.binarySearch(sorted, projectId) >= 0;
+    }
+}
@@ -0,0 +1,69 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.entities.Task;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.exception.ForbiddenException;
+import com.sophie.task_tracker.exception.NotFoundException;
+import com.sophie.task_tracker.repositories.ProjectRepository;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+// the project and task access rules every service checks against: admins everywhere, the assignee
+// on their own task, everyone else by the project's access set in ProjectAccessCache (viewers read,
+// editors and the owner also write). Checking a project or task also pins the transaction to its shard
+@Component
+@RequiredArgsConstructor
+public class ProjectAccessGuard {
+
+    private final ProjectAccessCache projectAccess;
+    private final ProjectRepository projectRepository;
+    private final TaskRepository taskRepository;
+    private final Shards shards;
+
+    public void checkProject(Long projectId, Long userId, Role userRole) {
+        checkProject(projectId, userId, userRole, false);
+    }
+
+    // no query when access is granted; admins see every project and only need it to exist
+    public void checkProject(Long projectId, Long userId, Role userRole, boolean write) {
+        shards.pin(projectId);
+        if (userRole != Role.ADMIN && (write ? projectAccess.canEdit(userId, projectId) : projectAccess.canView(userId, projectId))) {
+            return;
+        }
+        if (!projectRepository.existsById(projectId)) {
+            throw new NotFoundException("Project", projectId);
+        }
+        if (userRole != Role.ADMIN) {
+            throw ForbiddenException.PROJECT;
+        }
+    }
+
+    public Task getTask(Long taskId, Long userId, Role userRole, boolean write) {
+        return getTask(taskId, userId, userRole, write, taskRepository::findById);
+    }
+
+    // for callers that need the task loaded with more than the plain findById gives
+    public Task getTask(Long taskId, Long userId, Role userRole, boolean write, Function<Long, Optional<Task>> loader) {
+        shards.pin(taskId);
+        Task task = loader.apply(taskId)
+                .orElseThrow(() -> new NotFoundException("Task", taskId));
+        Long assignedUserId = task.getAssignedUser() != null ? task.getAssignedUser().getId() : null;
+        if (!canAccessTask(task.getProject().getId(), assignedUserId, userId, userRole, write)) {
+            throw ForbiddenException.TASK;
+        }
+        return task;
+    }
+
+    // for rows read without the entity, e.g. a batch of (id, project, assignee)
+    public boolean canAccessTask(Long projectId, Long assignedUserId, Long userId, Role userRole, boolean write) {
+        if (userRole == Role.ADMIN || userId.equals(assignedUserId)) {
+            return true;
+        }
+        return write ? projectAccess.canEdit(userId, projectId) : projectAccess.canView(userId, projectId);
+    }
+}
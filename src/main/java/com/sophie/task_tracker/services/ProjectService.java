@@ -1,18 +1,38 @@
 package com.sophie.task_tracker.services;
 
+import com.sophie.task_tracker.dto.BoardDto;
 import com.sophie.task_tracker.dto.ProjectCreateDto;
 import com.sophie.task_tracker.dto.ProjectDto;
+import com.sophie.task_tracker.dto.ProjectMemberDto;
+import com.sophie.task_tracker.dto.ProjectOverviewDto;
+import com.sophie.task_tracker.dto.TaskCountsDto;
 import com.sophie.task_tracker.entities.Project;
+import com.sophie.task_tracker.entities.ProjectMember;
 import com.sophie.task_tracker.entities.User;
+import com.sophie.task_tracker.enums.ProjectMemberRole;
 import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.events.EntityChangedEvent;
+import com.sophie.task_tracker.events.ProjectAccessChangedEvent;
+import com.sophie.task_tracker.events.TasksRemovedEvent;
+import com.sophie.task_tracker.exception.ConflictException;
+import com.sophie.task_tracker.exception.ForbiddenException;
+import com.sophie.task_tracker.exception.NotFoundException;
+import com.sophie.task_tracker.exception.VersionMismatchException;
 import com.sophie.task_tracker.mappers.ProjectMapper;
+import com.sophie.task_tracker.repositories.ProjectMemberRepository;
 import com.sophie.task_tracker.repositories.ProjectRepository;
+import com.sophie.task_tracker.repositories.TaskActivityRepository;
 import com.sophie.task_tracker.repositories.UserRepository;
+import com.sophie.task_tracker.sharding.Shards;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 @Service
@@ -20,17 +40,29 @@ import java.util.List;
 @Transactional
 public class ProjectService {
 
+    private static final int MAX_PAGE_SIZE = 2000;
+
     private final ProjectRepository projectRepository;
+    private final TaskActivityRepository taskActivityRepository;
     private final UserRepository userRepository;
     private final ProjectMapper projectMapper;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final TaskCounterService taskCounterService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BoardCache boardCache;
+    private final ProjectMemberRepository projectMemberRepository;
+    private final ProjectAccessCache projectAccess;
+    private final ProjectAccessGuard accessGuard;
+    private final Shards shards;
 
     public ProjectDto createProject(ProjectCreateDto projectCreateDto, Long ownerId) {
+        shards.pinNew();
         User owner = userRepository.findById(ownerId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + ownerId));
+                .orElseThrow(() -> new NotFoundException("User", ownerId));
 
         // Check if project name already exists for this owner
-        if (projectRepository.existsByNameAndOwner(projectCreateDto.getName(), owner)) {
-            throw new RuntimeException("Project with name '" + projectCreateDto.getName() + "' already exists for this user");
+        if (nameTaken(projectCreateDto.getName(), owner)) {
+            throw new ConflictException("Project with name '" + projectCreateDto.getName() + "' already exists for this user");
         }
 
         Project project = new Project();
@@ -39,73 +71,141 @@ public class ProjectService {
         project.setOwner(owner);
 
         Project savedProject = projectRepository.save(project);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Type.PROJECT, savedProject.getId(), false));
+        eventPublisher.publishEvent(new ProjectAccessChangedEvent(savedProject.getId(), ownerId));
         return projectMapper.toDto(savedProject);
     }
 
     public ProjectDto getProjectById(Long projectId, Long userId, Role userRole) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found with id: " + projectId));
-
-        if (!hasAccessToProject(project, userId, userRole)) {
-            throw new RuntimeException("Access denied to project");
-        }
-
+        accessGuard.checkProject(projectId, userId, userRole);
+        Project project = projectRepository.findWithOwnerById(projectId)
+                .orElseThrow(() -> new NotFoundException("Project", projectId));
         return projectMapper.toDto(project);
     }
 
 
 
-    public List<ProjectDto> getAllProjects(Long userId, Role userRole) {
-        List<Project> projects;
-        
-        if (userRole == Role.ADMIN) {
-            // admin can see all projects
-            projects = projectRepository.findAll();
-        } else {
-            // others can only see their own
-            projects = projectRepository.findByOwnerId(userId);
+    // two statements per page: the page of ids, then the rows with task counts of just those
+    @Transactional(readOnly = true)
+    public List<ProjectOverviewDto> getAllProjects(int page, int size, Long userId, Role userRole) {
+        // admin can see all projects, others the ones they own or are a member of
+        Long memberId = userRole == Role.ADMIN ? null : userId;
+        List<Long> ids = shards.queryPage(PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE)),
+                Comparator.naturalOrder(), p -> projectRepository.findOverviewIds(memberId, p));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
-        
-        return projects.stream()
-                .map(projectMapper::toDto)
-                .toList();
+        List<ProjectOverviewDto> overviews = new ArrayList<>(ids.size());
+        shards.onEachShard(true, shard -> {
+            List<Long> onShard = shards.idsOn(shard, ids);
+            return onShard.isEmpty() ? List.<ProjectOverviewDto>of() : projectRepository.findOverviews(onShard);
+        }).forEach(overviews::addAll);
+        overviews.sort(Comparator.comparing(ProjectOverviewDto::getId));
+        return overviews;
     }
 
     public ProjectDto updateProject(Long projectId, ProjectCreateDto projectUpdateDto, Long userId, Role userRole) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found with id: " + projectId));
+        return updateProject(projectId, projectUpdateDto, userId, userRole, null);
+    }
+
+    // expectedVersion comes from If-Match, null means the client didn't send one
+    public ProjectDto updateProject(Long projectId, ProjectCreateDto projectUpdateDto, Long userId, Role userRole, Long expectedVersion) {
+        Project project = getOwnedProject(projectId, userId, userRole);
 
-        if (!hasAccessToProject(project, userId, userRole)) {
-            throw new RuntimeException("Access denied to project");
+        if (expectedVersion != null && !expectedVersion.equals(project.getVersion())) {
+            optimisticLockRetry.recordConflict("project", "update", "precondition_failed");
+            throw new VersionMismatchException("Project", projectId, expectedVersion, project.getVersion());
         }
 
         if (!project.getName().equals(projectUpdateDto.getName()) &&
-            projectRepository.existsByNameAndOwner(projectUpdateDto.getName(), project.getOwner())) {
-            throw new RuntimeException("Project with name '" + projectUpdateDto.getName() + "' already exists for this user");
+            nameTaken(projectUpdateDto.getName(), project.getOwner())) {
+            throw new ConflictException("Project with name '" + projectUpdateDto.getName() + "' already exists for this user");
         }
 
         project.setName(projectUpdateDto.getName());
         project.setDescription(projectUpdateDto.getDescription());
 
-        Project updatedProject = projectRepository.save(project);
+        // flush now so a lost race fails here and the dto carries the new version
+        Project updatedProject = projectRepository.saveAndFlush(project);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Type.PROJECT, projectId, false));
         return projectMapper.toDto(updatedProject);
     }
 
     public void deleteProject(Long projectId, Long userId, Role userRole) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found with id: " + projectId));
+        Project project = getOwnedProject(projectId, userId, userRole);
+        List<Long> memberIds = projectMemberRepository.findUserIdsByProjectId(projectId);
 
-        if (!hasAccessToProject(project, userId, userRole)) {
-            throw new RuntimeException("Access denied to project");
+        taskActivityRepository.deleteByProjectId(projectId);
+        projectRepository.delete(project);
+        // tasks and memberships go with the project
+        eventPublisher.publishEvent(new TasksRemovedEvent(projectId));
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Type.PROJECT, projectId, true));
+        eventPublisher.publishEvent(new ProjectAccessChangedEvent(projectId, project.getOwner().getId()));
+        memberIds.forEach(memberId -> eventPublisher.publishEvent(new ProjectAccessChangedEvent(projectId, memberId)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProjectMemberDto> getMembers(Long projectId, Long userId, Role userRole) {
+        accessGuard.checkProject(projectId, userId, userRole);
+        return projectMemberRepository.findMembers(projectId);
+    }
+
+    // adds the user or changes their role, only the owner (or an admin) manages members
+    public ProjectMemberDto setMember(Long projectId, Long memberId, ProjectMemberRole memberRole, Long userId, Role userRole) {
+        Project project = getOwnedProject(projectId, userId, userRole);
+        if (project.getOwner().getId().equals(memberId)) {
+            throw new ConflictException("User " + memberId + " owns the project, owners can't be members");
+        }
+        User user = userRepository.findById(memberId)
+                .orElseThrow(() -> new NotFoundException("User", memberId));
+
+        ProjectMember member = projectMemberRepository.findByProjectIdAndUserId(projectId, memberId).orElseGet(() -> {
+            ProjectMember created = new ProjectMember();
+            created.setProject(project);
+            created.setUser(user);
+            return created;
+        });
+        if (member.getRole() != memberRole) {
+            member.setRole(memberRole);
+            projectMemberRepository.save(member);
+            eventPublisher.publishEvent(new ProjectAccessChangedEvent(projectId, memberId));
         }
+        return new ProjectMemberDto(memberId, user.getEmail(), memberRole);
+    }
 
-        projectRepository.delete(project);
+    public void removeMember(Long projectId, Long memberId, Long userId, Role userRole) {
+        getOwnedProject(projectId, userId, userRole);
+        if (projectMemberRepository.deleteByProjectIdAndUserId(projectId, memberId) > 0) {
+            eventPublisher.publishEvent(new ProjectAccessChangedEvent(projectId, memberId));
+        }
+    }
+
+    public TaskCountsDto getProjectTaskCounts(Long projectId, Long userId, Role userRole) {
+        accessGuard.checkProject(projectId, userId, userRole);
+
+        return taskCounterService.getProjectCounts(projectId);
+    }
+
+    public BoardDto getBoard(Long projectId, int columnLimit, Long userId, Role userRole) {
+        accessGuard.checkProject(projectId, userId, userRole);
+
+        return boardCache.getBoard(projectId, columnLimit);
+    }
+
+    // names are unique per owner, on whichever shards their projects are
+    private boolean nameTaken(String name, User owner) {
+        return shards.onEachShard(true, shard -> projectRepository.existsByNameAndOwner(name, owner)).contains(true);
     }
 
-    private boolean hasAccessToProject(Project project, Long userId, Role userRole) {
-        if (userRole == Role.ADMIN) {
-            return true;
+    // changing or deleting the project and managing its members is left to the owner
+    private Project getOwnedProject(Long projectId, Long userId, Role userRole) {
+        shards.pin(projectId);
+        boolean owner = userRole == Role.ADMIN || projectAccess.isOwner(userId, projectId);
+        Project project = projectRepository.findWithOwnerById(projectId)
+                .orElseThrow(() -> new NotFoundException("Project", projectId));
+        if (!owner) {
+            throw ForbiddenException.PROJECT;
         }
-        return project.getOwner().getId().equals(userId);
+        return project;
     }
 }
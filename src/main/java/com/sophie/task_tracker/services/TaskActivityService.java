@@ -0,0 +1,165 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.CommentCreateDto;
+import com.sophie.task_tracker.dto.TaskActivityDto;
+import com.sophie.task_tracker.dto.TaskActivityPageDto;
+import com.sophie.task_tracker.entities.Task;
+import com.sophie.task_tracker.entities.TaskActivity;
+import com.sophie.task_tracker.entities.User;
+import com.sophie.task_tracker.enums.ActivityType;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TaskState;
+import com.sophie.task_tracker.exception.NotFoundException;
+import com.sophie.task_tracker.repositories.TaskActivityRepository;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// comments and change history of a task, append only
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class TaskActivityService {
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final String INSERT = "INSERT INTO task_activity (task_id, project_id, type, body, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final TaskActivityRepository taskActivityRepository;
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProjectAccessGuard accessGuard;
+
+    public TaskActivityDto addComment(Long taskId, CommentCreateDto commentCreateDto, Long userId, Role userRole) {
+        Task task = accessGuard.getTask(taskId, userId, userRole, false);
+        User author = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("User", userId));
+
+        TaskActivity comment = append(task.getId(), task.getProject().getId(), ActivityType.COMMENT, commentCreateDto.getBody(), author);
+        taskRepository.incrementCommentCount(taskId);
+        return new TaskActivityDto(comment.getId(), comment.getType(), comment.getBody(), userId, author.getEmail(), comment.getCreatedAt());
+    }
+
+    // before null starts at the newest entry, type null means all entries
+    @Transactional(readOnly = true)
+    public TaskActivityPageDto getActivity(Long taskId, Long before, int limit, ActivityType type, Long userId, Role userRole) {
+        accessGuard.getTask(taskId, userId, userRole, false);
+        int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        long cursor = before != null ? before : Long.MAX_VALUE;
+
+        // one row more than asked for tells whether there is a next page without counting
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<TaskActivityDto> entries = type == null
+                ? taskActivityRepository.findPage(taskId, cursor, page)
+                : taskActivityRepository.findPageByType(taskId, type, cursor, page);
+        Long nextCursor = null;
+        if (entries.size() > size) {
+            entries = new ArrayList<>(entries.subList(0, size));
+            nextCursor = entries.get(size - 1).getId();
+        }
+        return new TaskActivityPageDto(entries, nextCursor);
+    }
+
+    // history entries are written in the same transaction as the change itself, collected until
+    // the commit and inserted as one JDBC batch, so a bulk update of 1000 tasks isn't 1000 round
+    // trips. Deletes and archiving write nothing, the feed of an archived task stays as it was
+    @EventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        TaskState before = event.getBefore();
+        TaskState after = event.getAfter();
+        if (after == null) {
+            return;
+        }
+        Long taskId = event.getTaskId();
+        if (before == null) {
+            record(taskId, after.getProjectId(), ActivityType.CREATED, null);
+            return;
+        }
+        if (before.getStatus() != after.getStatus()) {
+            record(taskId, after.getProjectId(), ActivityType.STATUS_CHANGED, before.getStatus() + " -> " + after.getStatus());
+        }
+        if (!Objects.equals(before.getAssignedUserId(), after.getAssignedUserId())) {
+            record(taskId, after.getProjectId(), ActivityType.ASSIGNED,
+                    after.getAssignedUserId() != null ? "Assigned to user " + after.getAssignedUserId() : "Unassigned");
+        }
+    }
+
+    private TaskActivity append(Long taskId, Long projectId, ActivityType type, String body, User author) {
+        TaskActivity activity = new TaskActivity();
+        activity.setTaskId(taskId);
+        activity.setProjectId(projectId);
+        activity.setType(type);
+        activity.setBody(body);
+        activity.setAuthor(author);
+        activity.setCreatedAt(LocalDateTime.now());
+        return taskActivityRepository.save(activity);
+    }
+
+    // a system entry, batched with the others of the transaction
+    private void record(Long taskId, Long projectId, ActivityType type, String body) {
+        TaskActivity activity = new TaskActivity();
+        activity.setTaskId(taskId);
+        activity.setProjectId(projectId);
+        activity.setType(type);
+        activity.setBody(body);
+        activity.setCreatedAt(LocalDateTime.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(List.of(activity));
+            return;
+        }
+        pending().entries.add(activity);
+    }
+
+    // the batch of the current transaction. Kept in its synchronization rather than bound as a
+    // resource, so a REQUIRES_NEW transaction in between gets a batch of its own
+    private PendingEntries pending() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingEntries pending && pending.owner == this) {
+                return pending;
+            }
+        }
+        PendingEntries pending = new PendingEntries(this);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void insert(List<TaskActivity> entries) {
+        jdbcTemplate.batchUpdate(INSERT, entries, entries.size(), (statement, activity) -> {
+            statement.setLong(1, activity.getTaskId());
+            statement.setLong(2, activity.getProjectId());
+            statement.setString(3, activity.getType().name());
+            statement.setString(4, activity.getBody());
+            statement.setTimestamp(5, Timestamp.valueOf(activity.getCreatedAt()));
+        });
+    }
+
+    private static class PendingEntries implements TransactionSynchronization {
+        private final TaskActivityService owner;
+        private final List<TaskActivity> entries = new ArrayList<>();
+
+        PendingEntries(TaskActivityService owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!entries.isEmpty()) {
+                owner.insert(entries);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TaskState;
+import com.sophie.task_tracker.repositories.ArchivedTaskRepository;
+import com.sophie.task_tracker.repositories.TaskAccessRow;
+import com.sophie.task_tracker.repositories.TaskFilter;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// moves tasks that have been DONE for a while from tasks into tasks_archive,
+// so the hot table (and every index behind the list endpoints) only holds recent work
+@Service
+@RequiredArgsConstructor
+public class TaskArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskArchiveService.class);
+
+    private final TaskRepository taskRepository;
+    private final ArchivedTaskRepository archivedTaskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Shards shards;
+
+    @Value("${app.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archive.done-age-days:90}")
+    private long doneAgeDays;
+
+    @Value("${app.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.archive.max-batches-per-run:100}")
+    private int maxBatchesPerRun;
+
+    @Scheduled(fixedDelayString = "${app.archive.interval-ms:3600000}", initialDelayString = "${app.archive.interval-ms:3600000}")
+    public void archiveOnSchedule() {
+        if (enabled) {
+            archiveDoneTasks();
+        }
+    }
+
+    // one transaction per batch so locks stay short and a failure only loses one batch
+    public int archiveDoneTasks() {
+        // a task has no completion timestamp, the last update of a DONE task is when it was closed
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(doneAgeDays);
+        int total = 0;
+        // with sharding each shard archives its own tasks, one shard after the other
+        for (int shard = 0; shard < shards.count(); shard++) {
+            total += archiveShard(shard, cutoff);
+        }
+        if (total > 0) {
+            log.info("Archived {} tasks done before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private int archiveShard(int shard, LocalDateTime cutoff) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer moved = shards.onShard(shard, () -> transactionTemplate.execute(status -> archiveBatch(cutoff)));
+            if (moved == null || moved == 0) {
+                break;
+            }
+            total += moved;
+            // a short batch: nothing left, or some tasks changed since the pick and the next run gets the rest
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> picked = taskRepository.findIdsByStatusUpdatedBefore(TaskStatus.DONE, cutoff, PageRequest.of(0, batchSize));
+        if (picked.isEmpty()) {
+            return 0;
+        }
+        // the pick isn't locked, only move what still qualifies now that it is
+        List<Long> ids = taskRepository.lockArchivable(picked, TaskStatus.DONE.getCode(), cutoff);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        TaskFilter filter = new TaskFilter();
+        filter.setIds(ids);
+        List<TaskAccessRow> rows = taskRepository.findAccessRows(filter);
+
+        archivedTaskRepository.copyFromTasks(ids, TaskStatus.DONE.getCode(), cutoff, LocalDateTime.now());
+        taskRepository.deleteArchivable(ids, TaskStatus.DONE, cutoff);
+
+        // counters and board snapshots treat archived tasks as deleted
+        for (TaskAccessRow row : rows) {
+            eventPublisher.publishEvent(new TaskChangedEvent(row.getTaskId(), TaskState.of(row), null));
+        }
+        return ids.size();
+    }
+}
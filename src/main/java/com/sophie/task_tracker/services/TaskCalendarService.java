@@ -0,0 +1,102 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.BoardTaskDto;
+import com.sophie.task_tracker.dto.DueBucketDto;
+import com.sophie.task_tracker.enums.CalendarBucket;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.exception.BadRequestException;
+import com.sophie.task_tracker.exception.ForbiddenException;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// calendar views of a project or a user's tasks. The histogram is one grouped count over the
+// due date range; the tasks of a bucket are read page by page with the same range
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class TaskCalendarService {
+
+    private static final int MAX_DAYS = 366;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // findDueBetweenForAssignee's order, for merging shards
+    private static final Comparator<BoardTaskDto> DUE_ORDER = Comparator.comparing(BoardTaskDto::getDueDate)
+            .thenComparing(task -> task.getPriority().getCode(), Comparator.reverseOrder())
+            .thenComparing(BoardTaskDto::getId);
+
+    private final TaskRepository taskRepository;
+    private final ProjectAccessGuard accessGuard;
+    private final Shards shards;
+
+    // every bucket from `from` on, empty ones included so clients can draw it as is
+    public List<DueBucketDto> getProjectHistogram(Long projectId, LocalDate from, int days, CalendarBucket bucket, Long userId, Role userRole) {
+        accessGuard.checkProject(projectId, userId, userRole);
+        LocalDate to = lastDay(from, days);
+        return toBuckets(taskRepository.countByDueDateForProject(projectId, from, to), from, to, bucket);
+    }
+
+    public List<DueBucketDto> getUserHistogram(Long assignedUserId, LocalDate from, int days, CalendarBucket bucket, Long userId, Role userRole) {
+        checkUserAccess(assignedUserId, userId, userRole);
+        LocalDate to = lastDay(from, days);
+        // the same day can come from several shards, toBuckets adds them up
+        return toBuckets(shards.queryAll(() -> taskRepository.countByDueDateForAssignee(assignedUserId, from, to)), from, to, bucket);
+    }
+
+    // tasks due from..to, both inclusive. A client shows a bucket by asking for its days
+    public List<BoardTaskDto> getProjectTasksDue(Long projectId, LocalDate from, LocalDate to, int page, int size, Long userId, Role userRole) {
+        accessGuard.checkProject(projectId, userId, userRole);
+        return taskRepository.findDueBetweenForProject(projectId, from, to, page(page, size));
+    }
+
+    public List<BoardTaskDto> getUserTasksDue(Long assignedUserId, LocalDate from, LocalDate to, int page, int size, Long userId, Role userRole) {
+        checkUserAccess(assignedUserId, userId, userRole);
+        return shards.queryPage(page(page, size), DUE_ORDER, p -> taskRepository.findDueBetweenForAssignee(assignedUserId, from, to, p));
+    }
+
+    private List<DueBucketDto> toBuckets(List<Object[]> rows, LocalDate from, LocalDate to, CalendarBucket bucket) {
+        Map<LocalDate, Long> counts = new LinkedHashMap<>();
+        for (LocalDate day = bucketStart(from, bucket); !day.isAfter(to); day = bucket == CalendarBucket.WEEK ? day.plusWeeks(1) : day.plusDays(1)) {
+            counts.put(day, 0L);
+        }
+        for (Object[] row : rows) {
+            counts.merge(bucketStart((LocalDate) row[0], bucket), (Long) row[1], Long::sum);
+        }
+        List<DueBucketDto> buckets = new ArrayList<>(counts.size());
+        counts.forEach((start, count) -> buckets.add(new DueBucketDto(start, count)));
+        return buckets;
+    }
+
+    private static LocalDate bucketStart(LocalDate day, CalendarBucket bucket) {
+        return bucket == CalendarBucket.WEEK ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : day;
+    }
+
+    private static LocalDate lastDay(LocalDate from, int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new BadRequestException("days must be between 1 and " + MAX_DAYS);
+        }
+        return from.plusDays(days - 1);
+    }
+
+    private static PageRequest page(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+
+    private void checkUserAccess(Long assignedUserId, Long userId, Role userRole) {
+        if (userRole != Role.ADMIN && !assignedUserId.equals(userId)) {
+            throw ForbiddenException.OTHER_USERS_TASKS;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// lets the in-memory task views (counters, workloads) tell which changes their rebuild query saw.
+// A transaction that changed tasks holds the gate shared from just before its commit until its
+// after commit listeners are done; a rebuild holds it exclusively while it starts logging changes
+// and runs its query. So every logged change committed after the query, none is counted twice.
+// Task commits wait for the length of a rebuild query, every few minutes
+@Component
+public class TaskCommitGate {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // once per transaction, however many tasks it changed
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        lock.readLock().lock();
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        // registered after the listeners of the transaction's events, so it runs after them
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(TaskCommitGate.this);
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    // not from a thread that is committing task changes, it would wait for itself
+    public <T> T exclusive(Supplier<T> snapshot) {
+        lock.writeLock().lock();
+        try {
+            return snapshot.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.cluster.ChangeNotification;
+import com.sophie.task_tracker.cluster.RemoteChangeEvent;
+import com.sophie.task_tracker.dto.TaskCountsDto;
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TaskState;
+import com.sophie.task_tracker.events.TasksRemovedEvent;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// per user and per project task counters so dashboards don't have to load task lists.
+// task change events are applied after commit, and everything is rebuilt from the db periodically
+@Service
+@RequiredArgsConstructor
+public class TaskCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskCounterService.class);
+
+    private final TaskRepository taskRepository;
+    private final Shards shards;
+    private final PlatformTransactionManager transactionManager;
+    private final TaskCommitGate commitGate;
+
+    private volatile Map<Long, Counters> userCounters = new ConcurrentHashMap<>();
+    private volatile Map<Long, Counters> projectCounters = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    // events apply under the read lock, the swap to rebuilt counters takes the write lock.
+    // While a rebuild runs, events are also kept in replay and applied again to the new counters
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Queue<TaskChangedEvent> replay;
+
+    private static final class Counters {
+        private final LongAdder[] byStatus = adders(TaskStatus.values().length);
+        private final LongAdder[] openByPriority = adders(TaskPriority.values().length);
+        private final ConcurrentSkipListMap<LocalDate, LongAdder> openByDueDate = new ConcurrentSkipListMap<>();
+
+        private void add(TaskStatus status, TaskPriority priority, LocalDate dueDate, long delta) {
+            byStatus[status.ordinal()].add(delta);
+            if (status != TaskStatus.DONE) {
+                openByPriority[priority.ordinal()].add(delta);
+                if (dueDate != null) {
+                    openByDueDate.computeIfAbsent(dueDate, d -> new LongAdder()).add(delta);
+                }
+            }
+        }
+
+        private TaskCountsDto toDto(LocalDate today) {
+            TaskCountsDto dto = new TaskCountsDto();
+            long open = 0;
+            for (TaskStatus status : TaskStatus.values()) {
+                long count = byStatus[status.ordinal()].sum();
+                dto.getByStatus().put(status, count);
+                if (status != TaskStatus.DONE) {
+                    open += count;
+                }
+            }
+            for (TaskPriority priority : TaskPriority.values()) {
+                dto.getOpenByPriority().put(priority, openByPriority[priority.ordinal()].sum());
+            }
+            long overdue = 0;
+            // one entry per distinct due date, not per task
+            for (LongAdder count : openByDueDate.headMap(today).values()) {
+                overdue += count.sum();
+            }
+            dto.setOpen(open);
+            dto.setOverdue(overdue);
+            return dto;
+        }
+
+        private static LongAdder[] adders(int size) {
+            LongAdder[] adders = new LongAdder[size];
+            for (int i = 0; i < size; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+    }
+
+    public TaskCountsDto getUserCounts(Long userId) {
+        Counters counters = userCounters.get(userId);
+        return counters != null ? counters.toDto(LocalDate.now()) : new Counters().toDto(LocalDate.now());
+    }
+
+    public TaskCountsDto getProjectCounts(Long projectId) {
+        Counters counters = projectCounters.get(projectId);
+        return counters != null ? counters.toDto(LocalDate.now()) : new Counters().toDto(LocalDate.now());
+    }
+
+    // counters must only see committed changes, a rolled back update would otherwise leave them off
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        swapLock.readLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(event);
+            }
+            apply(event);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // cascaded deletes can't be tracked task by task, let the next dirty check rebuild
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksRemoved(TasksRemovedEvent event) {
+        dirty.set(true);
+    }
+
+    // another node changed tasks, our deltas never saw it. The next dirty check rebuilds from the db
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        ChangeNotification.Type type = event.getNotification().getType();
+        if (type == ChangeNotification.Type.PROJECT_TASKS || type == ChangeNotification.Type.ALL_TASKS) {
+            dirty.set(true);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${app.counters.dirty-check-ms:10000}")
+    public void reconcileIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            reconcile();
+        }
+    }
+
+    // full rebuild from the db, fixes any drift from missed or racing updates. Called from inside
+    // this bean, so the transaction comes from a template rather than @Transactional
+    @Scheduled(fixedDelayString = "${app.counters.reconcile-interval-ms:300000}", initialDelayString = "${app.counters.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        Queue<TaskChangedEvent> pending = new ConcurrentLinkedQueue<>();
+
+        Map<Long, Counters> users = new ConcurrentHashMap<>();
+        Map<Long, Counters> projects = new ConcurrentHashMap<>();
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            // no task commit in between: an event is either applied already or logged and not in the rows
+            List<Object[]> rows = commitGate.exclusive(() -> {
+                replay = pending;
+                return transaction.execute(status -> shards.queryAll(taskRepository::countGroupedForCounters));
+            });
+            for (Object[] row : rows) {
+                Long projectId = (Long) row[0];
+                Long userId = (Long) row[1];
+                TaskStatus status = (TaskStatus) row[2];
+                TaskPriority priority = (TaskPriority) row[3];
+                LocalDate dueDate = (LocalDate) row[4];
+                long count = ((Number) row[5]).longValue();
+
+                projects.computeIfAbsent(projectId, id -> new Counters()).add(status, priority, dueDate, count);
+                if (userId != null) {
+                    users.computeIfAbsent(userId, id -> new Counters()).add(status, priority, dueDate, count);
+                }
+            }
+        } catch (RuntimeException e) {
+            replay = null;
+            throw e;
+        }
+
+        // everything logged since replay was set committed after the query, apply it again
+        swapLock.writeLock().lock();
+        try {
+            userCounters = users;
+            projectCounters = projects;
+            replay = null;
+            pending.forEach(this::apply);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        log.debug("Rebuilt task counters for {} users and {} projects, {} changes replayed", users.size(), projects.size(), pending.size());
+    }
+
+    private void apply(TaskChangedEvent event) {
+        if (event.getBefore() != null) {
+            apply(event.getBefore(), -1);
+        }
+        if (event.getAfter() != null) {
+            apply(event.getAfter(), 1);
+        }
+    }
+
+    private void apply(TaskState state, long delta) {
+        projectCounters.computeIfAbsent(state.getProjectId(), id -> new Counters())
+                .add(state.getStatus(), state.getPriority(), state.getDueDate(), delta);
+        if (state.getAssignedUserId() != null) {
+            userCounters.computeIfAbsent(state.getAssignedUserId(), id -> new Counters())
+                    .add(state.getStatus(), state.getPriority(), state.getDueDate(), delta);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.BoardTaskDto;
+import com.sophie.task_tracker.dto.CriticalPathDto;
+import com.sophie.task_tracker.dto.TaskDependenciesDto;
+import com.sophie.task_tracker.entities.Task;
+import com.sophie.task_tracker.entities.TaskDependency;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.events.TaskDependencyChangedEvent;
+import com.sophie.task_tracker.exception.BadRequestException;
+import com.sophie.task_tracker.repositories.TaskDependencyRepository;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+// "task A blocks task B" links. Cycle checks, ready lists and the critical path are answered by
+// the in-memory graph of the project, the table is only read when a graph is loaded
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class TaskDependencyService {
+
+    private final TaskRepository taskRepository;
+    private final TaskDependencyRepository taskDependencyRepository;
+    private final DependencyGraphCache dependencyGraphCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProjectAccessGuard accessGuard;
+
+    public TaskDependenciesDto addDependency(Long taskId, Long blockerId, Long userId, Role userRole) {
+        Task blocked = accessGuard.getTask(taskId, userId, userRole, true);
+        Task blocker = accessGuard.getTask(blockerId, userId, userRole, true);
+        Long projectId = blocked.getProject().getId();
+        if (!blocker.getProject().getId().equals(projectId)) {
+            throw new BadRequestException("Dependencies must be between tasks of the same project");
+        }
+
+        // checked and added under the graph's lock, so two concurrent links can't form a cycle between them
+        boolean added = dependencyGraphCache.withGraph(projectId, graph -> {
+            graph.putTask(blockerId, blocker.getStatus(), blocker.getDueDate());
+            graph.putTask(taskId, blocked.getStatus(), blocked.getDueDate());
+            return graph.addDependency(blockerId, taskId);
+        });
+        if (!added) {
+            return getDependencies(projectId, taskId);
+        }
+        // registered before anything else can fail, a rollback from here on has to drop the edge again
+        afterCommitOrRollback(projectId, graph -> graph.addDependency(blockerId, taskId));
+        if (!taskDependencyRepository.existsByBlockerIdAndBlockedId(blockerId, taskId)) {
+            TaskDependency dependency = new TaskDependency();
+            dependency.setBlocker(blocker);
+            dependency.setBlocked(blocked);
+            dependency.setProjectId(projectId);
+            taskDependencyRepository.save(dependency);
+            eventPublisher.publishEvent(new TaskDependencyChangedEvent(projectId));
+        }
+        return getDependencies(projectId, taskId);
+    }
+
+    public TaskDependenciesDto removeDependency(Long taskId, Long blockerId, Long userId, Role userRole) {
+        Task blocked = accessGuard.getTask(taskId, userId, userRole, true);
+        Long projectId = blocked.getProject().getId();
+
+        if (taskDependencyRepository.deleteByBlockerIdAndBlockedId(blockerId, taskId) > 0) {
+            dependencyGraphCache.withGraph(projectId, graph -> graph.removeDependency(blockerId, taskId));
+            afterCommitOrRollback(projectId, graph -> graph.removeDependency(blockerId, taskId));
+            eventPublisher.publishEvent(new TaskDependencyChangedEvent(projectId));
+        }
+        return getDependencies(projectId, taskId);
+    }
+
+    @Transactional(readOnly = true)
+    public TaskDependenciesDto getTaskDependencies(Long taskId, Long userId, Role userRole) {
+        Task task = accessGuard.getTask(taskId, userId, userRole, false);
+        return getDependencies(task.getProject().getId(), taskId);
+    }
+
+    // limit <= 0 means all ready tasks
+    @Transactional(readOnly = true)
+    public List<BoardTaskDto> getReadyTasks(Long projectId, int limit, Long userId, Role userRole) {
+        accessGuard.checkProject(projectId, userId, userRole);
+        List<Long> ids = dependencyGraphCache.withGraph(projectId, graph -> graph.getReady(limit));
+        return taskRepository.findBoardTasksInOrder(ids);
+    }
+
+    @Transactional(readOnly = true)
+    public CriticalPathDto getCriticalPath(Long projectId, Long userId, Role userRole) {
+        accessGuard.checkProject(projectId, userId, userRole);
+        DependencyGraph.Path path = dependencyGraphCache.withGraph(projectId, DependencyGraph::getCriticalPath);
+        LocalDate deadline = path.getDeadline();
+        return new CriticalPathDto(projectId, taskRepository.findBoardTasksInOrder(path.getTaskIds()), deadline,
+                deadline != null && deadline.isBefore(LocalDate.now()));
+    }
+
+    private TaskDependenciesDto getDependencies(Long projectId, Long taskId) {
+        return dependencyGraphCache.withGraph(projectId, graph -> graph.contains(taskId)
+                ? new TaskDependenciesDto(taskId, graph.getBlockers(taskId), graph.getBlocked(taskId))
+                : new TaskDependenciesDto(taskId, List.of(), List.of()));
+    }
+
+    // the graph was changed ahead of the commit so the cycle check covers concurrent links. On
+    // rollback it's dropped; on commit the change is applied again in case a reload missed it
+    private void afterCommitOrRollback(Long projectId, Consumer<DependencyGraph> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    dependencyGraphCache.invalidate(projectId);
+                    return;
+                }
+                try {
+                    dependencyGraphCache.withGraph(projectId, graph -> {
+                        change.accept(graph);
+                        return null;
+                    });
+                } catch (RuntimeException e) {
+                    // another node linked the other way at the same time, start over from the table
+                    dependencyGraphCache.invalidate(projectId);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.TaskDto;
+import com.sophie.task_tracker.dto.TaskRollupDto;
+import com.sophie.task_tracker.dto.TaskTreeNodeDto;
+import com.sophie.task_tracker.entities.Task;
+import com.sophie.task_tracker.entities.TaskClosureId;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.exception.BadRequestException;
+import com.sophie.task_tracker.exception.ConflictException;
+import com.sophie.task_tracker.mappers.TaskMapper;
+import com.sophie.task_tracker.repositories.ProjectRepository;
+import com.sophie.task_tracker.repositories.TaskClosureRepository;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// epics, stories and subtasks. Reads go through the closure table so they cost the same at any
+// depth; a move rewrites the links of the whole subtree with two statements. Changes to the tree
+// take the project row lock first, so two moves in one project can't both pass the cycle check
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class TaskHierarchyService {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final TaskRepository taskRepository;
+    private final TaskClosureRepository taskClosureRepository;
+    private final ProjectRepository projectRepository;
+    private final TaskMapper taskMapper;
+    private final ProjectAccessGuard accessGuard;
+
+    // called for every new task, parent may be null
+    public void addTask(Task task, Task parent) {
+        taskClosureRepository.insertSelf(task.getId());
+        if (parent != null) {
+            taskClosureRepository.insertLeaf(task.getId(), parent.getId());
+        }
+    }
+
+    // parent must be a task of the same project outside the task's own subtree, null makes it top level
+    public TaskDto moveTask(Long taskId, Long parentId, Long userId, Role userRole) {
+        Task task = accessGuard.getTask(taskId, userId, userRole, true);
+        lockTree(task);
+        Task parent = parentId != null ? getParent(task, parentId, userId, userRole) : null;
+
+        Long currentParentId = task.getParent() != null ? task.getParent().getId() : null;
+        if (parentId == null ? currentParentId == null : parentId.equals(currentParentId)) {
+            return taskMapper.toDto(task);
+        }
+
+        taskClosureRepository.detachSubtree(taskId);
+        if (parent != null) {
+            taskClosureRepository.attachSubtree(taskId, parentId);
+        }
+        task.setParent(parent);
+        return taskMapper.toDto(taskRepository.saveAndFlush(task));
+    }
+
+    // levels below the task, maxDepth null means all of them
+    @Transactional(readOnly = true)
+    public List<TaskTreeNodeDto> getSubtasks(Long taskId, Integer maxDepth, int page, int size, Long userId, Role userRole) {
+        accessGuard.getTask(taskId, userId, userRole, false);
+        int depth = maxDepth != null ? maxDepth : Integer.MAX_VALUE;
+        return taskClosureRepository.findDescendants(taskId, depth, PageRequest.of(page, Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaskTreeNodeDto> getAncestors(Long taskId, Long userId, Role userRole) {
+        accessGuard.getTask(taskId, userId, userRole, false);
+        return taskClosureRepository.findAncestors(taskId);
+    }
+
+    // one grouped query over the subtree, the task itself included
+    @Transactional(readOnly = true)
+    public TaskRollupDto getRollup(Long taskId, Long userId, Role userRole) {
+        accessGuard.getTask(taskId, userId, userRole, false);
+        Map<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            byStatus.put(status, 0L);
+        }
+        long total = 0;
+        int depth = 0;
+        for (Object[] row : taskClosureRepository.countSubtreeByStatus(taskId)) {
+            long count = (Long) row[1];
+            byStatus.put((TaskStatus) row[0], count);
+            total += count;
+            depth = Math.max(depth, ((Number) row[2]).intValue());
+        }
+        return new TaskRollupDto(taskId, total, byStatus, depth);
+    }
+
+    Task getParent(Task task, Long parentId, Long userId, Role userRole) {
+        Task parent = accessGuard.getTask(parentId, userId, userRole, true);
+        if (!parent.getProject().getId().equals(task.getProject().getId())) {
+            throw new BadRequestException("Parent task must be in the same project");
+        }
+        // a new subtask copies the parent's ancestors, they must not move under it meanwhile
+        lockTree(task);
+        // read after the lock, so it sees every move that committed before ours. Includes the task itself at depth 0
+        if (task.getId() != null && taskClosureRepository.existsById(new TaskClosureId(task.getId(), parentId))) {
+            throw new ConflictException("Task " + parentId + " is a subtask of task " + task.getId() + ", it can't be its parent");
+        }
+        return parent;
+    }
+
+    // waits for the other tree changes of the project to commit, again in the same transaction it just returns
+    private void lockTree(Task task) {
+        projectRepository.lockById(task.getProject().getId());
+    }
+}
@@ -0,0 +1,95 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.TaskSearchResultDto;
+import com.sophie.task_tracker.entities.Task;
+import com.sophie.task_tracker.entities.TaskLabel;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.events.TaskLabelsChangedEvent;
+import com.sophie.task_tracker.exception.BadRequestException;
+import com.sophie.task_tracker.repositories.TaskLabelRepository;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class TaskLabelService {
+
+    private static final Pattern LABEL = Pattern.compile("[a-z0-9][a-z0-9_.-]{0,49}");
+    private static final int MAX_RESULTS = 1000;
+
+    @Getter
+    @AllArgsConstructor
+    private static class Matches {
+        private final int total;
+        private final List<Long> taskIds;
+    }
+
+    private final TaskLabelRepository taskLabelRepository;
+    private final TaskRepository taskRepository;
+    private final LabelIndexCache labelIndexCache;
+    private final ProjectAccessGuard accessGuard;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(readOnly = true)
+    public List<String> getLabels(Long taskId, Long userId, Role userRole) {
+        accessGuard.getTask(taskId, userId, userRole, false);
+        return taskLabelRepository.findNamesByTaskId(taskId);
+    }
+
+    public List<String> addLabel(Long taskId, String label, Long userId, Role userRole) {
+        Task task = accessGuard.getTask(taskId, userId, userRole, true);
+        String name = normalize(label);
+        if (!taskLabelRepository.existsByTaskIdAndName(taskId, name)) {
+            TaskLabel taskLabel = new TaskLabel();
+            taskLabel.setTask(task);
+            taskLabel.setProjectId(task.getProject().getId());
+            taskLabel.setName(name);
+            taskLabelRepository.save(taskLabel);
+            eventPublisher.publishEvent(new TaskLabelsChangedEvent(task.getProject().getId(), taskId, name, true));
+        }
+        return taskLabelRepository.findNamesByTaskId(taskId);
+    }
+
+    public List<String> removeLabel(Long taskId, String label, Long userId, Role userRole) {
+        Task task = accessGuard.getTask(taskId, userId, userRole, true);
+        String name = normalize(label);
+        if (taskLabelRepository.deleteByTaskIdAndName(taskId, name) > 0) {
+            eventPublisher.publishEvent(new TaskLabelsChangedEvent(task.getProject().getId(), taskId, name, false));
+        }
+        return taskLabelRepository.findNamesByTaskId(taskId);
+    }
+
+    // query like "label:backend AND NOT label:blocked AND status:TODO", empty matches every task.
+    // Matching runs on the project's bitmaps, only the returned cards are read from the db
+    @Transactional(readOnly = true)
+    public TaskSearchResultDto search(Long projectId, String query, int limit, Long userId, Role userRole) {
+        accessGuard.checkProject(projectId, userId, userRole);
+
+        LabelQuery labelQuery = LabelQuery.parse(query);
+        int max = limit > 0 ? Math.min(limit, MAX_RESULTS) : MAX_RESULTS;
+        Matches matches = labelIndexCache.withIndex(projectId, index -> {
+            BitSet bits = labelQuery.evaluate(index);
+            return new Matches(bits.cardinality(), index.taskIds(bits, max));
+        });
+        return new TaskSearchResultDto(matches.getTotal(), taskRepository.findBoardTasksInOrder(matches.getTaskIds()));
+    }
+
+    private String normalize(String label) {
+        String name = label == null ? "" : label.trim().toLowerCase(Locale.ROOT);
+        if (!LABEL.matcher(name).matches()) {
+            throw new BadRequestException("Invalid label '" + label + "', use up to 50 letters, digits, '.', '_' or '-'");
+        }
+        return name;
+    }
+}
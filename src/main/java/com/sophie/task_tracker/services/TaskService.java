@@ -1,7 +1,13 @@
 package com.sophie.task_tracker.services;
 
+import com.sophie.task_tracker.dto.TaskBatchDto;
+import com.sophie.task_tracker.dto.TaskBulkFilterDto;
+import com.sophie.task_tracker.dto.TaskBulkResultDto;
+import com.sophie.task_tracker.dto.TaskBulkUpdateDto;
+import com.sophie.task_tracker.dto.TaskCountsDto;
 import com.sophie.task_tracker.dto.TaskCreateDto;
 import com.sophie.task_tracker.dto.TaskDto;
+import com.sophie.task_tracker.dto.TaskField;
 import com.sophie.task_tracker.dto.TaskUpdateDto;
 import com.sophie.task_tracker.entities.Project;
 import com.sophie.task_tracker.entities.Task;
@@ -9,34 +15,69 @@ import com.sophie.task_tracker.entities.User;
 import com.sophie.task_tracker.enums.Role;
 import com.sophie.task_tracker.enums.TaskPriority;
 import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TaskState;
+import com.sophie.task_tracker.exception.BadRequestException;
+import com.sophie.task_tracker.exception.ConflictException;
+import com.sophie.task_tracker.exception.ForbiddenException;
+import com.sophie.task_tracker.exception.NotFoundException;
+import com.sophie.task_tracker.exception.VersionMismatchException;
 import com.sophie.task_tracker.mappers.TaskMapper;
 import com.sophie.task_tracker.repositories.ProjectRepository;
+import com.sophie.task_tracker.repositories.TaskActivityRepository;
+import com.sophie.task_tracker.repositories.TaskAccessRow;
+import com.sophie.task_tracker.repositories.TaskFilter;
 import com.sophie.task_tracker.repositories.TaskRepository;
 import com.sophie.task_tracker.repositories.UserRepository;
+import com.sophie.task_tracker.sharding.Shards;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class TaskService {
 
+    private static final int MAX_BATCH_IDS = 1000;
+
     private final TaskRepository taskRepository;
+    private final TaskActivityRepository taskActivityRepository;
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
     private final TaskMapper taskMapper;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final TaskCounterService taskCounterService;
+    private final TaskHierarchyService taskHierarchyService;
+    private final AssignmentService assignmentService;
+    private final ProjectAccessGuard accessGuard;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Shards shards;
 
     public TaskDto createTask(TaskCreateDto taskCreateDto, Long userId, Role userRole) {
-        Project project = projectRepository.findById(taskCreateDto.getProjectId())
-                .orElseThrow(() -> new RuntimeException("Project not found with id: " + taskCreateDto.getProjectId()));
+        return createTask(taskCreateDto, false, userId, userRole);
+    }
 
-        if (!hasAccessToProject(project, userId, userRole)) {
-            throw new RuntimeException("Access denied to project");
-        }
+    // autoAssign gives the task to the least loaded USER instead of assignedUserId
+    public TaskDto createTask(TaskCreateDto taskCreateDto, boolean autoAssign, Long userId, Role userRole) {
+        accessGuard.checkProject(taskCreateDto.getProjectId(), userId, userRole, true);
+        Project project = projectRepository.getReferenceById(taskCreateDto.getProjectId());
 
         Task task = new Task();
         task.setTitle(taskCreateDto.getTitle());
@@ -46,98 +87,169 @@ public class TaskService {
         task.setPriority(taskCreateDto.getPriority());
         task.setStatus(TaskStatus.TODO);
 
-        if (taskCreateDto.getAssignedUserId() != null) {
+        Long assignedUserId = taskCreateDto.getAssignedUserId();
+        if (autoAssign) {
+            if (assignedUserId != null) {
+                throw new BadRequestException("Use either assignedUserId or assign=auto, not both");
+            }
+            assignedUserId = assignmentService.pickAssignee(task.getPriority());
+            if (assignedUserId == null) {
+                throw new ConflictException("No user available for automatic assignment");
+            }
+        }
+        if (assignedUserId != null) {
             if (userRole != Role.MANAGER && userRole != Role.ADMIN) {
-                throw new RuntimeException("Only MANAGER/ADMIN can assign users to tasks");
+                throw new ForbiddenException("Only MANAGER/ADMIN can assign users to tasks");
             }
-            User assignedUser = userRepository.findById(taskCreateDto.getAssignedUserId())
-                    .orElseThrow(() -> new RuntimeException("Assigned user not found with id: " + taskCreateDto.getAssignedUserId()));
+            Long id = assignedUserId;
+            User assignedUser = userRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Assigned user", id));
             task.setAssignedUser(assignedUser);
         }
 
+        Task parent = null;
+        if (taskCreateDto.getParentId() != null) {
+            parent = taskHierarchyService.getParent(task, taskCreateDto.getParentId(), userId, userRole);
+            task.setParent(parent);
+        }
+
         Task savedTask = taskRepository.save(task);
+        taskHierarchyService.addTask(savedTask, parent);
+        eventPublisher.publishEvent(new TaskChangedEvent(savedTask.getId(), null, TaskState.of(savedTask)));
         return taskMapper.toDto(savedTask);
     }
 
+    // all or nothing, one transaction for the whole list (so, with sharding, one shard)
+    public List<TaskDto> createTasks(List<TaskCreateDto> taskCreateDtos, boolean autoAssign, Long userId, Role userRole) {
+        if (taskCreateDtos.size() > MAX_BATCH_IDS) {
+            throw new BadRequestException("Too many tasks, maximum is " + MAX_BATCH_IDS);
+        }
+        List<TaskDto> created = new ArrayList<>(taskCreateDtos.size());
+        for (TaskCreateDto taskCreateDto : taskCreateDtos) {
+            created.add(createTask(taskCreateDto, autoAssign, userId, userRole));
+        }
+        return created;
+    }
+
     public TaskDto getTaskById(Long taskId, Long userId, Role userRole) {
-        Task task = taskRepository.findById(taskId)
-                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+        Task task = getTask(taskId, userId, userRole, false);
+        return taskMapper.toDto(task);
+    }
 
-        if (!hasAccessToTask(task, userId, userRole)) {
-            throw new RuntimeException("Access denied to task");
+    public TaskBatchDto getTasksByIds(List<Long> taskIds, Long userId, Role userRole) {
+        Set<Long> ids = new LinkedHashSet<>(taskIds);  // drop duplicates, keep request order
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new BadRequestException("Too many task ids, maximum is " + MAX_BATCH_IDS);
         }
 
-        return taskMapper.toDto(task);
+        // ids, project and assignee first, access is decided in memory; only the tasks the caller
+        // may see are then loaded in full. Each shard is asked for the ids it holds
+        Map<Long, TaskAccessRow> rows = new HashMap<>();
+        for (List<TaskAccessRow> part : shards.onEachShard(true, shard -> findAccessRows(shards.idsOn(shard, ids)))) {
+            part.forEach(row -> rows.put(row.getTaskId(), row));
+        }
+        List<Long> visible = new ArrayList<>();
+        for (TaskAccessRow row : rows.values()) {
+            if (accessGuard.canAccessTask(row.getProjectId(), row.getAssignedUserId(), userId, userRole, false)) {
+                visible.add(row.getTaskId());
+            }
+        }
+        Set<Long> allowed = new HashSet<>(visible);
+        Map<Long, TaskDto> found = new HashMap<>();
+        for (List<TaskDto> part : shards.onEachShard(true, shard -> loadTasks(shards.idsOn(shard, visible)))) {
+            part.forEach(task -> found.put(task.getId(), task));
+        }
+
+        TaskBatchDto result = new TaskBatchDto();
+        for (Long id : ids) {
+            TaskDto task = found.get(id);
+            if (task != null) {
+                result.getTasks().add(task);
+            } else if (rows.containsKey(id) && !allowed.contains(id)) {
+                result.getForbidden().add(id);
+            } else {
+                result.getNotFound().add(id);
+            }
+        }
+        return result;
     }
 
     public List<TaskDto> getTasksByProject(Long projectId, Long userId, Role userRole) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found with id: " + projectId));
+        return getTasksByProject(projectId, Pageable.unpaged(), userId, userRole);
+    }
 
-        if (!hasAccessToProject(project, userId, userRole)) {
-            throw new RuntimeException("Access denied to project");
-        }
+    // page carries the sort and, for top-N requests, the limit
+    public List<TaskDto> getTasksByProject(Long projectId, Pageable page, Long userId, Role userRole) {
+        accessGuard.checkProject(projectId, userId, userRole, false);
 
-        List<Task> tasks = taskRepository.findByProject(project);
+        List<Task> tasks = taskRepository.findByProject(projectRepository.getReferenceById(projectId), page);
         return tasks.stream().map(taskMapper::toDto).toList();
     }
 
     public List<TaskDto> getTasksByAssignedUser(Long assignedUserId, Long userId, Role userRole) {
+        return getTasksByAssignedUser(assignedUserId, Pageable.unpaged(), userId, userRole);
+    }
+
+    public List<TaskDto> getTasksByAssignedUser(Long assignedUserId, Pageable page, Long userId, Role userRole) {
         if (userRole != Role.ADMIN && !assignedUserId.equals(userId)) {
-            throw new RuntimeException("Access denied to view other user's tasks");
+            throw ForbiddenException.OTHER_USERS_TASKS;
         }
 
         User assignedUser = userRepository.findById(assignedUserId)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + assignedUserId));
+                .orElseThrow(() -> new NotFoundException("User", assignedUserId));
 
-        List<Task> tasks = taskRepository.findByAssignedUser(assignedUser);
-        return tasks.stream().map(taskMapper::toDto).toList();
+        return findTasks(page, p -> taskRepository.findByAssignedUser(assignedUser, p));
     }
 
     public List<TaskDto> getTasksByStatus(TaskStatus status, Long userId, Role userRole) {
-        List<Task> tasks;
-        
+        return getTasksByStatus(status, Pageable.unpaged(), userId, userRole);
+    }
+
+    public List<TaskDto> getTasksByStatus(TaskStatus status, Pageable page, Long userId, Role userRole) {
         if (userRole == Role.ADMIN) {
-            tasks = taskRepository.findByStatus(status);
-        } else {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-            tasks = taskRepository.findByStatusAndAssignedUser(status, user);
+            return findTasks(page, p -> taskRepository.findByStatus(status, p));
         }
-        
-        return tasks.stream().map(taskMapper::toDto).toList();
+        // the caller's own row, no need to read it
+        User user = userRepository.getReferenceById(userId);
+        return findTasks(page, p -> taskRepository.findByStatusAndAssignedUser(status, user, p));
     }
 
     public List<TaskDto> getTasksByPriority(TaskPriority priority, Long userId, Role userRole) {
-        List<Task> tasks;
-        
+        return getTasksByPriority(priority, Pageable.unpaged(), userId, userRole);
+    }
+
+    public List<TaskDto> getTasksByPriority(TaskPriority priority, Pageable page, Long userId, Role userRole) {
         if (userRole == Role.ADMIN) {
-            tasks = taskRepository.findByPriority(priority);
-        } else {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-            tasks = taskRepository.findByPriorityAndAssignedUser(priority, user);
+            return findTasks(page, p -> taskRepository.findByPriority(priority, p));
         }
-        
-        return tasks.stream().map(taskMapper::toDto).toList();
+        // the caller's own row, no need to read it
+        User user = userRepository.getReferenceById(userId);
+        return findTasks(page, p -> taskRepository.findByPriorityAndAssignedUser(priority, user, p));
     }
 
     public TaskDto updateTask(Long taskId, TaskUpdateDto taskUpdateDto, Long userId, Role userRole) {
-        Task task = taskRepository.findById(taskId)
-                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+        return updateTask(taskId, taskUpdateDto, userId, userRole, null);
+    }
 
-        if (!hasAccessToTask(task, userId, userRole)) {
-            throw new RuntimeException("Access denied to task");
+    // expectedVersion comes from If-Match, null means the client didn't send one
+    public TaskDto updateTask(Long taskId, TaskUpdateDto taskUpdateDto, Long userId, Role userRole, Long expectedVersion) {
+        Task task = getTask(taskId, userId, userRole, true);
+
+        if (expectedVersion != null && !expectedVersion.equals(task.getVersion())) {
+            optimisticLockRetry.recordConflict("task", "update", "precondition_failed");
+            throw new VersionMismatchException("Task", taskId, expectedVersion, task.getVersion());
         }
 
+        TaskState before = TaskState.of(task);
+
         if (taskUpdateDto.getStatus() != null &&
             (task.getAssignedUser() == null || !task.getAssignedUser().getId().equals(userId))) {
-            throw new RuntimeException("Only assigned user can update task status");
+            throw new ForbiddenException("Only assigned user can update task status");
         }
 
         if (taskUpdateDto.getAssignedUserId() != null &&
             userRole != Role.MANAGER && userRole != Role.ADMIN) {
-            throw new RuntimeException("Only MANAGER/ADMIN can assign users to tasks");
+            throw new ForbiddenException("Only MANAGER/ADMIN can assign users to tasks");
         }
 
         if (taskUpdateDto.getTitle() != null) {
@@ -157,54 +269,206 @@ public class TaskService {
         }
         if (taskUpdateDto.getAssignedUserId() != null) {
             User assignedUser = userRepository.findById(taskUpdateDto.getAssignedUserId())
-                    .orElseThrow(() -> new RuntimeException("Assigned user not found with id: " + taskUpdateDto.getAssignedUserId()));
+                    .orElseThrow(() -> new NotFoundException("Assigned user", taskUpdateDto.getAssignedUserId()));
             task.setAssignedUser(assignedUser);
         }
 
-        Task updatedTask = taskRepository.save(task);
+        // flush now so a lost race fails here and the dto carries the new version
+        Task updatedTask = taskRepository.saveAndFlush(task);
+        eventPublisher.publishEvent(new TaskChangedEvent(taskId, before, TaskState.of(updatedTask)));
         return taskMapper.toDto(updatedTask);
     }
 
-    public void deleteTask(Long taskId, Long userId, Role userRole) {
-        Task task = taskRepository.findById(taskId)
-                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+    // same rules as updateTask, but applied with set-based UPDATE statements
+    public TaskBulkResultDto bulkUpdateTasks(TaskBulkUpdateDto bulkUpdateDto, Long userId, Role userRole) {
+        if (bulkUpdateDto.getStatus() == null && bulkUpdateDto.getPriority() == null &&
+            bulkUpdateDto.getAssignedUserId() == null && bulkUpdateDto.getDueDate() == null) {
+            throw new BadRequestException("No changes given for bulk update");
+        }
+
+        TaskFilter filter = toFilter(bulkUpdateDto.getFilter());
+        if (bulkUpdateDto.getIds() == null && filter.isEmpty()) {
+            throw new BadRequestException("Either ids or a filter is required for bulk update");
+        }
+        // tasks the caller can't see are left to the database, they don't count as matched or
+        // skipped and their access rows are never read
+        filter.setVisibleTo(userRole != Role.ADMIN ? userId : null);
+
+        if (bulkUpdateDto.getAssignedUserId() != null) {
+            if (userRole != Role.MANAGER && userRole != Role.ADMIN) {
+                throw new ForbiddenException("Only MANAGER/ADMIN can assign users to tasks");
+            }
+            if (!userRepository.existsById(bulkUpdateDto.getAssignedUserId())) {
+                throw new NotFoundException("Assigned user", bulkUpdateDto.getAssignedUserId());
+            }
+        }
+
+        // with sharding every shard updates its own tasks in its own transaction, so the update
+        // is all or nothing per shard rather than overall
+        List<Long> ids = bulkUpdateDto.getIds() != null ? new ArrayList<>(new LinkedHashSet<>(bulkUpdateDto.getIds())) : null;
+        int matched = 0;
+        int updated = 0;
+        int skipped = 0;
+        for (TaskBulkResultDto part : shards.onEachShard(false, shard ->
+                bulkUpdate(ids != null ? shards.idsOn(shard, ids) : null, filter, bulkUpdateDto, userId, userRole))) {
+            matched += part.getMatched();
+            updated += part.getUpdated();
+            skipped += part.getSkipped();
+        }
+        return new TaskBulkResultDto(matched, updated, skipped);
+    }
+
+    // only the match criteria, sorting, limits and archived rows don't apply to an update
+    private static TaskFilter toFilter(TaskBulkFilterDto criteria) {
+        TaskFilter filter = new TaskFilter();
+        if (criteria != null) {
+            filter.setProjectId(criteria.getProjectId());
+            filter.setAssignedUserId(criteria.getAssignedUserId());
+            filter.setStatus(criteria.getStatus());
+            filter.setPriority(criteria.getPriority());
+            filter.setDueBefore(criteria.getDueBefore());
+        }
+        return filter;
+    }
+
+    private TaskBulkResultDto bulkUpdate(List<Long> ids, TaskFilter filter, TaskBulkUpdateDto bulkUpdateDto, Long userId, Role userRole) {
+        List<TaskAccessRow> rows;
+        if (ids != null) {
+            rows = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i += TaskRepository.ID_CHUNK_SIZE) {
+                rows.addAll(taskRepository.findAccessRows(filter.withIds(ids.subList(i, Math.min(i + TaskRepository.ID_CHUNK_SIZE, ids.size())))));
+            }
+        } else {
+            rows = taskRepository.findAccessRows(filter);
+        }
 
-        if (!hasAccessToTask(task, userId, userRole)) {
-            throw new RuntimeException("Access denied to task");
+        List<Long> allowed = new ArrayList<>();
+        for (TaskAccessRow row : rows) {
+            boolean access = accessGuard.canAccessTask(row.getProjectId(), row.getAssignedUserId(), userId, userRole, true);
+            // only the assigned user can change status, same as updateTask
+            boolean statusAllowed = bulkUpdateDto.getStatus() == null || userId.equals(row.getAssignedUserId());
+            if (access && statusAllowed) {
+                allowed.add(row.getTaskId());
+                TaskState before = TaskState.of(row);
+                eventPublisher.publishEvent(new TaskChangedEvent(row.getTaskId(), before, before.with(bulkUpdateDto.getAssignedUserId(),
+                        bulkUpdateDto.getStatus(), bulkUpdateDto.getPriority(), bulkUpdateDto.getDueDate())));
+            }
         }
 
+        int updated = 0;
+        for (int i = 0; i < allowed.size(); i += TaskRepository.ID_CHUNK_SIZE) {
+            updated += taskRepository.bulkUpdate(allowed.subList(i, Math.min(i + TaskRepository.ID_CHUNK_SIZE, allowed.size())), bulkUpdateDto);
+        }
+        return new TaskBulkResultDto(rows.size(), updated, rows.size() - allowed.size());
+    }
+
+    public void deleteTask(Long taskId, Long userId, Role userRole) {
+        Task task = getTask(taskId, userId, userRole, true);
+        if (taskRepository.existsByParentId(taskId)) {
+            throw new ConflictException("Task has subtasks, move or delete them first");
+        }
+
+        TaskState before = TaskState.of(task);
+        taskActivityRepository.deleteByTaskId(taskId);
         taskRepository.delete(task);
+        eventPublisher.publishEvent(new TaskChangedEvent(taskId, before, null));
     }
 
     public List<TaskDto> getTasksDueBefore(LocalDate date, Long userId, Role userRole) {
-        List<Task> tasks;
-        
+        return getTasksDueBefore(date, Pageable.unpaged(), userId, userRole);
+    }
+
+    public List<TaskDto> getTasksDueBefore(LocalDate date, Pageable page, Long userId, Role userRole) {
         if (userRole == Role.ADMIN) {
-            tasks = taskRepository.findByDueDateBefore(date);
-        } else {
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
-            tasks = taskRepository.findByDueDateBeforeAndAssignedUser(date, user);
+            return findTasks(page, p -> taskRepository.findByDueDateBefore(date, p));
         }
-        
-        return tasks.stream().map(taskMapper::toDto).toList();
+        // the caller's own row, no need to read it
+        User user = userRepository.getReferenceById(userId);
+        return findTasks(page, p -> taskRepository.findByDueDateBeforeAndAssignedUser(date, user, p));
     }
 
-    private boolean hasAccessToTask(Task task, Long userId, Role userRole) {
-        if (userRole == Role.ADMIN) {
-            return true;
+    // same visibility rules as the list endpoints above, but only the requested columns are read
+    public List<Map<String, Object>> getTaskFields(TaskFilter filter, Set<TaskField> fields, Long userId, Role userRole) {
+        if (filter.getProjectId() != null) {
+            accessGuard.checkProject(filter.getProjectId(), userId, userRole, false);
+        } else if (filter.getAssignedUserId() != null) {
+            if (userRole != Role.ADMIN && !filter.getAssignedUserId().equals(userId)) {
+                throw ForbiddenException.OTHER_USERS_TASKS;
+            }
+        } else if (userRole != Role.ADMIN) {
+            // non admins only see their own tasks in status/priority/due date lists
+            filter.setAssignedUserId(userId);
         }
-        
-        if (task.getProject().getOwner().getId().equals(userId)) {
-            return true;
+
+        if (filter.getProjectId() != null || !shards.isEnabled()) {
+            return taskRepository.findFields(filter, fields);
         }
-        return task.getAssignedUser() != null && task.getAssignedUser().getId().equals(userId);
+        return findFieldsOnEveryShard(filter, fields);
     }
 
-    private boolean hasAccessToProject(Project project, Long userId, Role userRole) {
-        if (userRole == Role.ADMIN) {
-            return true;
+    public TaskCountsDto getMyTaskCounts(Long userId) {
+        return taskCounterService.getUserCounts(userId);
+    }
+
+    // the list queries. With sharding every shard runs the query for its share of the page and
+    // the shards' rows are merged in the page's order; ids break ties so the merge agrees with the database
+    private List<TaskDto> findTasks(Pageable page, Function<Pageable, List<Task>> query) {
+        if (!shards.isEnabled()) {
+            return query.apply(page).stream().map(taskMapper::toDto).toList();
         }
-        return project.getOwner().getId().equals(userId);
+        Sort sort = page.getSort().and(Sort.by(TaskField.ID.getJsonName()));
+        Pageable byId = page.isPaged() ? PageRequest.of(page.getPageNumber(), page.getPageSize(), sort) : Pageable.unpaged(sort);
+        Comparator<TaskDto> order = TaskField.comparator(page.getSort(), (TaskDto task, TaskField field) -> field.get(task));
+        return shards.queryPage(byId, order, p -> query.apply(p).stream().map(taskMapper::toDto).toList());
+    }
+
+    // same idea for projected rows: each shard returns its first `limit` rows with the sort
+    // columns and id selected as well, the merged list is cut to the limit and the extra columns dropped.
+    // Archived rows come after live ones, like findFields returns them
+    private List<Map<String, Object>> findFieldsOnEveryShard(TaskFilter filter, Set<TaskField> fields) {
+        Sort sort = filter.getSort();
+        Set<TaskField> selected = EnumSet.copyOf(fields);
+        selected.add(TaskField.ID);
+        sort.forEach(order -> selected.add(TaskField.fromJsonName(order.getProperty())));
+        TaskFilter byId = filter.withIds(filter.getIds());
+        byId.setSort(sort.and(Sort.by(TaskField.ID.getJsonName())));
+
+        List<Map<String, Object>> rows = shards.queryAll(() -> taskRepository.findFields(byId, selected));
+        Comparator<Map<String, Object>> archivedLast = Comparator.comparing(row -> row.containsKey("archived"));
+        rows.sort(archivedLast.thenComparing(TaskField.comparator(sort, (Map<String, Object> row, TaskField field) -> row.get(field.getJsonName()))));
+        if (filter.getLimit() > 0 && rows.size() > filter.getLimit()) {
+            rows = new ArrayList<>(rows.subList(0, filter.getLimit()));
+        }
+        if (selected.size() > fields.size()) {
+            Set<String> keep = new HashSet<>();
+            fields.forEach(field -> keep.add(field.getJsonName()));
+            keep.add("archived");
+            rows.forEach(row -> row.keySet().retainAll(keep));
+        }
+        return rows;
+    }
+
+    private List<TaskAccessRow> findAccessRows(List<Long> ids) {
+        List<TaskAccessRow> rows = new ArrayList<>();
+        TaskFilter filter = new TaskFilter();
+        for (int i = 0; i < ids.size(); i += TaskRepository.ID_CHUNK_SIZE) {
+            filter.setIds(ids.subList(i, Math.min(i + TaskRepository.ID_CHUNK_SIZE, ids.size())));
+            rows.addAll(taskRepository.findAccessRows(filter));
+        }
+        return rows;
+    }
+
+    private List<TaskDto> loadTasks(List<Long> ids) {
+        List<TaskDto> tasks = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i += TaskRepository.ID_CHUNK_SIZE) {
+            taskRepository.findWithProjectAndAssigneeByIdIn(ids.subList(i, Math.min(i + TaskRepository.ID_CHUNK_SIZE, ids.size())))
+                    .forEach(task -> tasks.add(taskMapper.toDto(task)));
+        }
+        return tasks;
+    }
+
+    // with project and assignee fetched, the DTOs need both
+    private Task getTask(Long taskId, Long userId, Role userRole, boolean write) {
+        return accessGuard.getTask(taskId, userId, userRole, write, taskRepository::findWithProjectAndAssigneeById);
     }
 }
@@ -0,0 +1,166 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.cluster.ChangeNotification;
+import com.sophie.task_tracker.cluster.RemoteChangeEvent;
+import com.sophie.task_tracker.dto.UserDto;
+import com.sophie.task_tracker.entities.User;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.events.EntityChangedEvent;
+import com.sophie.task_tracker.mappers.UserMapper;
+import com.sophie.task_tracker.repositories.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// every user sorted by email, in memory, for paged lists and type-ahead search. A prefix is a
+// contiguous run of the sorted skip list, so a page is a seek plus page * size + size steps.
+// Readers walk it without locking; a registration, change or delete moves only that user's entries
+@Component
+@RequiredArgsConstructor
+public class UserDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDirectory.class);
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+
+    private final Map<Long, UserDto> users = new HashMap<>();  // guarded by this
+    // a full reload fills a fresh one and swaps it in, so readers never see it half done
+    private volatile Index index = new Index();
+
+    // sorted by lower case email, then id
+    private static final class Key implements Comparable<Key> {
+        private final String email;
+        private final long id;
+
+        private Key(String email, long id) {
+            this.email = email;
+            this.id = id;
+        }
+
+        private static Key of(UserDto user) {
+            return new Key(key(user.getEmail()), user.getId());
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byEmail = email.compareTo(other.email);
+            return byEmail != 0 ? byEmail : Long.compare(id, other.id);
+        }
+    }
+
+    private static final class Index {
+        private final NavigableMap<Key, UserDto> all = new ConcurrentSkipListMap<>();
+        private final Map<Role, NavigableMap<Key, UserDto>> byRole = new EnumMap<>(Role.class);
+
+        private Index() {
+            for (Role role : Role.values()) {
+                byRole.put(role, new ConcurrentSkipListMap<>());
+            }
+        }
+
+        private void put(UserDto user) {
+            Key key = Key.of(user);
+            all.put(key, user);
+            byRole.get(user.getRole()).put(key, user);
+        }
+
+        // put before remove, an unchanged email never drops out for a reader in between
+        private void replace(UserDto previous, UserDto user) {
+            if (user != null) {
+                put(user);
+            }
+            if (previous == null) {
+                return;
+            }
+            Key key = Key.of(previous);
+            boolean sameKey = user != null && key.compareTo(Key.of(user)) == 0;
+            if (!sameKey) {
+                all.remove(key);
+            }
+            if (!sameKey || previous.getRole() != user.getRole()) {
+                byRole.get(previous.getRole()).remove(key);
+            }
+        }
+    }
+
+    // users whose email starts with prefix (any case), role null means every role
+    public List<UserDto> search(String prefix, Role role, int page, int size) {
+        Index current = index;
+        return page(role == null ? current.all : current.byRole.get(role), prefix != null ? key(prefix) : "", page, size);
+    }
+
+    private static List<UserDto> page(NavigableMap<Key, UserDto> users, String prefix, int page, int size) {
+        long skip = (long) page * size;
+        List<UserDto> result = new ArrayList<>(Math.min(size, 64));
+        for (Map.Entry<Key, UserDto> entry : users.tailMap(new Key(prefix, Long.MIN_VALUE)).entrySet()) {
+            if (!entry.getKey().email.startsWith(prefix) || result.size() == size) {
+                break;
+            }
+            if (skip > 0) {
+                skip--;
+            } else {
+                result.add(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        users.clear();
+        Index loaded = new Index();
+        for (User user : userRepository.findAll()) {
+            UserDto dto = userMapper.toDto(user);
+            users.put(dto.getId(), dto);
+            loaded.put(dto);
+        }
+        index = loaded;
+        log.debug("Loaded {} users into the user directory", users.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getType() == EntityChangedEvent.Type.USER) {
+            refresh(event.getId());
+        }
+    }
+
+    @EventListener
+    public void onRemoteChange(RemoteChangeEvent event) {
+        ChangeNotification notification = event.getNotification();
+        if (notification.getType() == ChangeNotification.Type.USER) {
+            if (notification.getId() != null) {
+                refresh(notification.getId());
+            } else {
+                load();
+            }
+        }
+    }
+
+    // re-reads one user, gone means deleted. The read is under the lock too, otherwise two refreshes
+    // of the same user could apply in the opposite order and leave the older row in place
+    private synchronized void refresh(Long userId) {
+        UserDto user = userRepository.findById(userId).map(userMapper::toDto).orElse(null);
+        UserDto previous = user != null ? users.put(userId, user) : users.remove(userId);
+        // an email or role change moves the entry, the rest of the directory stays as it is
+        index.replace(previous, user);
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
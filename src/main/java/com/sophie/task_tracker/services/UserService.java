@@ -4,9 +4,16 @@ import com.sophie.task_tracker.dto.UserDto;
 import com.sophie.task_tracker.dto.UserRegistrationDto;
 import com.sophie.task_tracker.entities.User;
 import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.events.EntityChangedEvent;
+import com.sophie.task_tracker.events.TasksRemovedEvent;
+import com.sophie.task_tracker.exception.ConflictException;
+import com.sophie.task_tracker.exception.NotFoundException;
 import com.sophie.task_tracker.mappers.UserMapper;
+import com.sophie.task_tracker.repositories.TaskActivityRepository;
 import com.sophie.task_tracker.repositories.UserRepository;
+import com.sophie.task_tracker.sharding.Shards;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,14 +26,20 @@ import java.util.Optional;
 @Transactional
 public class UserService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final UserRepository userRepository;
+    private final TaskActivityRepository taskActivityRepository;
+    private final UserDirectory userDirectory;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Shards shards;
 
     public UserDto registerUser(UserRegistrationDto registrationDto) {
         // check if user already exists
         if (userRepository.existsByEmail(registrationDto.getEmail())) {
-            throw new RuntimeException("User with email " + registrationDto.getEmail() + " already exists");
+            throw new ConflictException("User with email " + registrationDto.getEmail() + " already exists");
         }
 
         // create new user
@@ -36,6 +49,7 @@ public class UserService {
         user.setRole(registrationDto.getRole());
 
         User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Type.USER, savedUser.getId(), false));
         return userMapper.toDto(savedUser);
     }
 
@@ -47,31 +61,38 @@ public class UserService {
         return userRepository.findById(id);
     }
 
-    public List<UserDto> getAllUsers() {
-        List<User> users = userRepository.findAll();
-        return users.stream()
-                .map(userMapper::toDto)
-                .toList();
+    // pages come from the in-memory directory, ordered by email
+    public List<UserDto> getAllUsers(int page, int size) {
+        return searchUsers(null, null, page, size);
+    }
+
+    public List<UserDto> getUsersByRole(Role role, int page, int size) {
+        return searchUsers(null, role, page, size);
     }
 
-    public List<UserDto> getUsersByRole(Role role) {
-        List<User> users = userRepository.findByRole(role);
-        return users.stream()
-                .map(userMapper::toDto)
-                .toList();
+    public List<UserDto> searchUsers(String prefix, Role role, int page, int size) {
+        return userDirectory.search(prefix, role, Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
     }
 
     public UserDto getUserById(Long id) {
         User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+                .orElseThrow(() -> new NotFoundException("User", id));
         return userMapper.toDto(user);
     }
 
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found with id: " + id);
+            throw new NotFoundException("User", id);
         }
-        userRepository.deleteById(id);
+        // every shard has a copy of the user, each deletes it with the projects and tasks it holds
+        shards.onEachShard(false, shard -> {
+            taskActivityRepository.deleteByUserTasks(id);
+            userRepository.deleteById(id);
+            return null;
+        });
+        // assigned tasks are removed with the user, in whatever projects they were
+        eventPublisher.publishEvent(new TasksRemovedEvent(null));
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Type.USER, id, true));
     }
 
     public boolean existsByEmail(String email) {
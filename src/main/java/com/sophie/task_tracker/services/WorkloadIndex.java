@@ -0,0 +1,124 @@
+package com.sophie.task_tracker.services;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// users that can be assigned work, ordered by load so the least loaded one is first. The order is
+// a skip list and every user has their own lock, so picking and updating cost O(log n) and
+// concurrent assignments only wait for each other when they touch the same user
+class WorkloadIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingLong((Entry e) -> e.load)
+            .thenComparingLong(e -> e.userId);
+
+    // immutable, a load change replaces the user's entry in the set
+    private static final class Entry {
+        private final long load;
+        private final long userId;
+
+        private Entry(long load, long userId) {
+            this.load = load;
+            this.userId = userId;
+        }
+    }
+
+    private static final class Slot {
+        private Entry entry;
+        private boolean removed;
+    }
+
+    private final ConcurrentSkipListSet<Entry> order = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    void addUser(Long userId) {
+        Slot slot = new Slot();
+        if (slots.putIfAbsent(userId, slot) == null) {
+            synchronized (slot) {
+                slot.entry = new Entry(0, userId);
+                order.add(slot.entry);
+            }
+        }
+    }
+
+    void removeUser(Long userId) {
+        Slot slot = slots.remove(userId);
+        if (slot != null) {
+            synchronized (slot) {
+                slot.removed = true;
+                if (slot.entry != null) {
+                    order.remove(slot.entry);
+                }
+            }
+        }
+    }
+
+    // users that aren't eligible are ignored
+    void adjust(Long userId, long delta) {
+        Slot slot = slots.get(userId);
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            if (!slot.removed && slot.entry != null) {
+                replace(slot, slot.entry.load + delta);
+            }
+        }
+    }
+
+    // the least loaded user, whose load goes up by weight right away so a concurrent pick sees it.
+    // null if there is no eligible user
+    Long pick(long weight) {
+        while (true) {
+            Entry first;
+            try {
+                first = order.first();
+            } catch (NoSuchElementException e) {
+                return null;
+            }
+            Slot slot = slots.get(first.userId);
+            if (slot == null) {
+                continue;  // being removed, the entry goes away in a moment
+            }
+            synchronized (slot) {
+                // someone else picked or updated this user since we looked, look again
+                if (!slot.removed && slot.entry == first) {
+                    replace(slot, first.load + weight);
+                    return first.userId;
+                }
+            }
+        }
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    // -1 if the user isn't eligible
+    long load(Long userId) {
+        Slot slot = slots.get(userId);
+        if (slot == null) {
+            return -1;
+        }
+        synchronized (slot) {
+            return slot.removed || slot.entry == null ? -1 : slot.entry.load;
+        }
+    }
+
+    // caller holds the slot's lock. The new entry goes in before the old one comes out, otherwise
+    // the user is missing from the order in between and a holder that gets descheduled there has
+    // every concurrent pick pass them over. A pick that finds the old entry first waits on the lock
+    // and looks again
+    private void replace(Slot slot, long load) {
+        Entry previous = slot.entry;
+        if (load == previous.load) {
+            return;  // an equal entry would not go in, and removing the old one would lose the user
+        }
+        slot.entry = new Entry(load, previous.userId);
+        order.add(slot.entry);
+        order.remove(previous);
+    }
+}
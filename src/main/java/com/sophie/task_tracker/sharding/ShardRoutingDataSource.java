@@ -0,0 +1,38 @@
+package com.sophie.task_tracker.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// one pool per shard, a new connection comes from the shard the thread is on (Shards.pin/onShard).
+// Nothing picked means shard 0, which also holds what isn't sharded: users, change_log, idempotency keys
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+    }
+
+    public List<HikariDataSource> getShards() {
+        return shards;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Shards.current();
+    }
+
+    public void close() {
+        shards.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,97 @@
+package com.sophie.task_tracker.sharding;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Hibernate only creates the schema on shard 0 (the default target). This copies it to the other
+// shards and strides the ids that say where a row lives: shard s hands out s+1, s+1+n, s+1+2n...
+// With ddl-auto create/create-drop Hibernate starts shard 0 over on every start, so the other shards
+// are dropped and copied again as well. Otherwise a shard has to match shard 0's tables, columns and
+// constraints, and startup stops rather than drop its data.
+// H2 only; with another database create the shards from migrations and set the identities the same way
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardSchemaInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    // projects and tasks are routed by id; change_log ids have to be unique across shards for the poller
+    private static final List<String> STRIDED_TABLES = List.of("projects", "tasks", "change_log");
+
+    private final ShardRoutingDataSource routingDataSource;
+    // not used, it's here so the schema exists before we copy it
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${spring.jpa.hibernate.ddl-auto:none}")
+    private String ddlAuto;
+
+    @PostConstruct
+    public void initialize() {
+        List<JdbcTemplate> shards = routingDataSource.getShards().stream().map(JdbcTemplate::new).toList();
+        List<String> script = shards.get(0).queryForList("SCRIPT NODATA", String.class);
+        List<String> expected = describe(shards.get(0));
+        boolean recreate = ddlAuto.startsWith("create");
+        for (int shard = 1; shard < shards.size(); shard++) {
+            List<String> actual = describe(shards.get(shard));
+            if (!actual.isEmpty()) {
+                if (recreate) {
+                    shards.get(shard).execute("DROP ALL OBJECTS");
+                } else if (actual.equals(expected)) {
+                    continue;
+                } else {
+                    throw new IllegalStateException("The schema of shard " + shard + " differs from shard 0, migrate it first");
+                }
+            }
+            copySchema(shards.get(shard), script);
+            log.info("Created schema on shard {}", shard);
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (String table : STRIDED_TABLES) {
+                stride(shards.get(shard), table, shard, shards.size());
+            }
+        }
+    }
+
+    // columns and constraints, enough to notice an entity change. Empty when the shard is new
+    private static List<String> describe(JdbcTemplate shard) {
+        List<String> schema = new ArrayList<>(shard.queryForList(
+                "SELECT TABLE_NAME || '.' || COLUMN_NAME || ' ' || DATA_TYPE || ' ' || IS_NULLABLE"
+                        + " FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = 'PUBLIC' ORDER BY TABLE_NAME, ORDINAL_POSITION",
+                String.class));
+        schema.addAll(shard.queryForList(
+                "SELECT TABLE_NAME || ' ' || CONSTRAINT_TYPE || ' ' || CONSTRAINT_NAME"
+                        + " FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS WHERE TABLE_SCHEMA = 'PUBLIC' ORDER BY TABLE_NAME, CONSTRAINT_NAME",
+                String.class));
+        return schema;
+    }
+
+    private static void copySchema(JdbcTemplate shard, List<String> script) {
+        for (String statement : script) {
+            String sql = statement.trim();
+            // comments and the admin user the script starts with, the pool already logs in as it
+            if (sql.isEmpty() || sql.startsWith("--") || sql.startsWith("CREATE USER")) {
+                continue;
+            }
+            shard.execute(sql.endsWith(";") ? sql.substring(0, sql.length() - 1) : sql);
+        }
+    }
+
+    // next id above what's there that belongs to this shard, then steps of n
+    private static void stride(JdbcTemplate shard, String table, int index, int count) {
+        Long max = shard.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        long next = max + 1 + Math.floorMod(index - max, count);
+        shard.execute("ALTER TABLE " + table + " ALTER COLUMN id SET INCREMENT BY " + count);
+        shard.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+    }
+}
@@ -0,0 +1,107 @@
+package com.sophie.task_tracker.sharding;
+
+import com.sophie.task_tracker.events.EntityChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// users are written to shard 0 and copied to the others after commit, so projects, tasks and
+// members keep their foreign keys wherever they live. Deletes go to every shard from UserService.
+// A copy that fails (shard down) is retried on a timer, and every user is copied again at startup
+// for whatever was lost while this node was off
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+public class ShardUserReplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardUserReplicator.class);
+
+    private final ShardRoutingDataSource routingDataSource;
+
+    private final Set<Long> failed = ConcurrentHashMap.newKeySet();
+    private volatile boolean reconciled;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getType() == EntityChangedEvent.Type.USER && !event.isDeleted()) {
+            try {
+                copy(event.getId());
+            } catch (DataAccessException e) {
+                failed.add(event.getId());
+                log.warn("Copying user {} to the shards failed, will retry: {}", event.getId(), e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        try {
+            List<JdbcTemplate> shards = shards();
+            List<Map<String, Object>> rows = shards.get(0).queryForList("SELECT * FROM users ORDER BY id");
+            merge(shards, rows);
+            reconciled = true;
+            log.info("Copied {} users to {} shards", rows.size(), shards.size() - 1);
+        } catch (DataAccessException e) {
+            log.warn("Copying users to the shards failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.sharding.user-retry-ms:30000}")
+    public void retryFailed() {
+        if (!reconciled) {
+            // a full copy covers the single ones as well
+            failed.clear();
+            reconcile();
+            return;
+        }
+        for (Long userId : failed) {
+            try {
+                copy(userId);
+                failed.remove(userId);
+            } catch (DataAccessException e) {
+                log.debug("Retrying the copy of user {} failed: {}", userId, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void copy(Long userId) {
+        List<JdbcTemplate> shards = shards();
+        merge(shards, shards.get(0).queryForList("SELECT * FROM users WHERE id = ?", userId));
+    }
+
+    private static void merge(List<JdbcTemplate> shards, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<String, Object> first = rows.get(0);
+        String sql = "MERGE INTO users (" + String.join(", ", first.keySet()) + ") KEY (id) VALUES ("
+                + String.join(", ", Collections.nCopies(first.size(), "?")) + ")";
+        List<Object[]> values = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            values.add(row.values().toArray());
+        }
+        for (int shard = 1; shard < shards.size(); shard++) {
+            shards.get(shard).batchUpdate(sql, values);
+        }
+    }
+
+    private List<JdbcTemplate> shards() {
+        return routingDataSource.getShards().stream().map(JdbcTemplate::new).toList();
+    }
+}
@@ -0,0 +1,234 @@
+package com.sophie.task_tracker.sharding;
+
+import com.sophie.task_tracker.exception.ConflictException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// which database a project lives on when app.sharding.enabled is set. A project and everything
+// under it (tasks, members, labels, activity) sits on one shard; project and task ids are strided
+// per shard (see ShardSchemaInitializer), so the shard of either id is plain arithmetic.
+// Without sharding there is one shard and everything here runs the work in place
+@Component
+public class Shards {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> FAN_OUT_THREAD = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final int count;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ExecutorService executor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public Shards(PlatformTransactionManager transactionManager,
+                  @Value("${app.sharding.enabled:false}") boolean enabled,
+                  @Value("${app.sharding.urls:}") String[] urls,
+                  @Value("${app.sharding.fan-out-threads:8}") int threads) {
+        if (enabled && urls.length == 0) {
+            throw new IllegalStateException("app.sharding.urls is empty");
+        }
+        this.enabled = enabled;
+        this.count = enabled ? urls.length : 1;
+
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger names = new AtomicInteger();
+        executor = enabled ? Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(() -> {
+                FAN_OUT_THREAD.set(true);
+                runnable.run();
+            }, "shard-fan-out-" + names.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int shardOf(Long id) {
+        return enabled ? Math.floorMod(id - 1, count) : 0;
+    }
+
+    // the ones of ids that live on shard, all of them without sharding
+    public List<Long> idsOn(int shard, Collection<Long> ids) {
+        if (!enabled) {
+            return new ArrayList<>(ids);
+        }
+        List<Long> onShard = new ArrayList<>();
+        for (Long id : ids) {
+            if (shardOf(id) == shard) {
+                onShard.add(id);
+            }
+        }
+        return onShard;
+    }
+
+    // sends the current transaction to the shard of this project or task id. Has to run before the
+    // transaction's first statement, that's when the connection is taken (see ShardingConfig)
+    public void pin(Long id) {
+        if (enabled && id != null) {
+            pinShard(shardOf(id));
+        }
+    }
+
+    // a new project, shards take turns
+    public void pinNew() {
+        if (enabled) {
+            pinShard(Math.floorMod(nextShard.getAndIncrement(), count));
+        }
+    }
+
+    // runs work against the given shard. Only for code that opens its own transactions (caches
+    // loading through repositories, transaction templates): a transaction that already holds a
+    // connection keeps using it
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public <T> T onShardOf(Long id, Supplier<T> work) {
+        return enabled ? onShard(shardOf(id), work) : work.get();
+    }
+
+    // work once per shard, in parallel, each call in a transaction of its own on that shard.
+    // Results come back in shard order. Without sharding it's a single call in the caller's transaction
+    public <T> List<T> onEachShard(boolean readOnly, IntFunction<T> work) {
+        if (!enabled) {
+            return Collections.singletonList(work.apply(0));
+        }
+        TransactionTemplate transaction = readOnly ? readTransaction : writeTransaction;
+        List<Supplier<T>> calls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int shard = i;
+            calls.add(() -> onShard(shard, () -> transaction.execute(status -> work.apply(shard))));
+        }
+
+        List<T> results = new ArrayList<>(count);
+        // a fan-out from inside a fan-out (a cache loading, say) waiting on the same pool could
+        // starve it, so that one goes shard by shard
+        if (Boolean.TRUE.equals(FAN_OUT_THREAD.get())) {
+            calls.forEach(call -> results.add(call.get()));
+            return results;
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(count);
+        for (Supplier<T> call : calls) {
+            futures.add(CompletableFuture.supplyAsync(call, executor));
+        }
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        return results;
+    }
+
+    // every shard's rows, one shard after the other
+    public <T> List<T> queryAll(Supplier<List<T>> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        List<T> rows = new ArrayList<>();
+        onEachShard(true, shard -> query.get()).forEach(rows::addAll);
+        return rows;
+    }
+
+    // a page of a query sorted across shards. Each shard returns its first offset + size rows in
+    // the page's order and the merged list is cut to the page; order has to agree with the page's
+    // sort and end on something unique, or rows can go missing between pages
+    public <T> List<T> queryPage(Pageable page, Comparator<? super T> order, Function<Pageable, List<T>> query) {
+        if (!enabled) {
+            return query.apply(page);
+        }
+        if (page.isUnpaged()) {
+            List<T> rows = queryAll(() -> query.apply(page));
+            rows.sort(order);
+            return rows;
+        }
+        int offset = (int) page.getOffset();
+        Pageable head = PageRequest.of(0, offset + page.getPageSize(), page.getSort());
+        List<T> rows = queryAll(() -> query.apply(head));
+        rows.sort(order);
+        if (rows.size() <= offset) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(rows.subList(offset, Math.min(rows.size(), offset + page.getPageSize())));
+    }
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    private void pinShard(int shard) {
+        Integer current = CURRENT.get();
+        if (current != null) {
+            if (current != shard) {
+                throw new ConflictException("The projects in this request are on different shards, send them separately");
+            }
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("A shard can only be picked inside a transaction");
+        }
+        CURRENT.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                CURRENT.remove();
+            }
+        });
+    }
+}
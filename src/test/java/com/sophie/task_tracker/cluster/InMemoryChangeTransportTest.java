@@ -0,0 +1,60 @@
+package com.sophie.task_tracker.cluster;
+
+import com.sophie.task_tracker.events.EntityChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// two nodes in one JVM, each with its own transport and relay
+class InMemoryChangeTransportTest {
+
+    private final InMemoryChangeTransport transportA = new InMemoryChangeTransport();
+    private final InMemoryChangeTransport transportB = new InMemoryChangeTransport();
+    private final List<Object> eventsA = new ArrayList<>();
+    private final List<Object> eventsB = new ArrayList<>();
+    private final ChangeRelay relayA = new ChangeRelay(transportA, eventsA::add, "node-a");
+    private final ChangeRelay relayB = new ChangeRelay(transportB, eventsB::add, "node-b");
+
+    @AfterEach
+    void close() {
+        transportA.close();
+        transportB.close();
+    }
+
+    @Test
+    @DisplayName("A change published on one node reaches every node's next poll once")
+    void transport() {
+        ChangeNotification notification = new ChangeNotification("node-a", ChangeNotification.Type.PROJECT, 7L);
+        transportA.publish(List.of(notification));
+
+        assertThat(transportA.poll()).containsExactly(notification);
+        assertThat(transportB.poll()).containsExactly(notification);
+        assertThat(transportA.poll()).isEmpty();
+        assertThat(transportB.poll()).isEmpty();
+
+        // a closed node drops out
+        transportB.close();
+        transportA.publish(List.of(notification));
+        assertThat(transportB.poll()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("The relay republishes the other node's changes and skips its own")
+    void relay() {
+        relayA.onEntityChanged(new EntityChangedEvent(EntityChangedEvent.Type.USER, 3L, false));
+        relayA.pollRemoteChanges();
+        relayB.pollRemoteChanges();
+
+        assertThat(eventsA).isEmpty();
+        assertThat(eventsB).hasSize(1);
+        ChangeNotification received = ((RemoteChangeEvent) eventsB.get(0)).getNotification();
+        assertThat(received.getNode()).isEqualTo("node-a");
+        assertThat(received.getType()).isEqualTo(ChangeNotification.Type.USER);
+        assertThat(received.getId()).isEqualTo(3L);
+    }
+}
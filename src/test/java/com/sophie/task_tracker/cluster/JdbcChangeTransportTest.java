@@ -0,0 +1,87 @@
+package com.sophie.task_tracker.cluster;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// a transport of our own on the test database, the context's relay keeps using the in-memory one
+@SpringBootTest
+class JdbcChangeTransportTest {
+
+    @Autowired private AutowireCapableBeanFactory beanFactory;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private JdbcChangeTransport transport;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void transport() {
+        transport = beanFactory.createBean(JdbcChangeTransport.class);
+        transaction = new TransactionTemplate(transactionManager);
+        assertThat(transport.poll()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Each poll returns only what was committed since the previous one")
+    void incremental() {
+        ChangeNotification first = notification(ChangeNotification.Type.PROJECT_TASKS, 1L);
+        ChangeNotification second = notification(ChangeNotification.Type.ALL_TASKS, null);
+        publish(first);
+        publish(second);
+
+        assertThat(transport.poll()).containsExactly(first, second);
+        assertThat(transport.poll()).isEmpty();
+
+        ChangeNotification third = notification(ChangeNotification.Type.USER, 2L);
+        publish(third);
+        assertThat(transport.poll()).containsExactly(third);
+    }
+
+    @Test
+    @DisplayName("A commit landing behind an id already read is still picked up")
+    void lateCommit() throws Exception {
+        ChangeNotification slow = notification(ChangeNotification.Type.PROJECT, 10L);
+        ChangeNotification fast = notification(ChangeNotification.Type.PROJECT, 11L);
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> slowWriter = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            transport.publish(List.of(slow));
+            inserted.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(inserted.await(10, TimeUnit.SECONDS)).isTrue();
+        publish(fast);
+
+        assertThat(transport.poll()).containsExactly(fast);
+        release.countDown();
+        slowWriter.get(10, TimeUnit.SECONDS);
+
+        assertThat(transport.poll()).containsExactly(slow);
+        assertThat(transport.poll()).isEmpty();
+    }
+
+    private void publish(ChangeNotification notification) {
+        transaction.executeWithoutResult(status -> transport.publish(List.of(notification)));
+    }
+
+    private static ChangeNotification notification(ChangeNotification.Type type, Long id) {
+        return new ChangeNotification("jdbc-test", type, id);
+    }
+}
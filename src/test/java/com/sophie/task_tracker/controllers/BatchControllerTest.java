@@ -0,0 +1,262 @@
+package com.sophie.task_tracker.controllers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sophie.task_tracker.dto.BatchResponseDto;
+import com.sophie.task_tracker.dto.LoginDto;
+import com.sophie.task_tracker.dto.ProjectCreateDto;
+import com.sophie.task_tracker.dto.TaskCreateDto;
+import com.sophie.task_tracker.dto.TaskDto;
+import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.services.AuthService;
+import com.sophie.task_tracker.services.ProjectService;
+import com.sophie.task_tracker.services.TaskService;
+import com.sophie.task_tracker.services.UserService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// sub-requests go to the DispatcherServlet the embedded server started, so this runs on a real
+// port; the batch itself is sent through MockMvc with a real token
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.mvc.servlet.load-on-startup=1")
+@AutoConfigureMockMvc
+@Import(BatchControllerTest.ProbeController.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BatchControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private UserService userService;
+    @Autowired private AuthService authService;
+    @Autowired private ProjectService projectService;
+    @Autowired private TaskService taskService;
+
+    private String managerToken;
+    private String userToken;
+    private Long projectId;
+    private TaskDto task;
+
+    @BeforeAll
+    void seed() {
+        Long managerId = register("batch-manager@example.com", Role.MANAGER);
+        register("batch-user@example.com", Role.USER);
+        managerToken = login("batch-manager@example.com");
+        userToken = login("batch-user@example.com");
+
+        ProjectCreateDto project = new ProjectCreateDto();
+        project.setName("batch");
+        projectId = projectService.createProject(project, managerId).getId();
+
+        TaskCreateDto create = new TaskCreateDto();
+        create.setTitle("batched");
+        create.setProjectId(projectId);
+        task = taskService.createTask(create, managerId, Role.MANAGER);
+    }
+
+    @Test
+    @DisplayName("Consecutive GETs run in parallel on the batch pool, each with the caller's SecurityContext")
+    void parallelReads() throws Exception {
+        List<BatchResponseDto> results = batch(managerToken,
+                call("GET", "/api/tasks/batch-probe/barrier", null, null),
+                call("GET", "/api/tasks/batch-probe/barrier", null, null));
+
+        // the barrier needs both GETs inside it at the same time
+        for (BatchResponseDto result : results) {
+            assertThat(result.getStatus()).isEqualTo(200);
+            assertThat(result.getBody().get("passed").asBoolean()).isTrue();
+            assertThat(result.getBody().get("thread").asText()).startsWith("batch-");
+            assertThat(result.getBody().get("name").asText()).isEqualTo("batch-manager@example.com");
+        }
+        assertThat(results.get(0).getBody().get("thread").asText())
+                .isNotEqualTo(results.get(1).getBody().get("thread").asText());
+
+        // same pool threads, next caller: nothing of the manager is left behind
+        results = batch(userToken,
+                call("GET", "/api/tasks/batch-probe/barrier", null, null),
+                call("GET", "/api/tasks/batch-probe/barrier", null, null));
+        assertThat(results.stream().map(result -> result.getBody().get("name").asText()).toList())
+                .containsExactly("batch-user@example.com", "batch-user@example.com");
+    }
+
+    @Test
+    @DisplayName("Writes run one at a time in list order, each with its own ETag")
+    void orderedWrites() throws Exception {
+        long version = task.getVersion();
+        String url = "/api/tasks/" + task.getId();
+
+        List<BatchResponseDto> results = batch(managerToken,
+                call("PUT", url, Map.of("If-Match", etag(version)), Map.of("title", "first")),
+                call("PUT", url, Map.of("If-Match", etag(version + 1)), Map.of("title", "second")),
+                // stale by now, gets 412 with the current version
+                call("PUT", url, Map.of("If-Match", etag(version)), Map.of("title", "lost")),
+                call("GET", url, null, null));
+
+        assertThat(results).extracting(BatchResponseDto::getStatus).containsExactly(200, 200, 412, 200);
+        assertThat(results.get(0).getHeaders()).containsEntry(HttpHeaders.ETAG, etag(version + 1));
+        assertThat(results.get(1).getHeaders()).containsEntry(HttpHeaders.ETAG, etag(version + 2));
+        assertThat(results.get(2).getHeaders()).containsEntry(HttpHeaders.ETAG, etag(version + 2));
+        assertThat(results.get(3).getBody().get("title").asText()).isEqualTo("second");
+    }
+
+    @Test
+    @DisplayName("Every call gets its own status, a failing one doesn't stop the rest")
+    void perItemStatus() throws Exception {
+        List<BatchResponseDto> results = batch(userToken,
+                call("GET", "/api/tasks/" + Long.MAX_VALUE, null, null),
+                call("GET", "/api/projects/" + projectId, null, null),
+                call("GET", "/api/users", null, null),
+                call("TRACE", "/api/tasks", null, null),
+                call("GET", "/api/tasks/batch-probe/barrier?parties=1", null, null));
+
+        assertThat(results).extracting(BatchResponseDto::getStatus).containsExactly(404, 403, 403, 405, 200);
+        assertThat(results.get(0).getBody().get("message").asText()).contains("not found");
+    }
+
+    @Test
+    @DisplayName("Only the task, project and user APIs can be called")
+    void prefixAllowList() throws Exception {
+        List<BatchResponseDto> results = batch(managerToken,
+                call("POST", "/api/auth/login", null, Map.of("email", "batch-user@example.com", "password", "password")),
+                call("POST", "/api/batch", null, List.of()),
+                call("GET", "/api/tasksearch", null, null),
+                call("GET", "/h2-console", null, null),
+                call("GET", "/api/projects", null, null),
+                call("GET", "/api/users/search?prefix=batch", null, null));
+
+        assertThat(results).extracting(BatchResponseDto::getStatus).containsExactly(400, 400, 400, 400, 200, 200);
+        assertThat(results.get(0).getBody().get("message").asText()).contains("can be called in a batch");
+    }
+
+    @Test
+    @DisplayName("Location and ETag are passed on, other response headers are not")
+    void headers() throws Exception {
+        BatchResponseDto result = batch(managerToken, call("POST", "/api/tasks/batch-probe/created", null, Map.of())).get(0);
+
+        assertThat(result.getStatus()).isEqualTo(201);
+        assertThat(result.getHeaders())
+                .containsEntry(HttpHeaders.LOCATION, "/api/tasks/42")
+                .containsEntry(HttpHeaders.ETAG, etag(3))
+                .doesNotContainKey("X-Probe");
+    }
+
+    @Test
+    @DisplayName("More calls than app.batch.max-requests are turned away as a whole")
+    void tooMany() throws Exception {
+        List<Map<String, Object>> calls = new ArrayList<>();
+        for (int i = 0; i < 21; i++) {
+            calls.add(call("GET", "/api/projects", null, null));
+        }
+        mockMvc.perform(post("/api/batch")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + managerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(calls)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @SafeVarargs
+    private List<BatchResponseDto> batch(String token, Map<String, Object>... calls) throws Exception {
+        String json = mockMvc.perform(post("/api/batch")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(calls))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<BatchResponseDto> results = objectMapper.readValue(json, new TypeReference<>() {});
+        assertThat(results).hasSize(calls.length);
+        return results;
+    }
+
+    private static Map<String, Object> call(String method, String url, Map<String, String> headers, Object body) {
+        Map<String, Object> call = new LinkedHashMap<>();
+        call.put("method", method);
+        call.put("url", url);
+        if (headers != null) {
+            call.put("headers", headers);
+        }
+        if (body != null) {
+            call.put("body", body);
+        }
+        return call;
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private Long register(String email, Role role) {
+        UserRegistrationDto user = new UserRegistrationDto();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setRole(role);
+        return userService.registerUser(user).getId();
+    }
+
+    private String login(String email) {
+        LoginDto login = new LoginDto();
+        login.setEmail(email);
+        login.setPassword("password");
+        return authService.login(login).getToken();
+    }
+
+    // reports what a sub-request sees on the thread it runs on
+    @RestController
+    static class ProbeController {
+
+        private static final CyclicBarrier BARRIER = new CyclicBarrier(2);
+
+        @GetMapping("/api/tasks/batch-probe/barrier")
+        public Map<String, Object> barrier(@RequestParam(defaultValue = "2") int parties) {
+            boolean passed = true;
+            if (parties > 1) {
+                try {
+                    BARRIER.await(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    BARRIER.reset();
+                    passed = false;
+                }
+            }
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            return Map.of("passed", passed,
+                    "thread", Thread.currentThread().getName(),
+                    "name", authentication != null ? authentication.getName() : "");
+        }
+
+        @PostMapping("/api/tasks/batch-probe/created")
+        public ResponseEntity<JsonNode> created() {
+            return ResponseEntity.created(URI.create("/api/tasks/42"))
+                    .eTag("3")
+                    .header("X-Probe", "not passed on")
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.sophie.task_tracker.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sophie.task_tracker.dto.LoginDto;
+import com.sophie.task_tracker.dto.ProjectCreateDto;
+import com.sophie.task_tracker.dto.ProjectDto;
+import com.sophie.task_tracker.dto.TaskCreateDto;
+import com.sophie.task_tracker.dto.TaskDto;
+import com.sophie.task_tracker.dto.TaskUpdateDto;
+import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.entities.Task;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.services.AuthService;
+import com.sophie.task_tracker.services.OptimisticLockRetry;
+import com.sophie.task_tracker.services.ProjectService;
+import com.sophie.task_tracker.services.TaskService;
+import com.sophie.task_tracker.services.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// If-Match and ETag on the update endpoints. Lost races are hard to time for real, so the
+// conflict cases have the service throw what Hibernate throws on a stale row
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OptimisticLockingTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private UserService userService;
+    @Autowired private AuthService authService;
+    @Autowired private ProjectService projectService;
+    @Autowired private MeterRegistry meterRegistry;
+    @SpyBean private TaskService taskService;
+
+    private Long managerId;
+    private String token;
+    private Long projectId;
+
+    @BeforeAll
+    void seed() {
+        UserRegistrationDto manager = new UserRegistrationDto();
+        manager.setEmail("locking-manager@example.com");
+        manager.setPassword("password");
+        manager.setRole(Role.MANAGER);
+        managerId = userService.registerUser(manager).getId();
+
+        LoginDto login = new LoginDto();
+        login.setEmail("locking-manager@example.com");
+        login.setPassword("password");
+        token = authService.login(login).getToken();
+
+        ProjectCreateDto project = new ProjectCreateDto();
+        project.setName("locking");
+        projectId = projectService.createProject(project, managerId).getId();
+    }
+
+    @Test
+    @DisplayName("GET and PUT return the version as ETag, a stale If-Match gets 412 with the current one")
+    void etag() throws Exception {
+        TaskDto task = createTask("etag");
+        String url = "/api/tasks/" + task.getId();
+        long version = task.getVersion();
+
+        mockMvc.perform(auth(get(url)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(version)));
+        mockMvc.perform(auth(put(url)).header(HttpHeaders.IF_MATCH, etag(version)).content(json(Map.of("title", "first"))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(version + 1)));
+        mockMvc.perform(auth(put(url)).header(HttpHeaders.IF_MATCH, etag(version)).content(json(Map.of("title", "lost"))))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(version + 1)));
+
+        // weak and bare versions are read the same way
+        mockMvc.perform(auth(put(url)).header(HttpHeaders.IF_MATCH, "W/" + etag(version + 1)).content(json(Map.of("title", "second"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(auth(put(url)).header(HttpHeaders.IF_MATCH, String.valueOf(version + 2)).content(json(Map.of("title", "third"))))
+                .andExpect(status().isOk());
+
+        ProjectDto project = projectService.getProjectById(projectId, managerId, Role.MANAGER);
+        mockMvc.perform(auth(put("/api/projects/" + projectId)).header(HttpHeaders.IF_MATCH, etag(project.getVersion() + 1))
+                        .content(json(Map.of("name", "locking"))))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(project.getVersion())));
+    }
+
+    @Test
+    @DisplayName("Only a missing If-Match or * skips the check, anything unreadable is a 400")
+    void invalidIfMatch() throws Exception {
+        TaskDto task = createTask("if-match");
+        String url = "/api/tasks/" + task.getId();
+
+        for (String value : new String[]{"\"1\", \"2\"", "abc", "\"1", "W/", "-1", "99999999999999999999"}) {
+            mockMvc.perform(auth(put(url)).header(HttpHeaders.IF_MATCH, value).content(json(Map.of("title", "nope"))))
+                    .andExpect(status().isBadRequest());
+        }
+        assertThat(taskService.getTaskById(task.getId(), managerId, Role.MANAGER).getTitle()).isEqualTo("if-match");
+
+        mockMvc.perform(auth(put(url)).header(HttpHeaders.IF_MATCH, "*").content(json(Map.of("title", "any"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(auth(put(url)).content(json(Map.of("title", "none"))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("A status PATCH without If-Match is retried after a lost race, and counted")
+    void retry() throws Exception {
+        TaskDto task = createTask("retry");
+        doThrow(new ObjectOptimisticLockingFailureException(Task.class, task.getId()))
+                .doCallRealMethod()
+                .when(taskService).updateTask(eq(task.getId()), any(TaskUpdateDto.class), any(), any());
+        double retried = conflicts("status", "retried");
+
+        mockMvc.perform(auth(patch("/api/tasks/" + task.getId() + "/status")).param("status", TaskStatus.IN_PROGRESS.name()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag(task.getVersion() + 1)));
+        assertThat(conflicts("status", "retried")).isEqualTo(retried + 1);
+    }
+
+    @Test
+    @DisplayName("A PUT that loses the race gets 409 and is counted as rejected")
+    void conflict() throws Exception {
+        TaskDto task = createTask("conflict");
+        doThrow(new ObjectOptimisticLockingFailureException(Task.class, task.getId()))
+                .when(taskService).updateTask(eq(task.getId()), any(TaskUpdateDto.class), any(), any(), any());
+        double rejected = conflicts("update", "rejected");
+
+        mockMvc.perform(auth(put("/api/tasks/" + task.getId())).header(HttpHeaders.IF_MATCH, etag(task.getVersion()))
+                        .content(json(Map.of("title", "raced"))))
+                .andExpect(status().isConflict());
+        assertThat(conflicts("update", "rejected")).isEqualTo(rejected + 1);
+
+        // with a pinned version the status PATCH is not retried either
+        double statusRejected = conflicts("status", "rejected");
+        mockMvc.perform(auth(patch("/api/tasks/" + task.getId() + "/status")).param("status", TaskStatus.IN_PROGRESS.name())
+                        .header(HttpHeaders.IF_MATCH, etag(task.getVersion())))
+                .andExpect(status().isConflict());
+        assertThat(conflicts("status", "rejected")).isEqualTo(statusRejected + 1);
+    }
+
+    private TaskDto createTask(String title) {
+        TaskCreateDto task = new TaskCreateDto();
+        task.setTitle(title);
+        task.setProjectId(projectId);
+        // status changes are only allowed to the assignee
+        task.setAssignedUserId(managerId);
+        return taskService.createTask(task, managerId, Role.MANAGER);
+    }
+
+    private double conflicts(String operation, String outcome) {
+        return meterRegistry.counter(OptimisticLockRetry.CONFLICT_METRIC,
+                "entity", "task", "operation", operation, "outcome", outcome).count();
+    }
+
+    private MockHttpServletRequestBuilder auth(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token).contentType(MediaType.APPLICATION_JSON);
+    }
+
+    private String json(Object body) throws Exception {
+        return objectMapper.writeValueAsString(body);
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+}
@@ -0,0 +1,193 @@
+package com.sophie.task_tracker.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sophie.task_tracker.exception.BadRequestException;
+import com.sophie.task_tracker.exception.ConflictException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// stores are built by hand so two of them can share the table like two instances would
+@SpringBootTest(properties = "app.idempotency.persistent=true")
+class IdempotencyStoreTest {
+
+    private static final String SCOPE = "test";
+    private static final int DUPLICATES = 8;
+
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private JdbcIdempotencyBackend backend;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Duplicates arriving while the first request runs wait for it and get its response")
+    void concurrentDuplicates() throws Exception {
+        IdempotencyStore store = store(backend, 100000);
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < DUPLICATES; i++) {
+            responses.add(executor.submit(() -> store.execute(key, SCOPE, "body", String.class,
+                    blocking(runs, release, "created"))));
+        }
+        // let them all pile up behind the first
+        Thread.sleep(300);
+        assertThat(runs.get()).isEqualTo(1);
+        release.countDown();
+
+        int replayed = 0;
+        for (Future<ResponseEntity<String>> response : responses) {
+            ResponseEntity<String> result = response.get(10, TimeUnit.SECONDS);
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(result.getBody()).isEqualTo("created");
+            if (result.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)) {
+                replayed++;
+            }
+        }
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(replayed).isEqualTo(DUPLICATES - 1);
+    }
+
+    @Test
+    @DisplayName("A retry on another instance waits for the request holding the key instead of running it again")
+    void otherInstance() throws Exception {
+        IdempotencyStore first = store(backend, 100000);
+        IdempotencyStore second = store(backend, 100000);
+        String key = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<ResponseEntity<String>> original = executor.submit(() -> first.execute(key, SCOPE, "body", String.class,
+                blocking(runs, release, "created")));
+        while (runs.get() == 0) {
+            Thread.sleep(10);
+        }
+        Future<ResponseEntity<String>> retry = executor.submit(() -> second.execute(key, SCOPE, "body", String.class,
+                blocking(runs, release, "duplicate")));
+
+        // same key with another body is rejected right away, even while pending
+        IdempotencyStore third = store(backend, 100000);
+        assertThatThrownBy(() -> third.execute(key, SCOPE, "other body", String.class, blocking(runs, release, "other")))
+                .isInstanceOf(ConflictException.class);
+
+        Thread.sleep(300);
+        assertThat(retry.isDone()).isFalse();
+        release.countDown();
+
+        assertThat(original.get(10, TimeUnit.SECONDS).getBody()).isEqualTo("created");
+        ResponseEntity<String> replayed = retry.get(10, TimeUnit.SECONDS);
+        assertThat(replayed.getBody()).isEqualTo("created");
+        assertThat(replayed.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A failed request gives its claim back, so the key can be retried on any instance")
+    void failedRequestReleasesClaim() {
+        IdempotencyStore first = store(backend, 100000);
+        IdempotencyStore second = store(backend, 100000);
+        String key = UUID.randomUUID().toString();
+
+        assertThatThrownBy(() -> first.execute(key, SCOPE, "body", String.class, () -> {
+            throw new BadRequestException("nope");
+        })).isInstanceOf(BadRequestException.class);
+        assertThat(backend.find(SCOPE + "|" + key, LocalDateTime.now().minusMinutes(1))).isNull();
+
+        ResponseEntity<String> retry = second.execute(key, SCOPE, "body", String.class,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("created"));
+        assertThat(retry.getBody()).isEqualTo("created");
+        assertThat(retry.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A full stripe doesn't evict a request that is still running")
+    void runningEntryNotEvicted() throws Exception {
+        // one entry per stripe, and no table behind it to fall back on
+        IdempotencyStore store = store(null, 64);
+        String running = UUID.randomUUID().toString();
+        String neighbour = sameStripe(running);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<ResponseEntity<String>> original = executor.submit(() -> store.execute(running, SCOPE, "body", String.class,
+                blocking(runs, release, "created")));
+        while (runs.get() == 0) {
+            Thread.sleep(10);
+        }
+        store.execute(neighbour, SCOPE, "body", String.class, () -> ResponseEntity.ok("neighbour"));
+
+        Future<ResponseEntity<String>> retry = executor.submit(() -> store.execute(running, SCOPE, "body", String.class,
+                blocking(runs, release, "duplicate")));
+        Thread.sleep(300);
+        release.countDown();
+
+        assertThat(original.get(10, TimeUnit.SECONDS).getBody()).isEqualTo("created");
+        assertThat(retry.get(10, TimeUnit.SECONDS).getBody()).isEqualTo("created");
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    private static Supplier<ResponseEntity<String>> blocking(AtomicInteger runs, CountDownLatch release, String body) {
+        return () -> {
+            runs.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(body);
+        };
+    }
+
+    // a key whose store key hashes into the same of the 64 stripes
+    private static String sameStripe(String key) {
+        int stripe = Math.floorMod((SCOPE + "|" + key).hashCode(), 64);
+        for (int i = 0; ; i++) {
+            String candidate = key + "-" + i;
+            if (Math.floorMod((SCOPE + "|" + candidate).hashCode(), 64) == stripe) {
+                return candidate;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private IdempotencyStore store(IdempotencyBackend backend, int maxEntries) {
+        ObjectProvider<IdempotencyBackend> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(backend);
+        IdempotencyStore store = new IdempotencyStore(objectMapper, provider);
+        ReflectionTestUtils.setField(store, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(store, "ttlMinutes", 1440L);
+        ReflectionTestUtils.setField(store, "waitMs", 10000L);
+        ReflectionTestUtils.setField(store, "claimTimeoutMs", 300000L);
+        return store;
+    }
+}
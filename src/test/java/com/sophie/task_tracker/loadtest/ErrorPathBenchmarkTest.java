@@ -0,0 +1,70 @@
+package com.sophie.task_tracker.loadtest;
+
+import com.sophie.task_tracker.exception.ForbiddenException;
+import com.sophie.task_tracker.exception.NotFoundException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// throw-and-handle cost of the 404/403 path, old style (new RuntimeException with a built message)
+// against the typed exceptions. Thrown from errorpath.depth frames down, about what a request
+// through Tomcat, the security filter chain and Spring MVC has under it. Run with mvn -Ploadtest test
+@Tag("loadtest")
+class ErrorPathBenchmarkTest {
+
+    private final int depth = Integer.getInteger("errorpath.depth", 120);
+    private final int warmupMillis = Integer.getInteger("errorpath.warmupMillis", 2000);
+    private final int measureMillis = Integer.getInteger("errorpath.measureMillis", 3000);
+
+    @Test
+    void errorPath() {
+        double runtime = measure("RuntimeException (before)", id -> new RuntimeException("Task not found with id: " + id));
+        double notFound = measure("NotFoundException", id -> new NotFoundException("Task", id));
+        double forbidden = measure("ForbiddenException.TASK", id -> ForbiddenException.TASK);
+
+        System.out.printf("%nnot found %.1fx, forbidden %.1fx the throughput of a RuntimeException%n",
+                notFound / runtime, forbidden / runtime);
+        assertThat(notFound).isGreaterThan(runtime);
+        assertThat(forbidden).isGreaterThan(runtime);
+    }
+
+    // throws per second, each one caught at the top and its message read like the handler does
+    private double measure(String name, LongFunction<RuntimeException> error) {
+        run(error, warmupMillis);
+        long start = System.nanoTime();
+        long count = run(error, measureMillis);
+        double perSecond = count / ((System.nanoTime() - start) / 1e9);
+        System.out.printf("%-28s %,12.0f /s%n", name, perSecond);
+        return perSecond;
+    }
+
+    private long run(LongFunction<RuntimeException> error, int millis) {
+        long end = System.nanoTime() + millis * 1_000_000L;
+        long count = 0;
+        int length = 0;
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < 100; i++) {
+                try {
+                    descend(depth, error, ThreadLocalRandom.current().nextLong(1_000_000));
+                } catch (RuntimeException e) {
+                    length += e.getMessage().length();
+                }
+            }
+            count += 100;
+        }
+        // keeps the message building from being optimized away
+        assertThat(length).isNotZero();
+        return count;
+    }
+
+    private static int descend(int frames, LongFunction<RuntimeException> error, long id) {
+        if (frames == 0) {
+            throw error.apply(id);
+        }
+        return descend(frames - 1, error, id) + 1;
+    }
+}
@@ -0,0 +1,88 @@
+package com.sophie.task_tracker.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// collects per endpoint latencies and errors, latencies are measured from the scheduled
+// arrival time so a backed up server shows up in the numbers (no coordinated omission)
+class LatencyReport {
+
+    private static final class Endpoint {
+        private final ConcurrentLinkedQueue<Long> latenciesNanos = new ConcurrentLinkedQueue<>();
+        private final LongAdder errors = new LongAdder();
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    void record(String endpoint, long latencyNanos, boolean success) {
+        Endpoint e = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        e.latenciesNanos.add(latencyNanos);
+        if (!success) {
+            e.errors.increment();
+        }
+    }
+
+    // arrivals that could not be sent because too many requests were already in flight
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    long totalRequests() {
+        long total = dropped.sum();
+        for (Endpoint e : endpoints.values()) {
+            total += e.latenciesNanos.size();
+        }
+        return total;
+    }
+
+    long totalErrors() {
+        long total = dropped.sum();
+        for (Endpoint e : endpoints.values()) {
+            total += e.errors.sum();
+        }
+        return total;
+    }
+
+    String format(double durationSeconds, double targetRate) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Target rate %.0f req/s, duration %.1f s%n", targetRate, durationSeconds));
+        out.append(String.format("%-34s %8s %9s %7s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            List<Long> latencies = new ArrayList<>(entry.getValue().latenciesNanos);
+            Collections.sort(latencies);
+            long errors = entry.getValue().errors.sum();
+            out.append(String.format("%-34s %8d %9.1f %6.2f%% %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(),
+                    latencies.size(),
+                    latencies.size() / durationSeconds,
+                    latencies.isEmpty() ? 0.0 : 100.0 * errors / latencies.size(),
+                    percentile(latencies, 0.50),
+                    percentile(latencies, 0.95),
+                    percentile(latencies, 0.99),
+                    percentile(latencies, 1.0)));
+        }
+
+        long total = totalRequests();
+        out.append(String.format("%nTotal %d requests, %.1f req/s achieved, %d errors (%.2f%%), %d dropped%n",
+                total, total / durationSeconds, totalErrors(),
+                total == 0 ? 0.0 : 100.0 * totalErrors() / total, dropped.sum()));
+        return out.toString();
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1))) / 1_000_000.0;
+    }
+}
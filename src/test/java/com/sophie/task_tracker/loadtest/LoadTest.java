@@ -0,0 +1,267 @@
+package com.sophie.task_tracker.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sophie.task_tracker.entities.Project;
+import com.sophie.task_tracker.entities.Task;
+import com.sophie.task_tracker.entities.User;
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.repositories.ProjectRepository;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.repositories.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// open-model load test against the real API on H2: requests arrive at a fixed rate no matter
+// how fast the server answers. Run with mvn -Ploadtest test, tune with -Dloadtest.* properties
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.jpa.show-sql=false", "logging.level.org.springframework.web=WARN"})
+class LoadTest {
+
+    private static final String PASSWORD = "password123";
+    // operations that need a project of your own or a task assigned to you
+    private static final Set<String> MANAGER_ONLY = Set.of("getProject", "projectTasksSummary", "board", "createTask");
+    private static final Set<String> USER_ONLY = Set.of("updateStatus", "foreignProject");
+    // error paths, these count as ok when they get exactly this status
+    private static final Map<String, Integer> EXPECTED_STATUS = Map.of("missingTask", 404, "foreignProject", 403);
+
+    private final double rate = Double.parseDouble(System.getProperty("loadtest.rate", "100"));
+    private final int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 20);
+    private final int managers = Integer.getInteger("loadtest.managers", 5);
+    private final int users = Integer.getInteger("loadtest.users", 50);
+    private final int projectsPerManager = Integer.getInteger("loadtest.projectsPerManager", 4);
+    private final int tasksPerProject = Integer.getInteger("loadtest.tasksPerProject", 250);
+    private final int maxInFlight = Integer.getInteger("loadtest.maxInFlight", 2000);
+    private final double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0.01"));
+    // name:weight pairs, see operations() for the names
+    private final String mix = System.getProperty("loadtest.mix",
+            "listProjects:10,getProject:10,projectTasksSummary:15,board:15,getTask:20,myTasks:15,updateStatus:10,createTask:5");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private ProjectRepository projectRepository;
+    @Autowired private TaskRepository taskRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Long> allProjectIds = new ArrayList<>();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    // one logged in virtual user
+    private static final class VirtualUser {
+        private final String token;
+        private final Long id;
+        private final List<Long> projectIds = new ArrayList<>();
+        private final List<Long> taskIds = new ArrayList<>();
+
+        private VirtualUser(String token, Long id) {
+            this.token = token;
+            this.id = id;
+        }
+
+        private <T> T pick(List<T> values) {
+            return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+        }
+    }
+
+    @Test
+    void throughputAndLatency() throws Exception {
+        List<VirtualUser> managerUsers = new ArrayList<>();
+        List<VirtualUser> plainUsers = new ArrayList<>();
+        seed(managerUsers, plainUsers);
+
+        Map<String, Function<VirtualUser, HttpRequest>> operations = operations();
+        List<String> weighted = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (!operations.containsKey(parts[0])) {
+                throw new IllegalArgumentException("Unknown load test operation: " + parts[0]);
+            }
+            for (int i = 0; i < Integer.parseInt(parts[1]); i++) {
+                weighted.add(parts[0]);
+            }
+        }
+
+        LatencyReport report = new LatencyReport();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * intervalNanos;
+            if (scheduled >= end) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            String name = weighted.get(ThreadLocalRandom.current().nextInt(weighted.size()));
+            VirtualUser vu = MANAGER_ONLY.contains(name) ? pickFrom(managerUsers)
+                    : USER_ONLY.contains(name) ? pickFrom(plainUsers)
+                    : pickFrom(ThreadLocalRandom.current().nextBoolean() ? managerUsers : plainUsers);
+
+            if (!inFlight.tryAcquire()) {
+                report.recordDropped();
+                continue;
+            }
+            HttpRequest request = operations.get(name).apply(vu);
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        Integer expected = EXPECTED_STATUS.get(name);
+                        boolean ok = error == null && (expected != null ? response.statusCode() == expected : response.statusCode() < 400);
+                        report.record(name, System.nanoTime() - scheduled, ok);
+                    });
+        }
+
+        // let the last requests finish
+        inFlight.tryAcquire(maxInFlight, 30, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        String text = report.format(elapsed, rate);
+        System.out.println(text);
+        Path out = Path.of("target", "loadtest-report.txt");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, text);
+
+        double errorRate = report.totalRequests() == 0 ? 0 : (double) report.totalErrors() / report.totalRequests();
+        assertThat(errorRate).as("error rate").isLessThanOrEqualTo(maxErrorRate);
+    }
+
+    private Map<String, Function<VirtualUser, HttpRequest>> operations() {
+        Map<String, Function<VirtualUser, HttpRequest>> ops = new LinkedHashMap<>();
+        ops.put("listProjects", vu -> get(vu, "/api/projects"));
+        ops.put("getProject", vu -> get(vu, "/api/projects/" + vu.pick(vu.projectIds)));
+        ops.put("projectTasksSummary", vu -> get(vu, "/api/tasks/project/" + vu.pick(vu.projectIds) + "?fields=summary"));
+        ops.put("board", vu -> get(vu, "/api/projects/" + vu.pick(vu.projectIds) + "/board?limit=20"));
+        ops.put("getTask", vu -> get(vu, "/api/tasks/" + vu.pick(vu.taskIds)));
+        ops.put("myTasks", vu -> get(vu, "/api/tasks/assigned/" + vu.id));
+        ops.put("updateStatus", vu -> request(vu, "/api/tasks/" + vu.pick(vu.taskIds) + "/status?status="
+                + TaskStatus.values()[ThreadLocalRandom.current().nextInt(TaskStatus.values().length)], "PATCH", null));
+        ops.put("createTask", vu -> request(vu, "/api/tasks", "POST",
+                "{\"title\":\"load test task\",\"projectId\":" + vu.pick(vu.projectIds) + ",\"priority\":\"MEDIUM\"}"));
+        // not part of the default mix, run them alone to measure the 404/403 path
+        ops.put("missingTask", vu -> get(vu, "/api/tasks/-" + (1 + ThreadLocalRandom.current().nextInt(1_000_000))));
+        ops.put("foreignProject", vu -> get(vu, "/api/projects/" + vu.pick(allProjectIds)));
+        return ops;
+    }
+
+    private void seed(List<VirtualUser> managerUsers, List<VirtualUser> plainUsers) throws Exception {
+        for (int i = 0; i < managers; i++) {
+            managerUsers.add(registerAndLogin("lt-manager" + i + "@example.com", "MANAGER"));
+        }
+        for (int i = 0; i < users; i++) {
+            plainUsers.add(registerAndLogin("lt-user" + i + "@example.com", "USER"));
+        }
+
+        // projects and tasks go straight to the db, the api would take minutes for this volume
+        List<User> assignees = userRepository.findAllById(plainUsers.stream().map(vu -> vu.id).toList());
+        for (VirtualUser manager : managerUsers) {
+            User owner = userRepository.findById(manager.id).orElseThrow();
+            for (int p = 0; p < projectsPerManager; p++) {
+                Project project = new Project();
+                project.setName("load test project " + manager.id + "-" + p);
+                project.setOwner(owner);
+                project = projectRepository.save(project);
+                manager.projectIds.add(project.getId());
+                allProjectIds.add(project.getId());
+
+                List<Task> tasks = new ArrayList<>();
+                for (int t = 0; t < tasksPerProject; t++) {
+                    Task task = new Task();
+                    task.setTitle("task " + t);
+                    task.setDescription("generated by the load test");
+                    task.setProject(project);
+                    task.setAssignedUser(assignees.get((p * tasksPerProject + t) % assignees.size()));
+                    task.setPriority(TaskPriority.values()[t % TaskPriority.values().length]);
+                    task.setDueDate(LocalDate.now().plusDays(t % 90 - 30));
+                    tasks.add(task);
+                }
+                for (Task saved : taskRepository.saveAll(tasks)) {
+                    manager.taskIds.add(saved.getId());
+                    for (VirtualUser vu : plainUsers) {
+                        if (vu.id.equals(saved.getAssignedUser().getId())) {
+                            vu.taskIds.add(saved.getId());
+                        }
+                    }
+                }
+            }
+        }
+        // users without tasks would make getTask/updateStatus pick from an empty list
+        plainUsers.removeIf(vu -> vu.taskIds.isEmpty());
+    }
+
+    private VirtualUser registerAndLogin(String email, String role) throws Exception {
+        String registration = "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\",\"role\":\"" + role + "\"}";
+        send(HttpRequest.newBuilder(uri("/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(registration)).build());
+
+        String login = "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+        JsonNode body = objectMapper.readTree(send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(login)).build()));
+        return new VirtualUser(body.get("token").asText(), body.get("user").get("id").asLong());
+    }
+
+    private String send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private HttpRequest get(VirtualUser vu, String path) {
+        return request(vu, path, "GET", null);
+    }
+
+    private HttpRequest request(VirtualUser vu, String path, String method, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + vu.token);
+        if (json != null) {
+            builder.header("Content-Type", "application/json");
+            return builder.method(method, HttpRequest.BodyPublishers.ofString(json)).build();
+        }
+        return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static VirtualUser pickFrom(List<VirtualUser> users) {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+}
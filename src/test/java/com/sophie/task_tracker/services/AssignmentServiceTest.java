@@ -0,0 +1,128 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.ProjectCreateDto;
+import com.sophie.task_tracker.dto.TaskCreateDto;
+import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.enums.TaskPriority;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AssignmentServiceTest {
+
+    private static final int TASKS = 50;
+
+    @Autowired private UserService userService;
+    @Autowired private AssignmentService assignmentService;
+    @Autowired private ProjectService projectService;
+    @Autowired private TaskService taskService;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private Long managerId;
+    private Long userId;
+
+    @BeforeAll
+    void seed() {
+        managerId = register("assign-manager@example.com", Role.MANAGER);
+        userId = register("assign-user@example.com", Role.USER);
+    }
+
+    @Test
+    @DisplayName("A pick in a rolled back transaction gives its weight back, also after a rebuild in between")
+    void rollback() {
+        assignmentService.rebuild();
+        long[] picked = new long[2];
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            Long assignee = assignmentService.pickAssignee(TaskPriority.HIGH);
+            assertThat(assignee).isNotNull();
+            assertThat(assignmentService.reservationCount()).isEqualTo(1);
+            long load = assignmentService.getIndex().load(assignee);
+
+            // the new index carries the reservation over
+            assignmentService.rebuild();
+            assertThat(assignmentService.getIndex().load(assignee)).isEqualTo(load);
+
+            picked[0] = assignee;
+            picked[1] = load;
+            status.setRollbackOnly();
+        });
+
+        assertThat(assignmentService.reservationCount()).isZero();
+        assertThat(assignmentService.getIndex().load(picked[0])).isEqualTo(picked[1] - TaskPriority.HIGH.getCode());
+    }
+
+    @Test
+    @DisplayName("Rebuilds running alongside task creation count every assigned task exactly once")
+    void rebuildDuringWrites() throws Exception {
+        ProjectCreateDto project = new ProjectCreateDto();
+        project.setName("assignment rebuilds");
+        Long projectId = projectService.createProject(project, managerId).getId();
+        assignmentService.rebuild();
+        long before = assignmentService.getIndex().load(userId);
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> rebuilds = executor.submit(() -> {
+                while (writing.get()) {
+                    assignmentService.rebuild();
+                }
+            });
+            for (int i = 0; i < TASKS; i++) {
+                TaskCreateDto task = new TaskCreateDto();
+                task.setTitle("weighed " + i);
+                task.setProjectId(projectId);
+                task.setPriority(TaskPriority.HIGH);
+                task.setAssignedUserId(userId);
+                taskService.createTask(task, managerId, Role.MANAGER);
+            }
+            writing.set(false);
+            rebuilds.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long expected = before + TASKS * TaskPriority.HIGH.getCode();
+        assertThat(assignmentService.getIndex().load(userId)).isEqualTo(expected);
+        assignmentService.rebuild();
+        assertThat(assignmentService.getIndex().load(userId)).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Outside a transaction a pick reserves nothing")
+    void noTransaction() {
+        assignmentService.rebuild();
+        Long assignee = assignmentService.pickAssignee(TaskPriority.LOW);
+        assertThat(assignee).isNotNull();
+        long load = assignmentService.getIndex().load(assignee);
+
+        assertThat(assignmentService.reservationCount()).isZero();
+        assertThat(assignmentService.pickAssignee(TaskPriority.LOW)).isEqualTo(assignee);
+        assertThat(assignmentService.getIndex().load(assignee)).isEqualTo(load);
+    }
+
+    private Long register(String email, Role role) {
+        UserRegistrationDto user = new UserRegistrationDto();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setRole(role);
+        return userService.registerUser(user).getId();
+    }
+}
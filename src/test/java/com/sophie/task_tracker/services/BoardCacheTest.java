@@ -0,0 +1,95 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.BoardColumnDto;
+import com.sophie.task_tracker.dto.BoardDto;
+import com.sophie.task_tracker.dto.BoardTaskDto;
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TaskState;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BoardCacheTest {
+
+    private static final Long PROJECT = 1L;
+    private static final Long OTHER_PROJECT = 2L;
+
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    private final BoardCache cache = new BoardCache(taskRepository,
+            new Shards(mock(PlatformTransactionManager.class), false, new String[0], 1));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxProjects", 1000);
+    }
+
+    @Test
+    @DisplayName("A board is computed once and served until a task of its project changes")
+    void invalidatedByTaskChange() {
+        when(taskRepository.findBoardTasksByProjectId(PROJECT)).thenReturn(List.of(card(10L, TaskStatus.TODO)));
+        assertThat(ids(cache.getBoard(PROJECT, 0), TaskStatus.TODO)).containsExactly(10L);
+        assertThat(ids(cache.getBoard(PROJECT, 0), TaskStatus.TODO)).containsExactly(10L);
+        verify(taskRepository, times(1)).findBoardTasksByProjectId(PROJECT);
+
+        // a change in another project leaves this board alone
+        cache.onTaskChanged(changed(11L, OTHER_PROJECT));
+        cache.getBoard(PROJECT, 0);
+        verify(taskRepository, times(1)).findBoardTasksByProjectId(PROJECT);
+
+        when(taskRepository.findBoardTasksByProjectId(PROJECT)).thenReturn(List.of(card(10L, TaskStatus.DONE)));
+        cache.onTaskChanged(changed(10L, PROJECT));
+        BoardDto board = cache.getBoard(PROJECT, 0);
+        assertThat(ids(board, TaskStatus.TODO)).isEmpty();
+        assertThat(ids(board, TaskStatus.DONE)).containsExactly(10L);
+        verify(taskRepository, times(2)).findBoardTasksByProjectId(PROJECT);
+    }
+
+    @Test
+    @DisplayName("A board computed while a change commits is handed out once but not kept")
+    void generationRace() {
+        // the change commits while the board is being loaded, after its rows were read
+        when(taskRepository.findBoardTasksByProjectId(PROJECT)).thenAnswer(invocation -> {
+            cache.onTaskChanged(changed(10L, PROJECT));
+            return List.of(card(10L, TaskStatus.TODO));
+        });
+        assertThat(ids(cache.getBoard(PROJECT, 0), TaskStatus.TODO)).containsExactly(10L);
+
+        when(taskRepository.findBoardTasksByProjectId(PROJECT)).thenReturn(List.of(card(10L, TaskStatus.IN_PROGRESS)));
+        assertThat(ids(cache.getBoard(PROJECT, 0), TaskStatus.IN_PROGRESS)).containsExactly(10L);
+        // and that one is kept again
+        cache.getBoard(PROJECT, 0);
+        verify(taskRepository, times(2)).findBoardTasksByProjectId(PROJECT);
+    }
+
+    private static TaskChangedEvent changed(Long taskId, Long projectId) {
+        TaskState state = new TaskState(projectId, null, TaskStatus.TODO, TaskPriority.MEDIUM, null);
+        return new TaskChangedEvent(taskId, state, state);
+    }
+
+    private static BoardTaskDto card(Long id, TaskStatus status) {
+        return new BoardTaskDto(id, "task " + id, status, TaskPriority.MEDIUM, null, null);
+    }
+
+    private static List<Long> ids(BoardDto board, TaskStatus status) {
+        return board.getColumns().stream()
+                .filter(column -> column.getStatus() == status)
+                .map(BoardColumnDto::getTasks)
+                .flatMap(List::stream)
+                .map(BoardTaskDto::getId)
+                .toList();
+    }
+}
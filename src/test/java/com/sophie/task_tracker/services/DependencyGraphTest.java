@@ -0,0 +1,204 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.exception.ConflictException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DependencyGraphTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 1);
+
+    @Test
+    @DisplayName("An edge closing a cycle is rejected and leaves the graph as it was")
+    void cycles() {
+        DependencyGraph graph = graph(4);
+        assertThat(graph.addDependency(1L, 2L)).isTrue();
+        assertThat(graph.addDependency(2L, 3L)).isTrue();
+        assertThat(graph.addDependency(1L, 2L)).isFalse();
+
+        List<Long> order = graph.getOrder();
+        assertThatThrownBy(() -> graph.addDependency(3L, 1L))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("would create a cycle");
+        assertThatThrownBy(() -> graph.addDependency(2L, 2L)).hasMessageContaining("cannot block itself");
+        assertThat(graph.getBlockers(1L)).isEmpty();
+        assertThat(graph.getBlocked(3L)).isEmpty();
+        assertThat(graph.getOrder()).isEqualTo(order);
+
+        // a backward edge that isn't a cycle goes in and moves 4 ahead of 1
+        assertThat(graph.addDependency(4L, 1L)).isTrue();
+        assertOrdered(graph, List.of(new long[]{1, 2}, new long[]{2, 3}, new long[]{4, 1}));
+    }
+
+    @Test
+    @DisplayName("The order stays topological over random inserts, and only real cycles are rejected")
+    void randomInserts() {
+        int size = 200;
+        DependencyGraph graph = graph(size);
+        Random random = new Random(42);
+        List<long[]> edges = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long blocker = 1 + random.nextInt(size);
+            long blocked = 1 + random.nextInt(size);
+            if (blocker == blocked) {
+                continue;
+            }
+            boolean cycle = reaches(edges, blocked, blocker);
+            try {
+                if (graph.addDependency(blocker, blocked)) {
+                    edges.add(new long[]{blocker, blocked});
+                }
+                assertThat(cycle).as("%d -> %d closes a cycle but was accepted", blocker, blocked).isFalse();
+            } catch (RuntimeException e) {
+                assertThat(cycle).as("%d -> %d was rejected: %s", blocker, blocked, e.getMessage()).isTrue();
+            }
+            if (i % 100 == 0) {
+                assertOrdered(graph, edges);
+            }
+        }
+        assertOrdered(graph, edges);
+    }
+
+    @Test
+    @DisplayName("A full sort after an unordered load gives a topological order")
+    void sortAll() {
+        DependencyGraph graph = graph(5);
+        graph.linkUnordered(5L, 4L);
+        graph.linkUnordered(4L, 3L);
+        graph.linkUnordered(3L, 1L);
+        graph.linkUnordered(2L, 1L);
+        graph.sortAll();
+        assertOrdered(graph, List.of(new long[]{5, 4}, new long[]{4, 3}, new long[]{3, 1}, new long[]{2, 1}));
+
+        // new nodes still go after the sorted ones
+        graph.putTask(6L, TaskStatus.TODO, null);
+        assertThat(graph.getOrder()).last().isEqualTo(6L);
+    }
+
+    @Test
+    @DisplayName("The ready set follows status changes and dependency removal")
+    void ready() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.putTask(1L, TaskStatus.TODO, TODAY.plusDays(3));
+        graph.putTask(2L, TaskStatus.TODO, TODAY.plusDays(1));
+        graph.putTask(3L, TaskStatus.TODO, null);
+        graph.putTask(4L, TaskStatus.IN_PROGRESS, TODAY);
+        assertThat(graph.getReady(0)).containsExactly(2L, 1L, 3L);
+        assertThat(graph.getReady(2)).containsExactly(2L, 1L);
+
+        graph.addDependency(1L, 2L);
+        graph.addDependency(1L, 3L);
+        graph.addDependency(4L, 3L);
+        assertThat(graph.getReady(0)).containsExactly(1L);
+
+        graph.putTask(1L, TaskStatus.DONE, TODAY.plusDays(3));
+        assertThat(graph.getReady(0)).containsExactly(2L);
+        graph.putTask(1L, TaskStatus.TODO, TODAY.plusDays(3));
+        assertThat(graph.getReady(0)).containsExactly(1L);
+
+        graph.removeDependency(1L, 2L);
+        assertThat(graph.getReady(0)).containsExactly(2L, 1L);
+
+        // an open blocker going away frees what it blocked
+        graph.removeTask(1L);
+        graph.putTask(4L, TaskStatus.DONE, TODAY);
+        assertThat(graph.getReady(0)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    @DisplayName("The critical path is the longest open chain, ties go to the earliest deadline")
+    void criticalPath() {
+        DependencyGraph graph = new DependencyGraph();
+        graph.putTask(1L, TaskStatus.TODO, null);
+        graph.putTask(2L, TaskStatus.TODO, TODAY.plusDays(10));
+        graph.putTask(3L, TaskStatus.TODO, TODAY.plusDays(5));
+        graph.putTask(4L, TaskStatus.TODO, TODAY.plusDays(20));
+        graph.putTask(5L, TaskStatus.TODO, TODAY.plusDays(30));
+        graph.putTask(6L, TaskStatus.TODO, TODAY.plusDays(2));
+        graph.addDependency(1L, 2L);
+        graph.addDependency(2L, 3L);
+        graph.addDependency(4L, 5L);
+        graph.addDependency(5L, 6L);
+
+        // both chains are three long, 4-5-6 has to start earlier
+        DependencyGraph.Path path = graph.getCriticalPath();
+        assertThat(path.getTaskIds()).containsExactly(4L, 5L, 6L);
+        assertThat(path.getDeadline()).isEqualTo(TODAY.plusDays(2));
+
+        graph.addDependency(3L, 4L);
+        path = graph.getCriticalPath();
+        assertThat(path.getTaskIds()).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(path.getDeadline()).isEqualTo(TODAY.plusDays(2));
+
+        // finished tasks drop out of the chain
+        graph.putTask(1L, TaskStatus.DONE, null);
+        graph.putTask(2L, TaskStatus.DONE, TODAY.plusDays(10));
+        path = graph.getCriticalPath();
+        assertThat(path.getTaskIds()).containsExactly(3L, 4L, 5L, 6L);
+
+        for (long id = 3; id <= 6; id++) {
+            graph.putTask(id, TaskStatus.DONE, null);
+        }
+        path = graph.getCriticalPath();
+        assertThat(path.getTaskIds()).isEmpty();
+        assertThat(path.getDeadline()).isNull();
+    }
+
+    private static DependencyGraph graph(int size) {
+        DependencyGraph graph = new DependencyGraph();
+        for (long id = 1; id <= size; id++) {
+            graph.putTask(id, TaskStatus.TODO, null);
+        }
+        return graph;
+    }
+
+    private static void assertOrdered(DependencyGraph graph, List<long[]> edges) {
+        Map<Long, Integer> position = new HashMap<>();
+        List<Long> order = graph.getOrder();
+        for (int i = 0; i < order.size(); i++) {
+            position.put(order.get(i), i);
+        }
+        assertThat(position).hasSize(graph.size());
+        for (long[] edge : edges) {
+            assertThat(position.get(edge[0]))
+                    .as("%d blocks %d", edge[0], edge[1])
+                    .isLessThan(position.get(edge[1]));
+        }
+    }
+
+    // plain search over the accepted edges
+    private static boolean reaches(List<long[]> edges, long from, long to) {
+        Map<Long, List<Long>> out = new HashMap<>();
+        for (long[] edge : edges) {
+            out.computeIfAbsent(edge[0], k -> new ArrayList<>()).add(edge[1]);
+        }
+        Set<Long> seen = new HashSet<>();
+        Deque<Long> stack = new ArrayDeque<>();
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            long node = stack.pop();
+            if (node == to) {
+                return true;
+            }
+            if (seen.add(node)) {
+                stack.addAll(out.getOrDefault(node, List.of()));
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.events.TaskChangedEvent;
+import com.sophie.task_tracker.events.TaskState;
+import com.sophie.task_tracker.repositories.ProjectRepository;
+import com.sophie.task_tracker.repositories.TaskLabelRepository;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.sharding.Shards;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LabelIndexCacheTest {
+
+    private static final Long PROJECT = 1L;
+
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    private final TaskLabelRepository taskLabelRepository = mock(TaskLabelRepository.class);
+    private final LabelIndexCache cache = new LabelIndexCache(taskRepository, taskLabelRepository,
+            mock(ProjectRepository.class), new Shards(mock(PlatformTransactionManager.class), false, new String[0], 1));
+
+    @Test
+    @DisplayName("Deletes are applied in place until more than half the slots are dead, then the index is rebuilt")
+    void deadRatioRebuild() {
+        when(taskRepository.findIndexRowsByProjectId(PROJECT)).thenReturn(rows(1, 2, 3, 4));
+        when(taskLabelRepository.findPairsByProjectId(PROJECT)).thenReturn(List.<Object[]>of(new Object[]{3L, "x"}));
+        assertThat(ids("")).containsExactly(1L, 2L, 3L, 4L);
+
+        delete(1L);
+        delete(2L);
+        assertThat(ids("")).containsExactly(3L, 4L);
+        assertThat(cache.withIndex(PROJECT, LabelIndex::deadRatio)).isEqualTo(0.5);
+        verify(taskRepository, times(1)).findIndexRowsByProjectId(PROJECT);
+
+        when(taskRepository.findIndexRowsByProjectId(PROJECT)).thenReturn(rows(4));
+        when(taskLabelRepository.findPairsByProjectId(PROJECT)).thenReturn(List.of());
+        delete(3L);
+        assertThat(ids("")).containsExactly(4L);
+        assertThat(ids("label:x")).isEmpty();
+        assertThat(cache.withIndex(PROJECT, LabelIndex::deadRatio)).isEqualTo(0.0);
+        verify(taskRepository, times(2)).findIndexRowsByProjectId(PROJECT);
+    }
+
+    private List<Long> ids(String query) {
+        LabelQuery labelQuery = LabelQuery.parse(query);
+        return cache.withIndex(PROJECT, index -> index.taskIds(labelQuery.evaluate(index), 0));
+    }
+
+    private void delete(Long taskId) {
+        TaskState before = new TaskState(PROJECT, null, TaskStatus.TODO, TaskPriority.MEDIUM, null);
+        cache.onTaskChanged(new TaskChangedEvent(taskId, before, null));
+    }
+
+    private static List<Object[]> rows(long... ids) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id : ids) {
+            rows.add(new Object[]{id, TaskStatus.TODO, TaskPriority.MEDIUM});
+        }
+        return rows;
+    }
+}
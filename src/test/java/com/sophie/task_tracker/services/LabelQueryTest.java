@@ -0,0 +1,109 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LabelQueryTest {
+
+    private LabelIndex index;
+
+    // 1: a        TODO   LOW
+    // 2: b        TODO   HIGH
+    // 3: a b c    DONE   HIGH
+    // 4:          IN_PROGRESS MEDIUM
+    // 5: c        TODO   MEDIUM
+    @BeforeEach
+    void index() {
+        index = new LabelIndex();
+        index.putTask(1L, TaskStatus.TODO, TaskPriority.LOW);
+        index.putTask(2L, TaskStatus.TODO, TaskPriority.HIGH);
+        index.putTask(3L, TaskStatus.DONE, TaskPriority.HIGH);
+        index.putTask(4L, TaskStatus.IN_PROGRESS, TaskPriority.MEDIUM);
+        index.putTask(5L, TaskStatus.TODO, TaskPriority.MEDIUM);
+        index.addLabel(1L, "a");
+        index.addLabel(2L, "b");
+        index.addLabel(3L, "a");
+        index.addLabel(3L, "b");
+        index.addLabel(3L, "c");
+        index.addLabel(5L, "c");
+    }
+
+    @Test
+    @DisplayName("NOT binds tighter than AND, AND tighter than OR, parentheses group")
+    void precedence() {
+        assertThat(matches("label:a OR label:b AND label:c")).containsExactly(1L, 3L);
+        assertThat(matches("(label:a OR label:b) AND label:c")).containsExactly(3L);
+        assertThat(matches("NOT label:a AND label:c")).containsExactly(5L);
+        assertThat(matches("NOT (label:a AND label:c)")).containsExactly(1L, 2L, 4L, 5L);
+        assertThat(matches("NOT NOT label:c")).containsExactly(3L, 5L);
+        assertThat(matches("label:a AND NOT label:c OR status:IN_PROGRESS")).containsExactly(1L, 4L);
+        assertThat(matches("((label:b))")).containsExactly(2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Terms and keywords are case-insensitive, an empty query matches everything")
+    void terms() {
+        assertThat(matches("LABEL:A and not Label:C")).containsExactly(1L);
+        assertThat(matches("status:todo AND priority:High")).containsExactly(2L);
+        assertThat(matches("priority:MEDIUM OR status:DONE")).containsExactly(3L, 4L, 5L);
+        assertThat(matches("label:unknown")).isEmpty();
+        assertThat(matches(" ")).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(matches(null)).containsExactly(1L, 2L, 3L, 4L, 5L);
+
+        // evaluation works on copies, the index is the same afterwards
+        assertThat(matches("label:a AND label:b")).containsExactly(3L);
+        assertThat(matches("label:a")).containsExactly(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Malformed queries are rejected as bad requests with a pointed message")
+    void errors() {
+        assertRejected("label:a AND", "Query ends too early");
+        assertRejected("(label:a OR label:b", "Missing ')' in query");
+        assertRejected("label:a )", "Unexpected ')' in query");
+        assertRejected("label:a label:b", "Unexpected 'label:b' in query");
+        assertRejected("urgent", "Invalid query term 'urgent'");
+        assertRejected("label:", "Invalid query term 'label:'");
+        assertRejected("owner:me", "Unknown query field 'owner'");
+        assertRejected("status:LATE", "Invalid value 'LATE' for status");
+    }
+
+    @Test
+    @DisplayName("Removed tasks drop out of every set and count as dead slots")
+    void removeTask() {
+        index.removeTask(3L);
+        assertThat(matches("label:a")).containsExactly(1L);
+        assertThat(matches("NOT label:a")).containsExactly(2L, 4L, 5L);
+        assertThat(matches("priority:HIGH")).containsExactly(2L);
+        assertThat(index.deadRatio()).isEqualTo(1 - 4.0 / 5);
+
+        // coming back takes a new slot without its old labels
+        index.putTask(3L, TaskStatus.TODO, TaskPriority.LOW);
+        assertThat(matches("label:b")).containsExactly(2L);
+        assertThat(matches("status:TODO AND priority:LOW")).containsExactly(1L, 3L);
+        assertThat(index.deadRatio()).isEqualTo(1 - 5.0 / 6);
+
+        index.removeLabel(5L, "c");
+        assertThat(matches("label:c")).isEmpty();
+        assertThat(index.taskIds(index.all(), 2)).containsExactly(1L, 2L);
+    }
+
+    private List<Long> matches(String query) {
+        return index.taskIds(LabelQuery.parse(query).evaluate(index), 0);
+    }
+
+    private static void assertRejected(String query, String message) {
+        assertThatThrownBy(() -> LabelQuery.parse(query))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining(message);
+    }
+}
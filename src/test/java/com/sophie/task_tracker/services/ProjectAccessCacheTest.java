@@ -0,0 +1,99 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.ProjectCreateDto;
+import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.enums.ProjectMemberRole;
+import com.sophie.task_tracker.enums.Role;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProjectAccessCacheTest {
+
+    @Autowired private UserService userService;
+    @Autowired private ProjectService projectService;
+    @Autowired private ProjectAccessCache accessCache;
+
+    private Long ownerId;
+    private Long viewerId;
+    private Long editorId;
+    private Long outsiderId;
+
+    @BeforeAll
+    void seed() {
+        ownerId = register("access-owner@example.com", Role.MANAGER);
+        viewerId = register("access-viewer@example.com", Role.USER);
+        editorId = register("access-editor@example.com", Role.USER);
+        outsiderId = register("access-outsider@example.com", Role.USER);
+    }
+
+    @Test
+    @DisplayName("Owners can do everything, editors edit and view, viewers only view")
+    void viewerAndEditor() {
+        Long projectId = project("access roles");
+        projectService.setMember(projectId, viewerId, ProjectMemberRole.VIEWER, ownerId, Role.MANAGER);
+        projectService.setMember(projectId, editorId, ProjectMemberRole.EDITOR, ownerId, Role.MANAGER);
+
+        assertThat(accessCache.isOwner(ownerId, projectId)).isTrue();
+        assertThat(accessCache.canEdit(ownerId, projectId)).isTrue();
+        assertThat(accessCache.canView(ownerId, projectId)).isTrue();
+
+        assertThat(accessCache.isOwner(editorId, projectId)).isFalse();
+        assertThat(accessCache.canEdit(editorId, projectId)).isTrue();
+        assertThat(accessCache.canView(editorId, projectId)).isTrue();
+
+        assertThat(accessCache.isOwner(viewerId, projectId)).isFalse();
+        assertThat(accessCache.canEdit(viewerId, projectId)).isFalse();
+        assertThat(accessCache.canView(viewerId, projectId)).isTrue();
+
+        assertThat(accessCache.canView(outsiderId, projectId)).isFalse();
+        assertThat(accessCache.canView(viewerId, null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A cached set is dropped when the user's membership is added, changed or removed")
+    void invalidatedByMembershipChanges() {
+        Long projectId = project("access changes");
+        // cached without the project
+        assertThat(accessCache.canView(outsiderId, projectId)).isFalse();
+
+        projectService.setMember(projectId, outsiderId, ProjectMemberRole.VIEWER, ownerId, Role.MANAGER);
+        assertThat(accessCache.canView(outsiderId, projectId)).isTrue();
+        assertThat(accessCache.canEdit(outsiderId, projectId)).isFalse();
+
+        projectService.setMember(projectId, outsiderId, ProjectMemberRole.EDITOR, ownerId, Role.MANAGER);
+        assertThat(accessCache.canEdit(outsiderId, projectId)).isTrue();
+
+        projectService.setMember(projectId, outsiderId, ProjectMemberRole.VIEWER, ownerId, Role.MANAGER);
+        assertThat(accessCache.canEdit(outsiderId, projectId)).isFalse();
+
+        projectService.removeMember(projectId, outsiderId, ownerId, Role.MANAGER);
+        assertThat(accessCache.canView(outsiderId, projectId)).isFalse();
+
+        // a new project shows up in the owner's cached set too
+        assertThat(accessCache.isOwner(ownerId, projectId)).isTrue();
+        Long created = project("access created");
+        assertThat(accessCache.isOwner(ownerId, created)).isTrue();
+    }
+
+    private Long project(String name) {
+        ProjectCreateDto project = new ProjectCreateDto();
+        project.setName(name);
+        return projectService.createProject(project, ownerId).getId();
+    }
+
+    private Long register(String email, Role role) {
+        UserRegistrationDto user = new UserRegistrationDto();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setRole(role);
+        return userService.registerUser(user).getId();
+    }
+}
@@ -0,0 +1,181 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.TaskBulkFilterDto;
+import com.sophie.task_tracker.dto.TaskBulkUpdateDto;
+import com.sophie.task_tracker.dto.TaskField;
+import com.sophie.task_tracker.entities.Project;
+import com.sophie.task_tracker.entities.Task;
+import com.sophie.task_tracker.entities.User;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.repositories.ProjectRepository;
+import com.sophie.task_tracker.repositories.TaskFilter;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import com.sophie.task_tracker.repositories.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.sophie.task_tracker.support.QueryCountAssertions.assertMaxQueries;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// guards against N+1 regressions: every read method must stay within a fixed number of
+// statements no matter how many tasks and assignees there are
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryCountTest {
+
+    private static final int TASKS = 1000;
+    private static final int ASSIGNEES = 20;
+
+    @Autowired private TaskService taskService;
+    @Autowired private ProjectService projectService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private ProjectRepository projectRepository;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private ProjectAccessCache projectAccess;
+
+    private User admin;
+    private User manager;
+    private User otherManager;
+    private User assignee;
+    private Project project;
+    private List<Long> taskIds;
+
+    @BeforeAll
+    void seed() {
+        admin = userRepository.save(user("qc-admin@example.com", Role.ADMIN));
+        manager = userRepository.save(user("qc-manager@example.com", Role.MANAGER));
+        otherManager = userRepository.save(user("qc-other-manager@example.com", Role.MANAGER));
+        List<User> assignees = new ArrayList<>();
+        for (int i = 0; i < ASSIGNEES; i++) {
+            assignees.add(userRepository.save(user("qc-user" + i + "@example.com", Role.USER)));
+        }
+        assignee = assignees.get(0);
+
+        List<Project> projects = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Project p = new Project();
+            p.setName("qc-project-" + i);
+            p.setOwner(manager);
+            projects.add(projectRepository.save(p));
+        }
+        project = projects.get(0);
+
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            Task task = new Task();
+            task.setTitle("task " + i);
+            task.setDescription("description " + i);
+            task.setProject(project);
+            task.setAssignedUser(assignees.get(i % ASSIGNEES));
+            task.setStatus(TaskStatus.values()[i % TaskStatus.values().length]);
+            task.setPriority(TaskPriority.values()[i % TaskPriority.values().length]);
+            task.setDueDate(LocalDate.now().plusDays(i % 60 - 30));
+            tasks.add(task);
+        }
+        taskIds = taskRepository.saveAll(tasks).stream().map(Task::getId).toList();
+
+        // seeding goes around the services, load the access sets the way a login would
+        projectAccess.preload(manager.getId());
+        projectAccess.preload(otherManager.getId());
+    }
+
+    @AfterAll
+    void cleanUp() {
+        taskRepository.deleteAllInBatch();
+        projectRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("TaskService reads run a bounded number of statements")
+    void taskServiceReads() {
+        Long managerId = manager.getId();
+        Long adminId = admin.getId();
+        Long assigneeId = assignee.getId();
+
+        assertMaxQueries(1, "getTaskById", () -> taskService.getTaskById(taskIds.get(0), managerId, Role.MANAGER));
+        assertMaxQueries(2, "getTasksByIds", () -> taskService.getTasksByIds(taskIds.subList(0, 200), managerId, Role.MANAGER));
+        var denied = assertMaxQueries(2, "getTasksByIds (not visible)",
+                () -> taskService.getTasksByIds(taskIds.subList(0, 200), otherManager.getId(), Role.MANAGER));
+        assertThat(denied.getTasks()).isEmpty();
+        assertThat(denied.getForbidden()).hasSize(200);
+
+        var byProject = assertMaxQueries(2, "getTasksByProject",
+                () -> taskService.getTasksByProject(project.getId(), managerId, Role.MANAGER));
+        assertThat(byProject).hasSize(TASKS);
+
+        assertMaxQueries(2, "getTasksByAssignedUser", () -> taskService.getTasksByAssignedUser(assigneeId, assigneeId, Role.USER));
+        assertMaxQueries(1, "getTasksByStatus (admin)", () -> taskService.getTasksByStatus(TaskStatus.TODO, adminId, Role.ADMIN));
+        assertMaxQueries(1, "getTasksByStatus (user)", () -> taskService.getTasksByStatus(TaskStatus.TODO, assigneeId, Role.USER));
+        assertMaxQueries(1, "getTasksByPriority (admin)", () -> taskService.getTasksByPriority(TaskPriority.HIGH, adminId, Role.ADMIN));
+        assertMaxQueries(1, "getTasksByPriority (user)", () -> taskService.getTasksByPriority(TaskPriority.HIGH, assigneeId, Role.USER));
+        assertMaxQueries(1, "getTasksDueBefore (admin)", () -> taskService.getTasksDueBefore(LocalDate.now(), adminId, Role.ADMIN));
+        assertMaxQueries(1, "getTasksDueBefore (user)", () -> taskService.getTasksDueBefore(LocalDate.now(), assigneeId, Role.USER));
+
+        TaskFilter filter = new TaskFilter();
+        filter.setProjectId(project.getId());
+        assertMaxQueries(2, "getTaskFields", () -> taskService.getTaskFields(filter, TaskField.parse("summary,projectName,assignedUserEmail"), managerId, Role.MANAGER));
+
+        assertMaxQueries(0, "getMyTaskCounts", () -> taskService.getMyTaskCounts(assigneeId));
+    }
+
+    @Test
+    @DisplayName("ProjectService reads run a bounded number of statements")
+    void projectServiceReads() {
+        Long managerId = manager.getId();
+        Long adminId = admin.getId();
+
+        assertMaxQueries(1, "getProjectById", () -> projectService.getProjectById(project.getId(), managerId, Role.MANAGER));
+        assertMaxQueries(2, "getAllProjects (admin)", () -> projectService.getAllProjects(0, 100, adminId, Role.ADMIN));
+        var overviews = assertMaxQueries(2, "getAllProjects (manager)", () -> projectService.getAllProjects(0, 100, managerId, Role.MANAGER));
+        assertThat(overviews).hasSize(10)
+                .filteredOn(overview -> overview.getId().equals(project.getId()))
+                .singleElement().satisfies(overview -> assertThat(overview.getTotal()).isEqualTo(TASKS));
+        assertMaxQueries(1, "getProjectTaskCounts", () -> projectService.getProjectTaskCounts(project.getId(), managerId, Role.MANAGER));
+        assertMaxQueries(2, "getBoard (cold)", () -> projectService.getBoard(project.getId(), 0, managerId, Role.MANAGER));
+        assertMaxQueries(1, "getBoard (cached)", () -> projectService.getBoard(project.getId(), 10, managerId, Role.MANAGER));
+    }
+
+    @Test
+    @DisplayName("Bulk updates match only the tasks the caller can see, with one select")
+    void bulkUpdateVisibility() {
+        Long otherManagerId = otherManager.getId();
+
+        TaskBulkUpdateDto byIds = new TaskBulkUpdateDto();
+        byIds.setIds(taskIds.subList(0, 200));
+        byIds.setPriority(TaskPriority.HIGH);
+        var denied = assertMaxQueries(1, "bulkUpdateTasks (ids, not visible)",
+                () -> taskService.bulkUpdateTasks(byIds, otherManagerId, Role.MANAGER));
+        assertThat(denied.getMatched()).isZero();
+        assertThat(denied.getSkipped()).isZero();
+
+        TaskBulkFilterDto filter = new TaskBulkFilterDto();
+        filter.setStatus(TaskStatus.TODO);
+        TaskBulkUpdateDto byFilter = new TaskBulkUpdateDto();
+        byFilter.setFilter(filter);
+        byFilter.setPriority(TaskPriority.HIGH);
+        var none = assertMaxQueries(1, "bulkUpdateTasks (filter, not visible)",
+                () -> taskService.bulkUpdateTasks(byFilter, otherManagerId, Role.MANAGER));
+        assertThat(none.getMatched()).isZero();
+        assertThat(none.getUpdated()).isZero();
+    }
+
+    private static User user(String email, Role role) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("not-used");
+        user.setRole(role);
+        return user;
+    }
+}
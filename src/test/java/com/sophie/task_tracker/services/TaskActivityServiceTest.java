@@ -0,0 +1,118 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.CommentCreateDto;
+import com.sophie.task_tracker.dto.ProjectCreateDto;
+import com.sophie.task_tracker.dto.TaskActivityDto;
+import com.sophie.task_tracker.dto.TaskActivityPageDto;
+import com.sophie.task_tracker.dto.TaskCreateDto;
+import com.sophie.task_tracker.dto.TaskUpdateDto;
+import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.enums.ActivityType;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.enums.TaskStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TaskActivityServiceTest {
+
+    private static final int COMMENTS = 5;
+
+    @Autowired private UserService userService;
+    @Autowired private ProjectService projectService;
+    @Autowired private TaskService taskService;
+    @Autowired private TaskActivityService activityService;
+
+    private Long managerId;
+    private Long taskId;
+
+    // one task with a CREATED entry, five comments and two status changes, oldest first
+    @BeforeAll
+    void seed() {
+        UserRegistrationDto manager = new UserRegistrationDto();
+        manager.setEmail("activity-manager@example.com");
+        manager.setPassword("password");
+        manager.setRole(Role.MANAGER);
+        managerId = userService.registerUser(manager).getId();
+
+        ProjectCreateDto project = new ProjectCreateDto();
+        project.setName("activity");
+        Long projectId = projectService.createProject(project, managerId).getId();
+
+        TaskCreateDto task = new TaskCreateDto();
+        task.setTitle("busy task");
+        task.setProjectId(projectId);
+        // status changes are only allowed to the assignee
+        task.setAssignedUserId(managerId);
+        taskId = taskService.createTask(task, managerId, Role.MANAGER).getId();
+
+        for (int i = 0; i < COMMENTS; i++) {
+            CommentCreateDto comment = new CommentCreateDto();
+            comment.setBody("comment " + i);
+            activityService.addComment(taskId, comment, managerId, Role.MANAGER);
+        }
+        setStatus(TaskStatus.IN_PROGRESS);
+        setStatus(TaskStatus.DONE);
+    }
+
+    @Test
+    @DisplayName("Pages follow nextCursor newest first without gaps or repeats, the last one has no cursor")
+    void cursorPaging() {
+        List<TaskActivityDto> all = activityService.getActivity(taskId, null, 100, null, managerId, Role.MANAGER).getEntries();
+        assertThat(all).hasSize(COMMENTS + 3);
+        assertThat(all).isSortedAccordingTo(Comparator.comparing(TaskActivityDto::getId).reversed());
+        assertThat(all.get(0).getBody()).isEqualTo("IN_PROGRESS -> DONE");
+        assertThat(all.get(all.size() - 1).getType()).isEqualTo(ActivityType.CREATED);
+
+        List<TaskActivityDto> paged = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        Long cursor = null;
+        do {
+            TaskActivityPageDto page = activityService.getActivity(taskId, cursor, 3, null, managerId, Role.MANAGER);
+            paged.addAll(page.getEntries());
+            sizes.add(page.getEntries().size());
+            if (page.getNextCursor() != null) {
+                assertThat(page.getNextCursor()).isEqualTo(page.getEntries().get(page.getEntries().size() - 1).getId());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(sizes).containsExactly(3, 3, 2);
+        assertThat(paged).extracting(TaskActivityDto::getId).containsExactlyElementsOf(all.stream().map(TaskActivityDto::getId).toList());
+    }
+
+    @Test
+    @DisplayName("A type filter only returns entries of that type and pages over them alone")
+    void typeFilter() {
+        TaskActivityPageDto first = activityService.getActivity(taskId, null, 3, ActivityType.COMMENT, managerId, Role.MANAGER);
+        assertThat(first.getEntries()).extracting(TaskActivityDto::getBody).containsExactly("comment 4", "comment 3", "comment 2");
+        assertThat(first.getNextCursor()).isNotNull();
+
+        TaskActivityPageDto second = activityService.getActivity(taskId, first.getNextCursor(), 3, ActivityType.COMMENT, managerId, Role.MANAGER);
+        assertThat(second.getEntries()).extracting(TaskActivityDto::getBody).containsExactly("comment 1", "comment 0");
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(second.getEntries()).allSatisfy(entry -> assertThat(entry.getAuthorId()).isEqualTo(managerId));
+
+        TaskActivityPageDto changes = activityService.getActivity(taskId, null, 10, ActivityType.STATUS_CHANGED, managerId, Role.MANAGER);
+        assertThat(changes.getEntries()).extracting(TaskActivityDto::getBody).containsExactly("IN_PROGRESS -> DONE", "TODO -> IN_PROGRESS");
+        assertThat(changes.getNextCursor()).isNull();
+        assertThat(activityService.getActivity(taskId, null, 10, ActivityType.ASSIGNED, managerId, Role.MANAGER).getEntries()).isEmpty();
+    }
+
+    private void setStatus(TaskStatus status) {
+        TaskUpdateDto update = new TaskUpdateDto();
+        update.setStatus(status);
+        taskService.updateTask(taskId, update, managerId, Role.MANAGER);
+    }
+}
@@ -0,0 +1,157 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.BoardColumnDto;
+import com.sophie.task_tracker.dto.BoardDto;
+import com.sophie.task_tracker.dto.BoardTaskDto;
+import com.sophie.task_tracker.dto.ProjectCreateDto;
+import com.sophie.task_tracker.dto.TaskCreateDto;
+import com.sophie.task_tracker.dto.TaskUpdateDto;
+import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.repositories.ArchivedTaskRepository;
+import com.sophie.task_tracker.repositories.TaskRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// tasks are aged by moving update_date back in the table, the job only looks at that column
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TaskArchiveServiceTest {
+
+    @Autowired private UserService userService;
+    @Autowired private ProjectService projectService;
+    @Autowired private TaskService taskService;
+    @Autowired private TaskArchiveService archiveService;
+    @Autowired private TaskCounterService counterService;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private ArchivedTaskRepository archivedTaskRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private Long managerId;
+
+    @BeforeAll
+    void seed() {
+        UserRegistrationDto manager = new UserRegistrationDto();
+        manager.setEmail("archive-manager@example.com");
+        manager.setPassword("password");
+        manager.setRole(Role.MANAGER);
+        managerId = userService.registerUser(manager).getId();
+    }
+
+    @Test
+    @DisplayName("A task DONE before the cutoff moves to tasks_archive, a recent one stays")
+    void archivesOldDoneTasks() {
+        Long projectId = project("archive old");
+        Long old = create(projectId, "old", null);
+        Long recent = create(projectId, "recent", null);
+        setStatus(old, TaskStatus.DONE);
+        setStatus(recent, TaskStatus.DONE);
+        age(old);
+
+        archiveService.archiveDoneTasks();
+
+        assertThat(taskRepository.existsById(old)).isFalse();
+        assertThat(archivedTaskRepository.existsById(old)).isTrue();
+        assertThat(taskRepository.existsById(recent)).isTrue();
+        assertThat(archivedTaskRepository.existsById(recent)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A task reopened after it was done is skipped")
+    void skipsReopenedTasks() {
+        Long projectId = project("archive reopened");
+        Long reopened = create(projectId, "reopened", null);
+        setStatus(reopened, TaskStatus.DONE);
+        setStatus(reopened, TaskStatus.IN_PROGRESS);
+        // old enough, but not DONE any more
+        age(reopened);
+
+        archiveService.archiveDoneTasks();
+
+        assertThat(taskRepository.existsById(reopened)).isTrue();
+        assertThat(archivedTaskRepository.existsById(reopened)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A done parent stays while it has subtasks")
+    void keepsParentsWithSubtasks() {
+        Long projectId = project("archive parent");
+        Long parent = create(projectId, "parent", null);
+        Long child = create(projectId, "child", parent);
+        setStatus(parent, TaskStatus.DONE);
+        age(parent);
+
+        archiveService.archiveDoneTasks();
+
+        assertThat(taskRepository.existsById(parent)).isTrue();
+        assertThat(taskRepository.existsById(child)).isTrue();
+        assertThat(archivedTaskRepository.existsById(parent)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Counters and the board drop archived tasks like deleted ones")
+    void countersAndBoardSeeTheDelete() {
+        Long projectId = project("archive events");
+        Long old = create(projectId, "archived", null);
+        Long open = create(projectId, "open", null);
+        setStatus(old, TaskStatus.DONE);
+        age(old);
+
+        assertThat(counterService.getProjectCounts(projectId).getByStatus().get(TaskStatus.DONE)).isEqualTo(1L);
+        assertThat(boardIds(projectId)).containsExactlyInAnyOrder(old, open);
+
+        archiveService.archiveDoneTasks();
+
+        assertThat(counterService.getProjectCounts(projectId).getByStatus().getOrDefault(TaskStatus.DONE, 0L)).isZero();
+        assertThat(counterService.getProjectCounts(projectId).getOpen()).isEqualTo(1L);
+        assertThat(boardIds(projectId)).containsExactly(open);
+    }
+
+    private Long project(String name) {
+        ProjectCreateDto project = new ProjectCreateDto();
+        project.setName(name);
+        return projectService.createProject(project, managerId).getId();
+    }
+
+    private Long create(Long projectId, String title, Long parentId) {
+        TaskCreateDto task = new TaskCreateDto();
+        task.setTitle(title);
+        task.setProjectId(projectId);
+        task.setParentId(parentId);
+        // status changes are only allowed to the assignee
+        task.setAssignedUserId(managerId);
+        return taskService.createTask(task, managerId, Role.MANAGER).getId();
+    }
+
+    private void setStatus(Long taskId, TaskStatus status) {
+        TaskUpdateDto update = new TaskUpdateDto();
+        update.setStatus(status);
+        taskService.updateTask(taskId, update, managerId, Role.MANAGER);
+    }
+
+    private void age(Long taskId) {
+        jdbcTemplate.update("UPDATE tasks SET update_date = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusYears(1)), taskId);
+    }
+
+    private List<Long> boardIds(Long projectId) {
+        BoardDto board = projectService.getBoard(projectId, 0, managerId, Role.MANAGER);
+        return board.getColumns().stream()
+                .map(BoardColumnDto::getTasks)
+                .flatMap(List::stream)
+                .map(BoardTaskDto::getId)
+                .toList();
+    }
+}
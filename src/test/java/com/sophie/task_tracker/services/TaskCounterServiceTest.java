@@ -0,0 +1,110 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.ProjectCreateDto;
+import com.sophie.task_tracker.dto.TaskCountsDto;
+import com.sophie.task_tracker.dto.TaskCreateDto;
+import com.sophie.task_tracker.dto.TaskUpdateDto;
+import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.enums.TaskStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TaskCounterServiceTest {
+
+    private static final int WRITERS = 4;
+    private static final int TASKS = 24;
+
+    @Autowired private UserService userService;
+    @Autowired private ProjectService projectService;
+    @Autowired private TaskService taskService;
+    @Autowired private TaskCounterService counterService;
+
+    private Long managerId;
+
+    @BeforeAll
+    void seed() {
+        UserRegistrationDto manager = new UserRegistrationDto();
+        manager.setEmail("counters-manager@example.com");
+        manager.setPassword("password");
+        manager.setRole(Role.MANAGER);
+        managerId = userService.registerUser(manager).getId();
+    }
+
+    @Test
+    @DisplayName("Rebuilds running alongside task writes neither lose nor double count a change")
+    void rebuildDuringWrites() throws Exception {
+        ProjectCreateDto project = new ProjectCreateDto();
+        project.setName("counters");
+        Long projectId = projectService.createProject(project, managerId).getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < TASKS; i++) {
+                        Long taskId = create(projectId, "counted " + i);
+                        if (i % 2 == 0) {
+                            TaskUpdateDto done = new TaskUpdateDto();
+                            done.setStatus(TaskStatus.DONE);
+                            taskService.updateTask(taskId, done, managerId, Role.MANAGER);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<?> rebuilds = executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    counterService.reconcile();
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+            rebuilds.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        TaskCountsDto counts = counterService.getProjectCounts(projectId);
+        assertThat(counts.getByStatus().get(TaskStatus.DONE)).isEqualTo(WRITERS * TASKS / 2L);
+        assertThat(counts.getOpen()).isEqualTo(WRITERS * TASKS / 2L);
+
+        // and the same as the table says
+        counterService.reconcile();
+        assertThat(counterService.getProjectCounts(projectId)).isEqualTo(counts);
+    }
+
+    private Long create(Long projectId, String title) {
+        TaskCreateDto task = new TaskCreateDto();
+        task.setTitle(title);
+        task.setProjectId(projectId);
+        // status changes are only allowed to the assignee
+        task.setAssignedUserId(managerId);
+        return taskService.createTask(task, managerId, Role.MANAGER).getId();
+    }
+}
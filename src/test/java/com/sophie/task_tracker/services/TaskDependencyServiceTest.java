@@ -0,0 +1,116 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.BoardTaskDto;
+import com.sophie.task_tracker.dto.ProjectCreateDto;
+import com.sophie.task_tracker.dto.TaskCreateDto;
+import com.sophie.task_tracker.dto.TaskUpdateDto;
+import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.enums.TaskStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// the graph is changed ahead of the commit, these check it ends up matching the table
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TaskDependencyServiceTest {
+
+    @Autowired private UserService userService;
+    @Autowired private ProjectService projectService;
+    @Autowired private TaskService taskService;
+    @Autowired private TaskDependencyService dependencyService;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private Long managerId;
+
+    @BeforeAll
+    void seed() {
+        UserRegistrationDto manager = new UserRegistrationDto();
+        manager.setEmail("deps-manager@example.com");
+        manager.setPassword("password");
+        manager.setRole(Role.MANAGER);
+        managerId = userService.registerUser(manager).getId();
+    }
+
+    @Test
+    @DisplayName("A rolled back link is gone from the graph as well")
+    void rollback() {
+        Long projectId = project("deps rollback");
+        Long first = create(projectId, "first", null);
+        Long second = create(projectId, "second", null);
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            dependencyService.addDependency(second, first, managerId, Role.MANAGER);
+            status.setRollbackOnly();
+        });
+
+        assertThat(dependencyService.getTaskDependencies(second, managerId, Role.MANAGER).getBlockedBy()).isEmpty();
+        // the other way round would be a cycle if the edge had stayed
+        assertThat(dependencyService.addDependency(first, second, managerId, Role.MANAGER).getBlockedBy())
+                .containsExactly(second);
+    }
+
+    @Test
+    @DisplayName("Cycles are rejected, the ready list and critical path follow status changes")
+    void readyAndCriticalPath() {
+        LocalDate today = LocalDate.now();
+        Long projectId = project("deps ready");
+        Long design = create(projectId, "design", today.plusDays(5));
+        Long build = create(projectId, "build", today.plusDays(10));
+        Long ship = create(projectId, "ship", today.plusDays(15));
+        dependencyService.addDependency(build, design, managerId, Role.MANAGER);
+        dependencyService.addDependency(ship, build, managerId, Role.MANAGER);
+
+        assertThatThrownBy(() -> dependencyService.addDependency(design, ship, managerId, Role.MANAGER))
+                .hasMessageContaining("would create a cycle");
+        assertThat(dependencyService.getTaskDependencies(design, managerId, Role.MANAGER).getBlockedBy()).isEmpty();
+
+        assertThat(readyIds(projectId)).contains(design).doesNotContain(build, ship);
+        assertThat(dependencyService.getCriticalPath(projectId, managerId, Role.MANAGER).getTasks())
+                .extracting(BoardTaskDto::getId)
+                .containsExactly(design, build, ship);
+
+        TaskUpdateDto done = new TaskUpdateDto();
+        done.setStatus(TaskStatus.DONE);
+        taskService.updateTask(design, done, managerId, Role.MANAGER);
+        assertThat(readyIds(projectId)).contains(build).doesNotContain(design, ship);
+        assertThat(dependencyService.getCriticalPath(projectId, managerId, Role.MANAGER).getTasks())
+                .extracting(BoardTaskDto::getId)
+                .containsExactly(build, ship);
+    }
+
+    private List<Long> readyIds(Long projectId) {
+        return dependencyService.getReadyTasks(projectId, 0, managerId, Role.MANAGER).stream()
+                .map(BoardTaskDto::getId)
+                .toList();
+    }
+
+    private Long project(String name) {
+        ProjectCreateDto project = new ProjectCreateDto();
+        project.setName(name);
+        return projectService.createProject(project, managerId).getId();
+    }
+
+    private Long create(Long projectId, String title, LocalDate dueDate) {
+        TaskCreateDto task = new TaskCreateDto();
+        task.setTitle(title);
+        task.setProjectId(projectId);
+        task.setDueDate(dueDate);
+        // status changes are only allowed to the assignee
+        task.setAssignedUserId(managerId);
+        return taskService.createTask(task, managerId, Role.MANAGER).getId();
+    }
+}
@@ -0,0 +1,162 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.ProjectCreateDto;
+import com.sophie.task_tracker.dto.TaskCreateDto;
+import com.sophie.task_tracker.dto.TaskRollupDto;
+import com.sophie.task_tracker.dto.TaskTreeNodeDto;
+import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.enums.Role;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// closure table upkeep: new subtasks, subtree moves, cycle checks, and two opposite moves racing
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TaskHierarchyServiceTest {
+
+    @Autowired private UserService userService;
+    @Autowired private ProjectService projectService;
+    @Autowired private TaskService taskService;
+    @Autowired private TaskHierarchyService hierarchyService;
+
+    private Long managerId;
+    private Long projectId;
+
+    @BeforeAll
+    void seed() {
+        UserRegistrationDto manager = new UserRegistrationDto();
+        manager.setEmail("tree-manager@example.com");
+        manager.setPassword("password");
+        manager.setRole(Role.MANAGER);
+        managerId = userService.registerUser(manager).getId();
+
+        ProjectCreateDto project = new ProjectCreateDto();
+        project.setName("tree");
+        projectId = projectService.createProject(project, managerId).getId();
+    }
+
+    @Test
+    @DisplayName("New subtasks inherit their parent's ancestors")
+    void subtasks() {
+        Long epic = create("epic", null);
+        Long story = create("story", epic);
+        Long subtask = create("subtask", story);
+
+        assertThat(ancestors(subtask)).containsExactly(epic, story);
+        assertThat(hierarchyService.getAncestors(subtask, managerId, Role.MANAGER))
+                .extracting(TaskTreeNodeDto::getDepth)
+                .containsExactly(2, 1);
+        assertThat(subtasks(epic)).containsExactly(story, subtask);
+        assertThat(hierarchyService.getSubtasks(epic, 1, 0, 10, managerId, Role.MANAGER))
+                .extracting(TaskTreeNodeDto::getId)
+                .containsExactly(story);
+
+        TaskRollupDto rollup = hierarchyService.getRollup(epic, managerId, Role.MANAGER);
+        assertThat(rollup.getTotal()).isEqualTo(3);
+        assertThat(rollup.getDepth()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A move takes the whole subtree along and can't create a cycle")
+    void moves() {
+        Long epic = create("old epic", null);
+        Long story = create("story", epic);
+        Long subtask = create("subtask", story);
+        Long otherEpic = create("new epic", null);
+
+        hierarchyService.moveTask(story, otherEpic, managerId, Role.MANAGER);
+        assertThat(ancestors(subtask)).containsExactly(otherEpic, story);
+        assertThat(subtasks(epic)).isEmpty();
+        assertThat(subtasks(otherEpic)).containsExactly(story, subtask);
+
+        assertThatThrownBy(() -> hierarchyService.moveTask(story, subtask, managerId, Role.MANAGER))
+                .hasMessageContaining("is a subtask");
+        assertThatThrownBy(() -> hierarchyService.moveTask(story, story, managerId, Role.MANAGER))
+                .hasMessageContaining("is a subtask");
+
+        hierarchyService.moveTask(story, null, managerId, Role.MANAGER);
+        assertThat(ancestors(story)).isEmpty();
+        assertThat(ancestors(subtask)).containsExactly(story);
+        assertThat(subtasks(otherEpic)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Of two opposite moves running at once exactly one wins")
+    void oppositeMoves() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            Long a = create("a" + round, null);
+            Long b = create("b" + round, null);
+
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                List<Future<Boolean>> moves = new ArrayList<>();
+                moves.add(executor.submit(move(a, b, start)));
+                moves.add(executor.submit(move(b, a, start)));
+                start.countDown();
+                int moved = 0;
+                for (Future<Boolean> move : moves) {
+                    moved += move.get() ? 1 : 0;
+                }
+                assertThat(moved).isEqualTo(1);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // one of them is the other's parent, never both
+            List<Long> aboveA = ancestors(a);
+            List<Long> aboveB = ancestors(b);
+            assertThat(aboveA.size() + aboveB.size()).isEqualTo(1);
+            assertThat(aboveA).isSubsetOf(b);
+            assertThat(aboveB).isSubsetOf(a);
+        }
+    }
+
+    private Callable<Boolean> move(Long taskId, Long parentId, CountDownLatch start) {
+        return () -> {
+            start.await();
+            try {
+                hierarchyService.moveTask(taskId, parentId, managerId, Role.MANAGER);
+                return true;
+            } catch (RuntimeException e) {
+                assertThat(e).hasMessageContaining("is a subtask");
+                return false;
+            }
+        };
+    }
+
+    private Long create(String title, Long parentId) {
+        TaskCreateDto task = new TaskCreateDto();
+        task.setTitle(title);
+        task.setProjectId(projectId);
+        task.setParentId(parentId);
+        return taskService.createTask(task, managerId, Role.MANAGER).getId();
+    }
+
+    private List<Long> ancestors(Long taskId) {
+        return hierarchyService.getAncestors(taskId, managerId, Role.MANAGER).stream()
+                .map(TaskTreeNodeDto::getId)
+                .toList();
+    }
+
+    private List<Long> subtasks(Long taskId) {
+        return hierarchyService.getSubtasks(taskId, null, 0, 100, managerId, Role.MANAGER).stream()
+                .map(TaskTreeNodeDto::getId)
+                .toList();
+    }
+}
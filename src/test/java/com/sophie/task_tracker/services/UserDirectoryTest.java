@@ -0,0 +1,131 @@
+package com.sophie.task_tracker.services;
+
+import com.sophie.task_tracker.dto.UserDto;
+import com.sophie.task_tracker.entities.User;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.events.EntityChangedEvent;
+import com.sophie.task_tracker.mappers.UserMapper;
+import com.sophie.task_tracker.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserDirectoryTest {
+
+    // stands in for the users table
+    private final Map<Long, User> table = new TreeMap<>();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserMapper userMapper = mock(UserMapper.class);
+    private final UserDirectory directory = new UserDirectory(userRepository, userMapper);
+
+    @BeforeEach
+    void table() {
+        when(userRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(table.values()));
+        when(userRepository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<Long>getArgument(0))));
+        when(userMapper.toDto(any())).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            UserDto dto = new UserDto();
+            dto.setId(user.getId());
+            dto.setEmail(user.getEmail());
+            dto.setRole(user.getRole());
+            return dto;
+        });
+
+        put(1L, "carol@example.com", Role.USER);
+        put(2L, "ann.b@example.com", Role.MANAGER);
+        put(3L, "ann.a@example.com", Role.USER);
+        put(4L, "ann.c@example.com", Role.USER);
+        put(5L, "annie@example.com", Role.ADMIN);
+        put(6L, "ann.d@example.com", Role.USER);
+        put(7L, "anna@example.com", Role.USER);
+        put(8L, "bob@example.com", Role.USER);
+        directory.load();
+    }
+
+    @Test
+    @DisplayName("Pages split a prefix run at exact boundaries and stop where the prefix ends")
+    void pageBoundaries() {
+        // ann.a ann.b ann.c ann.d anna annie, then bob and carol outside the prefix
+        assertThat(ids("ann", null, 0, 4)).containsExactly(3L, 2L, 4L, 6L);
+        assertThat(ids("ann", null, 1, 4)).containsExactly(7L, 5L);
+        assertThat(ids("ann", null, 2, 4)).isEmpty();
+        assertThat(ids("ann", null, 1, 3)).containsExactly(6L, 7L, 5L);
+        assertThat(ids("ann", null, 0, 6)).containsExactly(3L, 2L, 4L, 6L, 7L, 5L);
+        assertThat(ids("ann.", null, 1, 2)).containsExactly(4L, 6L);
+
+        // no prefix pages through everyone
+        assertThat(ids(null, null, 2, 3)).containsExactly(8L, 1L);
+        assertThat(ids("", null, 0, 8)).containsExactly(3L, 2L, 4L, 6L, 7L, 5L, 8L, 1L);
+        assertThat(ids("dave", null, 0, 10)).isEmpty();
+        assertThat(ids("zz", null, 0, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Prefixes and emails are compared in lower case, equal emails are ordered by id")
+    void caseFolding() {
+        put(9L, "Anna.K@Example.com", Role.USER);
+        put(10L, "ANNA.K@example.com", Role.USER);
+        refresh(9L);
+        refresh(10L);
+
+        // "anna.k" sorts before "anna@"
+        assertThat(ids("ANNA", null, 0, 10)).containsExactly(9L, 10L, 7L);
+        assertThat(ids("Anna.k@EXAMPLE", null, 0, 10)).containsExactly(9L, 10L);
+        assertThat(directory.search("anna.k", null, 0, 1).get(0).getEmail()).isEqualTo("Anna.K@Example.com");
+    }
+
+    @Test
+    @DisplayName("The role filter pages within one role and follows role changes, renames and deletes")
+    void roleFilter() {
+        assertThat(ids("ann", Role.USER, 0, 2)).containsExactly(3L, 4L);
+        assertThat(ids("ann", Role.USER, 1, 2)).containsExactly(6L, 7L);
+        assertThat(ids("ann", Role.MANAGER, 0, 10)).containsExactly(2L);
+        assertThat(ids(null, Role.ADMIN, 0, 10)).containsExactly(5L);
+
+        // promoted: leaves USER, joins MANAGER, same place in the full list
+        put(4L, "ann.c@example.com", Role.MANAGER);
+        refresh(4L);
+        assertThat(ids("ann", Role.USER, 0, 10)).containsExactly(3L, 6L, 7L);
+        assertThat(ids("ann", Role.MANAGER, 0, 10)).containsExactly(2L, 4L);
+        assertThat(ids("ann", null, 0, 4)).containsExactly(3L, 2L, 4L, 6L);
+
+        // renamed: moves out of the prefix
+        put(3L, "zed@example.com", Role.USER);
+        refresh(3L);
+        assertThat(ids("ann", Role.USER, 0, 10)).containsExactly(6L, 7L);
+        assertThat(ids("z", null, 0, 10)).containsExactly(3L);
+
+        // deleted
+        table.remove(6L);
+        refresh(6L);
+        assertThat(ids("ann", Role.USER, 0, 10)).containsExactly(7L);
+        assertThat(ids("", null, 0, 10)).containsExactly(2L, 4L, 7L, 5L, 8L, 1L, 3L);
+    }
+
+    private List<Long> ids(String prefix, Role role, int page, int size) {
+        return directory.search(prefix, role, page, size).stream().map(UserDto::getId).toList();
+    }
+
+    private void put(Long id, String email, Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setRole(role);
+        table.put(id, user);
+    }
+
+    private void refresh(Long id) {
+        directory.onEntityChanged(new EntityChangedEvent(EntityChangedEvent.Type.USER, id, !table.containsKey(id)));
+    }
+}
@@ -0,0 +1,122 @@
+package com.sophie.task_tracker.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkloadIndexTest {
+
+    private static final int USERS = 16;
+    private static final int THREADS = 8;
+
+    private final WorkloadIndex index = new WorkloadIndex();
+
+    @Test
+    @DisplayName("The least loaded user is picked, ties go to the lower id, ineligible users are ignored")
+    void pick() {
+        assertThat(index.pick(1)).isNull();
+        index.addUser(2L);
+        index.addUser(1L);
+        index.adjust(1L, 3);
+
+        assertThat(index.pick(2)).isEqualTo(2L);
+        assertThat(index.pick(1)).isEqualTo(2L);
+        assertThat(index.pick(1)).isEqualTo(1L);
+        assertThat(index.load(1L)).isEqualTo(4);
+        assertThat(index.load(2L)).isEqualTo(3);
+
+        index.adjust(3L, 10);
+        index.removeUser(1L);
+        assertThat(index.load(1L)).isEqualTo(-1);
+        assertThat(index.load(3L)).isEqualTo(-1);
+        assertThat(index.pick(1)).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Concurrent picks skip no user and level out the loads, concurrent releases lose no update")
+    void concurrentPicks() throws Exception {
+        for (long userId = 1; userId <= USERS; userId++) {
+            index.addUser(userId);
+        }
+
+        // every pick is kept: loads only go up and each pick takes a least loaded user, so
+        // 8 x 1000 picks land exactly 500 on each of the 16
+        Map<Long, AtomicLong> picked = new ConcurrentHashMap<>();
+        run(random -> {
+            for (int i = 0; i < 1000; i++) {
+                picked.computeIfAbsent(index.pick(1), userId -> new AtomicLong()).incrementAndGet();
+            }
+        });
+        assertThat(picked).hasSize(USERS);
+        assertLoads(500);
+
+        // picks given back the way a rolled back reservation is, mixed with other changes to the
+        // same users: everything nets out to zero
+        run(random -> {
+            for (int i = 0; i < 1000; i++) {
+                long weight = 1 + random.nextInt(3);
+                Long userId = index.pick(weight);
+                long delta = random.nextInt(5);
+                index.adjust(userId, delta);
+                index.adjust(userId, -delta - weight);
+            }
+        });
+        assertLoads(500);
+
+        // user n is 10 * n ahead, picks go to the others until all are level: 1200 picks to get
+        // there, the other 400 spread evenly on top
+        for (long userId = 1; userId <= USERS; userId++) {
+            index.adjust(userId, 10 * userId);
+        }
+        run(random -> {
+            for (int i = 0; i < 200; i++) {
+                index.pick(1);
+            }
+        });
+        assertLoads(10 * USERS + 500 + 25);
+    }
+
+    private void assertLoads(long load) {
+        for (long userId = 1; userId <= USERS; userId++) {
+            assertThat(index.load(userId)).as("load of user %d", userId).isEqualTo(load);
+        }
+    }
+
+    private interface Work {
+        void run(Random random) throws Exception;
+    }
+
+    private static void run(Work work) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                Random random = new Random(thread);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    work.run(random);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.sophie.task_tracker.sharding;
+
+import com.sophie.task_tracker.dto.ProjectCreateDto;
+import com.sophie.task_tracker.dto.ProjectOverviewDto;
+import com.sophie.task_tracker.dto.TaskCreateDto;
+import com.sophie.task_tracker.dto.TaskDto;
+import com.sophie.task_tracker.dto.UserRegistrationDto;
+import com.sophie.task_tracker.enums.Role;
+import com.sophie.task_tracker.enums.TaskPriority;
+import com.sophie.task_tracker.enums.TaskStatus;
+import com.sophie.task_tracker.exception.ConflictException;
+import com.sophie.task_tracker.services.ProjectService;
+import com.sophie.task_tracker.services.TaskService;
+import com.sophie.task_tracker.services.UserService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// three in-memory H2 shards: projects spread over them, lists across projects merge in order
+@SpringBootTest(properties = {
+        "app.sharding.enabled=true",
+        "app.sharding.urls=jdbc:h2:mem:sharding-test-0;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:sharding-test-1;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:sharding-test-2;DB_CLOSE_DELAY=-1"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ShardingTest {
+
+    private static final int PROJECTS = 6;
+    private static final int TASKS_PER_PROJECT = 5;
+
+    @Autowired private UserService userService;
+    @Autowired private ProjectService projectService;
+    @Autowired private TaskService taskService;
+    @Autowired private Shards shards;
+    @Autowired private ShardRoutingDataSource routingDataSource;
+    @Autowired private ShardUserReplicator userReplicator;
+
+    private Long adminId;
+    private Long managerId;
+    private final List<Long> projectIds = new ArrayList<>();
+    private final List<TaskDto> tasks = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        adminId = register("shard-admin@example.com", Role.ADMIN);
+        managerId = register("shard-manager@example.com", Role.MANAGER);
+        Long assigneeId = register("shard-user@example.com", Role.USER);
+
+        for (int p = 0; p < PROJECTS; p++) {
+            ProjectCreateDto project = new ProjectCreateDto();
+            project.setName("sharded " + p);
+            projectIds.add(projectService.createProject(project, managerId).getId());
+        }
+        for (int i = 0; i < PROJECTS * TASKS_PER_PROJECT; i++) {
+            TaskCreateDto task = new TaskCreateDto();
+            task.setTitle("task " + i);
+            task.setProjectId(projectIds.get(i % PROJECTS));
+            task.setDueDate(LocalDate.now().plusDays(i % 7));
+            task.setPriority(TaskPriority.values()[i % TaskPriority.values().length]);
+            task.setAssignedUserId(assigneeId);
+            tasks.add(taskService.createTask(task, managerId, Role.MANAGER));
+        }
+    }
+
+    @Test
+    @DisplayName("Projects and their tasks are spread over every shard")
+    void placement() {
+        Set<Integer> used = new HashSet<>();
+        projectIds.forEach(id -> used.add(shards.shardOf(id)));
+        assertThat(used).containsExactlyInAnyOrder(0, 1, 2);
+
+        for (TaskDto task : tasks) {
+            assertThat(shards.shardOf(task.getId())).isEqualTo(shards.shardOf(task.getProjectId()));
+            assertThat(taskService.getTaskById(task.getId(), managerId, Role.MANAGER).getTitle()).isEqualTo(task.getTitle());
+        }
+    }
+
+    @Test
+    @DisplayName("ADMIN findByStatus pages merge the shards in sort order")
+    void crossShardPages() {
+        List<Long> expected = tasks.stream()
+                .sorted(Comparator.comparing(TaskDto::getDueDate).thenComparing(TaskDto::getId))
+                .map(TaskDto::getId)
+                .toList();
+
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page * 7 < expected.size(); page++) {
+            taskService.getTasksByStatus(TaskStatus.TODO, PageRequest.of(page, 7, Sort.by("dueDate")), adminId, Role.ADMIN)
+                    .forEach(task -> paged.add(task.getId()));
+        }
+        assertThat(paged).isEqualTo(expected);
+
+        List<Long> projects = projectService.getAllProjects(1, 4, adminId, Role.ADMIN).stream()
+                .map(ProjectOverviewDto::getId)
+                .toList();
+        assertThat(projects).isEqualTo(projectIds.stream().sorted().skip(4).toList());
+    }
+
+    @Test
+    @DisplayName("Batch reads find tasks on every shard, a bulk create can't span shards")
+    void batches() {
+        List<Long> ids = tasks.stream().map(TaskDto::getId).toList();
+        assertThat(taskService.getTasksByIds(ids, managerId, Role.MANAGER).getTasks())
+                .extracting(TaskDto::getId)
+                .containsExactlyElementsOf(ids);
+
+        List<TaskCreateDto> spanning = new ArrayList<>();
+        for (int p = 0; p < 2; p++) {
+            TaskCreateDto task = new TaskCreateDto();
+            task.setTitle("spanning " + p);
+            task.setProjectId(projectIds.get(p));
+            spanning.add(task);
+        }
+        assertThatThrownBy(() -> taskService.createTasks(spanning, false, managerId, Role.MANAGER))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("different shards");
+    }
+
+    @Test
+    @DisplayName("Users lost on a shard are copied there again, and a project of theirs can go there")
+    void userReconcile() {
+        Long userId = register("shard-lost@example.com", Role.MANAGER);
+        JdbcTemplate shard2 = new JdbcTemplate(routingDataSource.getShards().get(2));
+        assertThat(countUser(shard2, userId)).isEqualTo(1);
+
+        // as if the copy had never made it
+        shard2.update("DELETE FROM users WHERE id = ?", userId);
+        userReplicator.reconcile();
+        assertThat(countUser(shard2, userId)).isEqualTo(1);
+
+        for (int p = 0; p < 3; p++) {
+            ProjectCreateDto project = new ProjectCreateDto();
+            project.setName("lost " + p);
+            projectService.createProject(project, userId);
+        }
+    }
+
+    private static int countUser(JdbcTemplate shard, Long userId) {
+        return shard.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, userId);
+    }
+
+    private Long register(String email, Role role) {
+        UserRegistrationDto user = new UserRegistrationDto();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setRole(role);
+        return userService.registerUser(user).getId();
+    }
+}
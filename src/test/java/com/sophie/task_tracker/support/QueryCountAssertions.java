@@ -0,0 +1,25 @@
+package com.sophie.task_tracker.support;
+
+import com.sophie.task_tracker.config.QueryCountInspector;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// runs an action and fails if it issued more SQL statements than allowed.
+// the action must not run inside the test's own transaction, or lazy loads get served from its cache
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    public static <T> T assertMaxQueries(long max, String description, Supplier<T> action) {
+        QueryCountInspector.reset();
+        T result = action.get();
+        long count = QueryCountInspector.count();
+        assertThat(count)
+                .as("%s issued %d SQL statements, expected at most %d", description, count, max)
+                .isLessThanOrEqualTo(max);
+        return result;
+    }
+}